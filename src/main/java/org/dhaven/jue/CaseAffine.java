@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Run the tests of a test case one after the other, in order, on one
+ * thread.  Test cases still run alongside each other.  It is meant for test
+ * cases that share static state between their tests, or keep fixtures that
+ * only the thread that made them may use.
+ * <p/>
+ * If a test times out, or has to wait for a {@link UsesResource shared
+ * resource}, the tests after it carry on on another thread.
+ */
+@Retention(RUNTIME)
+@Target(TYPE)
+@Documented
+@Inherited
+public @interface CaseAffine {
+}
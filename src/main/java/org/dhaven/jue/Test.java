@@ -43,4 +43,11 @@ public @interface Test {
     }
 
     public abstract Class<? extends Throwable> expected() default None.class;
+
+    /**
+     * The number of milliseconds the test may take before it is stopped and
+     * reported as terminated.  Zero means the test case's {@link Timeout}, or
+     * the engine's default if the test case has none.
+     */
+    public abstract long timeout() default 0;
 }
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Name a shared resource a test uses, such as a database or a range of
+ * ports, and how many tests may use it at once.  The runners hold a test
+ * back while the resource is taken, and run other tests in the meantime,
+ * so no thread waits for it.  On a test case, it applies to every test.
+ * <p/>
+ * A test may use any number of resources, and gets all of them or none.
+ * If a resource is declared with different numbers of permits, the
+ * smallest one counts.
+ * <p/>
+ * A test that times out keeps its resources until its thread actually
+ * returns, even though it is already reported as terminated.  The tests
+ * waiting for the same resources wait for that too.
+ */
+@Retention(RUNTIME)
+@Target({METHOD, TYPE})
+@Documented
+@Inherited
+@Repeatable(UsesResources.class)
+public @interface UsesResource {
+    /**
+     * The name of the resource.
+     */
+    String value();
+
+    /**
+     * The number of tests that may use the resource at once.
+     */
+    int permits() default 1;
+}
@@ -33,8 +33,12 @@ import org.dhaven.jue.Test;
  * Collect, filter and prepare the test classes.
  */
 public class Request {
-    private Set<Class<?>> testClasses = new HashSet<Class<?>>();
+    private Set<Class<?>> testClasses = new LinkedHashSet<Class<?>>();
     private ClassCollector collector = new ClassCollector();
+    private int shardIndex = 1;
+    private int shardCount = 1;
+    private boolean testsSplit = false;
+    private List<String> testOrder;
 
     public Request(String... arguments) throws Exception {
         collector.methodsHaveAnnotation(Before.class, Test.class, After.class, Ignore.class);
@@ -70,6 +74,67 @@ public class Request {
         return testClasses;
     }
 
+    /**
+     * Only run one shard of the tests, so that several machines or processes
+     * can each take a part of them.  The shards get about the same share of
+     * the time the tests took in earlier runs, or of the number of test runs
+     * when there is no history.  The same tests and history are always split
+     * the same way, so together the shards run every test exactly once, as
+     * long as every shard is given the same history.
+     *
+     * @param index the shard to run, from 1 to the count
+     * @param count the number of shards
+     */
+    public void setShard(int index, int count) {
+        if (count < 1)
+            throw new IllegalArgumentException("Must have at least one shard: " + count);
+        if (index < 1 || index > count)
+            throw new IllegalArgumentException("No shard " + index + " of " + count);
+
+        shardIndex = index;
+        shardCount = count;
+    }
+
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Split the tests of a test class over the shards, rather than keeping
+     * every test class whole in one shard.  This evens the shards out when a
+     * few classes hold most of the tests.
+     *
+     * @param split <code>true</code> to split the tests of a class
+     */
+    public void setTestsSplit(boolean split) {
+        testsSplit = split;
+    }
+
+    public boolean isTestsSplit() {
+        return testsSplit;
+    }
+
+    /**
+     * Only run the tests with the given names, in the given order.  The test
+     * classes are still run in the order they were given in.  A name given
+     * twice runs the next test of that name, such as the next set of
+     * parameters of a parameterized test.
+     *
+     * @param testNames the names of the tests, or <code>null</code> to run
+     *                  every test in the planned order
+     */
+    public void setTestOrder(List<String> testNames) {
+        testOrder = null == testNames ? null : new ArrayList<String>(testNames);
+    }
+
+    public List<String> getTestOrder() {
+        return testOrder;
+    }
+
     private void filterClasses() {
         Iterator<Class<?>> it = testClasses.iterator();
 
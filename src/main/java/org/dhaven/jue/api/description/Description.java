@@ -40,6 +40,12 @@ public class Description implements Comparable<Description> {
      */
     public static final Description JUEName = new Description("JUE: Version 0.6", Type.System);
 
+    /**
+     * The total number of runs for a test that keeps running until it is
+     * stopped, so the number of runs is not known in advance.
+     */
+    public static final int OPEN_ENDED = 0;
+
     private final String name;
     private final Type type;
     private final int run;
@@ -123,7 +129,7 @@ public class Description implements Comparable<Description> {
     /**
      * The total number of runs expected for this test.
      *
-     * @return the total number of runs
+     * @return the total number of runs, or {@link #OPEN_ENDED}
      */
     public int getTotalRuns() {
         return ofRuns;
@@ -194,6 +200,8 @@ public class Description implements Comparable<Description> {
 
         if (ofRuns > 1) {
             builder.append(":").append(run).append("-").append(ofRuns);
+        } else if (ofRuns == OPEN_ENDED) {
+            builder.append(":").append(run);
         }
 
         if (parameters.length > 0) {
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.api.event;
+
+import java.util.List;
+
+/**
+ * Implement this interface instead of {@link TestListener} if your listener
+ * can do its work more efficiently on several events at once, such as a
+ * report that writes to disk.  The engine delivers all the events that piled
+ * up since the last call in one list.
+ *
+ * @see org.dhaven.jue.core.Engine#addTestListener(TestListener)
+ */
+public interface BatchTestListener extends TestListener {
+    /**
+     * Consume a run of test events.  The events are in the order they were
+     * sent, and the list is never empty.  Batches are sent one at a time.
+     *
+     * @param events the test events
+     */
+    void handleEvents(List<TestEvent> events);
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.api.event;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+
+import org.dhaven.jue.api.description.Type;
+
+/**
+ * Tells the engine which events a listener is interested in, by
+ * {@link Type} and {@link Status}.  A listener only receives the events that
+ * match both.  Listeners that are not interested in an event cost nothing
+ * when it is fired, and an event nobody is interested in is never created.
+ * <p/>
+ * For example, a listener that only wants to hear about failed tests would
+ * subscribe with:
+ * <pre>
+ *     Subscription.to(Status.Failed).only(Type.Test)
+ * </pre>
+ */
+public final class Subscription {
+    private static final int STATUS_COUNT = Status.values().length;
+
+    /**
+     * Subscription to every event.
+     */
+    public static final Subscription ALL = new Subscription(EnumSet.allOf(Type.class), EnumSet.allOf(Status.class));
+
+    private final EnumSet<Type> types;
+    private final EnumSet<Status> statuses;
+
+    private Subscription(EnumSet<Type> types, EnumSet<Status> statuses) {
+        this.types = types;
+        this.statuses = statuses;
+    }
+
+    /**
+     * Subscribe to events with any of the statuses, for all types.
+     *
+     * @param statuses the statuses of interest
+     * @return the subscription
+     */
+    public static Subscription to(Status... statuses) {
+        return new Subscription(EnumSet.allOf(Type.class), toSet(Status.class, Arrays.asList(statuses)));
+    }
+
+    /**
+     * Subscribe to events of any of the types, for all statuses.
+     *
+     * @param types the types of interest
+     * @return the subscription
+     */
+    public static Subscription to(Type... types) {
+        return new Subscription(toSet(Type.class, Arrays.asList(types)), EnumSet.allOf(Status.class));
+    }
+
+    /**
+     * Narrow this subscription down to some types.
+     *
+     * @param types the types of interest
+     * @return the narrower subscription
+     */
+    public Subscription only(Type... types) {
+        EnumSet<Type> narrowed = EnumSet.copyOf(this.types);
+        narrowed.retainAll(Arrays.asList(types));
+
+        return new Subscription(narrowed, statuses);
+    }
+
+    /**
+     * Narrow this subscription down to some statuses.
+     *
+     * @param statuses the statuses of interest
+     * @return the narrower subscription
+     */
+    public Subscription only(Status... statuses) {
+        EnumSet<Status> narrowed = EnumSet.copyOf(this.statuses);
+        narrowed.retainAll(Arrays.asList(statuses));
+
+        return new Subscription(types, narrowed);
+    }
+
+    /**
+     * Check whether events of this type and status are wanted.
+     *
+     * @param type   the type of the event
+     * @param status the status of the event
+     * @return <code>true</code> if the subscriber wants the event
+     */
+    public boolean accepts(Type type, Status status) {
+        return types.contains(type) && statuses.contains(status);
+    }
+
+    /**
+     * A number unique to every combination of {@link Type} and {@link Status},
+     * from zero up to but not including {@link #routeCount()}.  Used to build
+     * routing tables.
+     *
+     * @param type   the type
+     * @param status the status
+     * @return the route number
+     */
+    public static int route(Type type, Status status) {
+        return type.ordinal() * STATUS_COUNT + status.ordinal();
+    }
+
+    /**
+     * The number of different routes.
+     *
+     * @return the number of combinations of {@link Type} and {@link Status}
+     */
+    public static int routeCount() {
+        return Type.values().length * STATUS_COUNT;
+    }
+
+    private static <E extends Enum<E>> EnumSet<E> toSet(Class<E> type, Collection<E> values) {
+        EnumSet<E> set = EnumSet.noneOf(type);
+        set.addAll(values);
+
+        return set;
+    }
+
+    @Override
+    public String toString() {
+        return "Subscription to " + types + " " + statuses;
+    }
+}
@@ -30,13 +30,22 @@ import org.dhaven.jue.api.description.Type;
  * The test event carries the data necessary for tools to listen to the progress
  * of the tests being run.  There is no guarantee for the order that events are
  * received, only for when they are created.  Each event is given a time stamp
- * in nanoseconds for when it was created.
+ * in nanoseconds for when it was created.  Optionally, the event also carries
+ * the CPU and user time the thread had used up when the event was created.
  */
 public class TestEvent implements Describable {
+    /**
+     * The CPU and user time of events that did not measure them.
+     */
+    public static final long NOT_MEASURED = -1;
+
     private final Description description;
     private final Status status;
     private final Throwable failure;
     private final long timeStamp;
+    private final long threadId;
+    private final long cpuTime;
+    private final long userTime;
 
     /**
      * Create a test event with the test name, event type, and status.
@@ -62,12 +71,65 @@ public class TestEvent implements Describable {
      */
     public TestEvent(Description description,
                      Status status, Throwable exception) {
+        this(description, status, exception, System.nanoTime());
+    }
+
+    /**
+     * Create a test event that happened at a specific time.  This is used when
+     * the event was recorded earlier than it was created, for example by the
+     * engine's event buffer or when reading back a recorded run.
+     *
+     * @param description the test name
+     * @param status      the {@link Status}
+     * @param exception   the failure cause, if any
+     * @param nanoseconds the time stamp in nanoseconds
+     * @see #TestEvent(Description, Status, Throwable)
+     */
+    public TestEvent(Description description,
+                     Status status, Throwable exception, long nanoseconds) {
+        this(description, status, exception, nanoseconds, Thread.currentThread().getId());
+    }
+
+    /**
+     * Create a test event that happened at a specific time on a specific
+     * thread.
+     *
+     * @param description the test name
+     * @param status      the {@link Status}
+     * @param exception   the failure cause, if any
+     * @param nanoseconds the time stamp in nanoseconds
+     * @param threadId    the id of the thread the event happened on
+     * @see #TestEvent(Description, Status, Throwable)
+     */
+    public TestEvent(Description description,
+                     Status status, Throwable exception, long nanoseconds, long threadId) {
+        this(description, status, exception, nanoseconds, threadId, NOT_MEASURED, NOT_MEASURED);
+    }
+
+    /**
+     * Create a test event that also records how much processor time the
+     * thread had used up when the event happened.
+     *
+     * @param description the test name
+     * @param status      the {@link Status}
+     * @param exception   the failure cause, if any
+     * @param nanoseconds the time stamp in nanoseconds
+     * @param threadId    the id of the thread the event happened on
+     * @param cpuTime     the thread's CPU time in nanoseconds, or {@link #NOT_MEASURED}
+     * @param userTime    the thread's user time in nanoseconds, or {@link #NOT_MEASURED}
+     * @see java.lang.management.ThreadMXBean#getCurrentThreadCpuTime()
+     */
+    public TestEvent(Description description, Status status, Throwable exception,
+                     long nanoseconds, long threadId, long cpuTime, long userTime) {
         if (null == description)
             throw new IllegalArgumentException("description was null");
         if (null == status)
             throw new IllegalArgumentException("status was null");
 
-        timeStamp = System.nanoTime();
+        timeStamp = nanoseconds;
+        this.threadId = threadId;
+        this.cpuTime = cpuTime;
+        this.userTime = userTime;
         this.description = description;
         this.status = status;
 
@@ -133,6 +195,38 @@ public class TestEvent implements Describable {
         return timeStamp;
     }
 
+    /**
+     * Get the id of the thread the event happened on.  For test events this
+     * is the thread that ran the test.
+     *
+     * @return the thread id
+     * @see Thread#getId()
+     */
+    public long getThreadId() {
+        return threadId;
+    }
+
+    /**
+     * Get the total CPU time the thread had used when the event happened.
+     * Only the difference between two events on the same thread means
+     * anything.
+     *
+     * @return the CPU time in nanoseconds, or {@link #NOT_MEASURED}
+     */
+    public long getCpuTime() {
+        return cpuTime;
+    }
+
+    /**
+     * Get the CPU time the thread had spent in user mode when the event
+     * happened.
+     *
+     * @return the user time in nanoseconds, or {@link #NOT_MEASURED}
+     */
+    public long getUserTime() {
+        return userTime;
+    }
+
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
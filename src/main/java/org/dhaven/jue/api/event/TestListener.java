@@ -21,7 +21,8 @@ package org.dhaven.jue.api.event;
 
 /**
  * Implement this class if you want to consume test events.  Register your
- * custom listener with the test engine.
+ * custom listener with the test engine.  If your listener would rather
+ * receive several events at once, implement {@link BatchTestListener}.
  *
  * @see org.dhaven.jue.core.Engine#addTestListener(TestListener)
  */
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.api.journal;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.dhaven.jue.api.event.TestEvent;
+
+/**
+ * Reads the events written by an {@link EventStreamWriter}, as they arrive.
+ * A stream that stops without its end mark, because the writing process
+ * died, simply ends after the last complete record;
+ * {@link #isComplete()} tells the two apart.
+ */
+public class EventStreamReader implements Closeable {
+    private final DataInputStream in;
+    private final JournalDecoder decoder = new JournalDecoder();
+    private byte[] record = new byte[4096];
+    private boolean ended = false;
+    private boolean complete = false;
+
+    /**
+     * Open an event stream, waiting for its header.
+     *
+     * @param stream the stream to read from
+     * @throws IOException if the stream does not start with a header
+     */
+    public EventStreamReader(InputStream stream) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(stream));
+
+        try {
+            if (in.readInt() != JournalFormat.MAGIC) {
+                throw new IOException("Not an event stream");
+            }
+
+            int version = in.readInt();
+            if (version != JournalFormat.VERSION) {
+                throw new IOException("Unsupported event stream version " + version);
+            }
+        } catch (EOFException e) {
+            throw new IOException("The event stream ended before its header", e);
+        }
+    }
+
+    /**
+     * Read the next event, waiting for it to arrive.
+     *
+     * @return the event, or <code>null</code> if the stream ended
+     * @throws IOException if the stream could not be read
+     */
+    public TestEvent next() throws IOException {
+        while (!ended) {
+            int length;
+            try {
+                length = in.readInt();
+                if (length == 0) {
+                    ended = true;
+                    complete = true;
+                    break;
+                }
+
+                if (record.length < length) {
+                    record = new byte[Math.max(length, record.length * 2)];
+                }
+                in.readFully(record, 0, length);
+            } catch (EOFException e) {
+                ended = true;
+                break;
+            }
+
+            TestEvent event = decoder.decode(ByteBuffer.wrap(record, 0, length));
+            if (null != event) {
+                return event;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Tell whether the writer marked the end of the stream.  Only meaningful
+     * once {@link #next()} returned <code>null</code>.
+     *
+     * @return <code>true</code> if the stream ended with its end mark
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public void close() throws IOException {
+        ended = true;
+        in.close();
+    }
+}
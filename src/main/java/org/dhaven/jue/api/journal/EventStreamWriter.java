@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.api.journal;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.dhaven.jue.api.description.Description;
+import org.dhaven.jue.api.event.BatchTestListener;
+import org.dhaven.jue.api.event.TestEvent;
+
+/**
+ * Writes every event it receives to a stream, in the journal format, so
+ * another process can follow a run as it happens.  Events are flushed a
+ * batch at a time.
+ * <p/>
+ * Closing the writer marks the end of the stream, which tells the reader
+ * the run was over rather than cut short.
+ *
+ * @see EventStreamReader
+ */
+public class EventStreamWriter implements BatchTestListener, Closeable {
+    private final DataOutputStream out;
+    private final JournalEncoder encoder = new JournalEncoder();
+    private final Map<Description, Integer> defined = new IdentityHashMap<Description, Integer>();
+    private boolean closed = false;
+
+    /**
+     * Create a writer, and write the header to the stream.
+     *
+     * @param stream the stream to write to
+     * @throws IOException if the header could not be written
+     */
+    public EventStreamWriter(OutputStream stream) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(stream));
+        out.writeInt(JournalFormat.MAGIC);
+        out.writeInt(JournalFormat.VERSION);
+        out.flush();
+    }
+
+    @Override
+    public synchronized void handleEvent(TestEvent event) {
+        write(event);
+        flush();
+    }
+
+    @Override
+    public synchronized void handleEvents(List<TestEvent> events) {
+        for (TestEvent event : events) {
+            write(event);
+        }
+        flush();
+    }
+
+    /**
+     * Mark the end of the stream and close it.
+     *
+     * @throws IOException if the stream could not be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            out.writeInt(0);
+            out.close();
+        }
+    }
+
+    private void write(TestEvent event) {
+        if (closed) {
+            throw new IllegalStateException("Event stream is closed");
+        }
+
+        try {
+            Description description = event.getDescription();
+            Integer id = defined.get(description);
+            boolean define = null == id;
+            if (define) {
+                id = defined.size();
+                defined.put(description, id);
+            }
+
+            ByteBuffer record = encoder.encode(id, define, event);
+            out.write(record.array(), record.position(), record.remaining());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write to the event stream", e);
+        }
+    }
+
+    private void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write to the event stream", e);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.api.journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.dhaven.jue.api.description.Description;
+import org.dhaven.jue.api.description.Type;
+import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.api.event.TestEvent;
+
+/**
+ * Decodes journal records back into events, keeping track of the
+ * descriptions defined so far.
+ * <p/>
+ * Failures are read back with the context class loader.  If the exception
+ * class is not available, the failure is replaced with an
+ * {@link AssertionError} that says so.
+ *
+ * @see JournalFormat
+ */
+final class JournalDecoder {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final Type[] TYPES = Type.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private final Map<Integer, Description> defined = new HashMap<Integer, Description>();
+
+    /**
+     * Decode one record, without its length.
+     *
+     * @param in the record
+     * @return the event, or <code>null</code> if the record defined a
+     *         description
+     * @throws IOException if the record could not be read
+     */
+    TestEvent decode(ByteBuffer in) throws IOException {
+        byte kind = in.get();
+
+        if (kind == JournalFormat.DEFINE) {
+            readDefinition(in);
+            return null;
+        } else if (kind == JournalFormat.EVENT) {
+            return readEvent(in);
+        } else {
+            throw new IOException("Unknown journal record kind: " + kind);
+        }
+    }
+
+    /**
+     * Forget the descriptions defined so far, such as at the start of a new
+     * segment.
+     */
+    void reset() {
+        defined.clear();
+    }
+
+    private void readDefinition(ByteBuffer in) {
+        int id = in.getInt();
+        Type type = TYPES[in.get()];
+        int run = in.getInt();
+        int ofRuns = in.getInt();
+        String name = getString(in);
+        Object[] parameters = new Object[in.getInt()];
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = getString(in);
+        }
+
+        defined.put(id, new Description(name, type, run, ofRuns, parameters));
+    }
+
+    private TestEvent readEvent(ByteBuffer in) throws IOException {
+        int id = in.getInt();
+        Status status = STATUSES[in.get()];
+        long nanoseconds = in.getLong();
+        long threadId = in.getLong();
+        long cpuTime = in.getLong();
+        long userTime = in.getLong();
+        byte[] failure = new byte[in.getInt()];
+        in.get(failure);
+
+        Description description = defined.get(id);
+        if (null == description) {
+            throw new IOException("Journal event refers to unknown description " + id);
+        }
+
+        return new TestEvent(description, status, deserialize(failure), nanoseconds, threadId, cpuTime, userTime);
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+
+        return new String(bytes, UTF8);
+    }
+
+    private static Throwable deserialize(byte[] failure) throws IOException {
+        if (failure.length == 0) {
+            return null;
+        }
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(failure)) {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass description)
+                    throws IOException, ClassNotFoundException {
+                try {
+                    return Class.forName(description.getName(), false,
+                            Thread.currentThread().getContextClassLoader());
+                } catch (ClassNotFoundException e) {
+                    return super.resolveClass(description);
+                }
+            }
+        };
+
+        try {
+            return (Throwable) in.readObject();
+        } catch (ClassNotFoundException e) {
+            return new AssertionError("Could not read the recorded failure: " + e.getMessage());
+        } finally {
+            in.close();
+        }
+    }
+}
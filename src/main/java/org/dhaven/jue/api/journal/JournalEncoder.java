@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.api.journal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import org.dhaven.jue.api.description.Description;
+import org.dhaven.jue.api.event.TestEvent;
+
+/**
+ * Encodes events into journal records, ready to be copied to a segment or a
+ * stream.  The encoder reuses its buffer, so only one thread may use it at a
+ * time.
+ *
+ * @see JournalFormat
+ */
+final class JournalEncoder {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private ByteBuffer record = ByteBuffer.allocate(4096);
+
+    /**
+     * Encode the records for an event, and the definition of its description
+     * if needed.
+     *
+     * @param id     the number of the description
+     * @param define <code>true</code> to define the description first
+     * @param event  the event
+     * @return the records, ready to be read
+     * @throws IOException if the failure could not be serialized
+     */
+    ByteBuffer encode(int id, boolean define, TestEvent event) throws IOException {
+        record.clear();
+
+        if (define) {
+            int start = beginRecord();
+            encodeDefinition(id, event.getDescription());
+            endRecord(start);
+        }
+
+        int start = beginRecord();
+        encodeEvent(id, event);
+        endRecord(start);
+
+        record.flip();
+        return record;
+    }
+
+    private int beginRecord() {
+        ensureRoom(4);
+        int start = record.position();
+        record.putInt(0);
+
+        return start;
+    }
+
+    private void endRecord(int start) {
+        record.putInt(start, record.position() - start - 4);
+    }
+
+    private void encodeDefinition(int id, Description description) {
+        Object[] parameters = description.getParameters();
+
+        ensureRoom(32);
+        record.put(JournalFormat.DEFINE);
+        record.putInt(id);
+        record.put((byte) description.getType().ordinal());
+        record.putInt(description.getRun());
+        record.putInt(description.getTotalRuns());
+        putString(description.getName());
+        ensureRoom(4);
+        record.putInt(parameters.length);
+        for (Object parameter : parameters) {
+            putString(String.valueOf(parameter));
+        }
+    }
+
+    private void encodeEvent(int id, TestEvent event) throws IOException {
+        byte[] failure = serialize(event.getFailure());
+
+        ensureRoom(45 + failure.length);
+        record.put(JournalFormat.EVENT);
+        record.putInt(id);
+        record.put((byte) event.getStatus().ordinal());
+        record.putLong(event.getNanoseconds());
+        record.putLong(event.getThreadId());
+        record.putLong(event.getCpuTime());
+        record.putLong(event.getUserTime());
+        record.putInt(failure.length);
+        record.put(failure);
+    }
+
+    private void putString(String value) {
+        byte[] bytes = value.getBytes(UTF8);
+
+        ensureRoom(4 + bytes.length);
+        record.putInt(bytes.length);
+        record.put(bytes);
+    }
+
+    private void ensureRoom(int bytes) {
+        if (record.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(record.capacity() * 2, record.position() + bytes));
+            record.flip();
+            larger.put(record);
+            record = larger;
+        }
+    }
+
+    private static byte[] serialize(Throwable failure) throws IOException {
+        if (null == failure) {
+            return new byte[0];
+        }
+
+        try {
+            return toBytes(failure);
+        } catch (NotSerializableException e) {
+            // Keep what we can: the message and the stack trace
+            AssertionError substitute = new AssertionError(failure.toString());
+            substitute.setStackTrace(failure.getStackTrace());
+            return toBytes(substitute);
+        }
+    }
+
+    private static byte[] toBytes(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(object);
+        out.close();
+
+        return bytes.toByteArray();
+    }
+}
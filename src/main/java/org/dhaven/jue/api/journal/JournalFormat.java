@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.api.journal;
+
+import java.io.File;
+
+/**
+ * The layout of the journal files.  A journal is a directory of segment
+ * files, read in name order.  Every segment starts with a header, followed by
+ * records.  A record is an int holding the length of the rest of the record,
+ * followed by the record kind and its fields.  A length of zero marks the end
+ * of the segment, since the unused part of a segment is zero filled.
+ * <p/>
+ * Descriptions are written once per segment with a {@link #DEFINE} record,
+ * and events refer to them by number.  That keeps every segment readable on
+ * its own, and keeps the event records small.
+ * <pre>
+ * header:  int MAGIC, int VERSION
+ * DEFINE:  int id, byte type, int run, int ofRuns, string name,
+ *          int parameter count, string parameter...
+ * EVENT:   int id, byte status, long nanoseconds, long thread id,
+ *          long cpu time, long user time, int failure length,
+ *          serialized failure
+ * string:  int length, UTF-8 bytes
+ * </pre>
+ * An event stream uses the same layout as a single segment that never
+ * fills up: the header, then the records, then a length of zero once the
+ * writer is done.
+ */
+final class JournalFormat {
+    static final int MAGIC = 0x4A55454A;
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 8;
+    static final byte DEFINE = 1;
+    static final byte EVENT = 2;
+    static final String SEGMENT_PREFIX = "journal-";
+    static final String SEGMENT_SUFFIX = ".jue";
+
+    private JournalFormat() {
+    }
+
+    static File segment(File directory, int number) {
+        return new File(directory, String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    static boolean isSegment(File file) {
+        String name = file.getName();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+}
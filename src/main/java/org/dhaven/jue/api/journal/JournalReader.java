@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.api.journal;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import org.dhaven.jue.api.event.TestEvent;
+
+/**
+ * Reads the events back out of a journal written by a {@link JournalWriter},
+ * in the order they were written.  The reader copes with a journal whose
+ * writer never got to close it; it simply stops at the last complete record.
+ * <p/>
+ * Failures are read back with the context class loader.  If the exception
+ * class is not available, the failure is replaced with an
+ * {@link AssertionError} that says so.
+ */
+public class JournalReader implements Closeable {
+    private final File[] segments;
+    private final JournalDecoder decoder = new JournalDecoder();
+    private int nextSegment = 0;
+    private MappedByteBuffer segment;
+
+    /**
+     * Open the journal in a directory.
+     *
+     * @param directory the journal directory
+     * @throws IOException if the directory does not hold a journal
+     */
+    public JournalReader(File directory) throws IOException {
+        File[] files = directory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return JournalFormat.isSegment(file);
+            }
+        });
+
+        if (null == files || files.length == 0)
+            throw new IOException("No journal found in " + directory);
+
+        Arrays.sort(files);
+        segments = files;
+    }
+
+    /**
+     * Read the next event.
+     *
+     * @return the event, or <code>null</code> if there are no more events
+     * @throws IOException if the journal could not be read
+     */
+    public TestEvent next() throws IOException {
+        while (true) {
+            if (null == segment || segment.remaining() < 4) {
+                if (!openNextSegment()) {
+                    return null;
+                }
+                continue;
+            }
+
+            int length = segment.getInt();
+            if (length == 0) {
+                segment = null;
+                continue;
+            }
+
+            TestEvent event = decoder.decode(segment);
+            if (null != event) {
+                return event;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        segment = null;
+        nextSegment = segments.length;
+    }
+
+    private boolean openNextSegment() throws IOException {
+        segment = null;
+        decoder.reset();
+
+        if (nextSegment >= segments.length) {
+            return false;
+        }
+
+        File file = segments[nextSegment++];
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = input.getChannel();
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            input.close();
+        }
+
+        if (segment.remaining() < JournalFormat.HEADER_SIZE
+                || segment.getInt() != JournalFormat.MAGIC) {
+            throw new IOException("Not a journal segment: " + file);
+        }
+
+        int version = segment.getInt();
+        if (version != JournalFormat.VERSION) {
+            throw new IOException("Unsupported journal version " + version + " in " + file);
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.api.journal;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.dhaven.jue.api.description.Description;
+import org.dhaven.jue.api.event.BatchTestListener;
+import org.dhaven.jue.api.event.TestEvent;
+
+/**
+ * Appends every event it receives to a journal on disk.  The journal is made
+ * up of memory mapped segment files of a fixed size; when one is full the
+ * writer moves on to the next.  Writing an event is a handful of puts into
+ * memory, and what has been written survives the test process dying, since
+ * the operating system owns the mapped pages.
+ * <p/>
+ * Register the writer like any other listener, and close it when the run is
+ * over.
+ *
+ * @see JournalReader
+ */
+public class JournalWriter implements BatchTestListener, Closeable {
+    /**
+     * The default size of a segment file, 64MB.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private final File directory;
+    private final int segmentSize;
+    private final Map<Description, Integer> defined = new IdentityHashMap<Description, Integer>();
+    private final JournalEncoder encoder = new JournalEncoder();
+    private ByteBuffer record;
+    private int segmentNumber = 0;
+    private RandomAccessFile file;
+    private MappedByteBuffer segment;
+    private boolean closed = false;
+
+    /**
+     * Create a journal writer with the default segment size.
+     *
+     * @param directory the directory to write the journal to
+     * @throws IOException if the journal could not be created
+     */
+    public JournalWriter(File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Create a journal writer.  Any journal already in the directory is
+     * replaced.
+     *
+     * @param directory   the directory to write the journal to
+     * @param segmentSize the size of each segment file in bytes
+     * @throws IOException if the journal could not be created
+     */
+    public JournalWriter(File directory, int segmentSize) throws IOException {
+        if (segmentSize <= JournalFormat.HEADER_SIZE)
+            throw new IllegalArgumentException("Segment size is too small: " + segmentSize);
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Could not create journal directory: " + directory);
+
+        File[] existing = directory.listFiles();
+        if (null != existing) {
+            for (File old : existing) {
+                if (JournalFormat.isSegment(old) && !old.delete()) {
+                    throw new IOException("Could not remove old journal segment: " + old);
+                }
+            }
+        }
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        openSegment();
+    }
+
+    @Override
+    public synchronized void handleEvent(TestEvent event) {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+
+        try {
+            Description description = event.getDescription();
+            Integer id = defined.get(description);
+            boolean define = null == id;
+            if (define) {
+                id = defined.size();
+            }
+
+            record = encoder.encode(id, define, event);
+
+            if (segment.remaining() < record.remaining()) {
+                // Start over in a fresh segment, which has to define
+                // the description again
+                closeSegment();
+                openSegment();
+                id = 0;
+                define = true;
+                record = encoder.encode(id, true, event);
+
+                if (segment.remaining() < record.remaining()) {
+                    throw new IOException("Journal record of " + record.remaining()
+                            + " bytes does not fit in a segment");
+                }
+            }
+
+            write();
+
+            if (define) {
+                defined.put(description, id);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write to the journal", e);
+        }
+    }
+
+    @Override
+    public synchronized void handleEvents(List<TestEvent> events) {
+        for (TestEvent event : events) {
+            handleEvent(event);
+        }
+    }
+
+    /**
+     * Flush the journal to disk and release the current segment.
+     *
+     * @throws IOException if the segment could not be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            closeSegment();
+        }
+    }
+
+    private void openSegment() throws IOException {
+        file = new RandomAccessFile(JournalFormat.segment(directory, segmentNumber++), "rw");
+        segment = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segment.putInt(JournalFormat.MAGIC);
+        segment.putInt(JournalFormat.VERSION);
+        defined.clear();
+    }
+
+    private void closeSegment() throws IOException {
+        segment.force();
+        segment = null;
+        file.close();
+    }
+
+    /**
+     * Copy the encoded records into the segment.  The length of the first
+     * record goes in last, so a reader never sees a half written record.
+     */
+    private void write() {
+        int start = segment.position();
+        int length = record.getInt(0);
+
+        record.position(4);
+        segment.position(start + 4);
+        segment.put(record);
+        segment.putInt(start, length);
+    }
+}
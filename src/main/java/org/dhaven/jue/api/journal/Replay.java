@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.api.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import org.dhaven.jue.api.event.BatchTestListener;
+import org.dhaven.jue.api.event.TestEvent;
+import org.dhaven.jue.api.event.TestListener;
+import org.dhaven.jue.api.results.Results;
+
+/**
+ * Plays recorded journals back through a fresh {@link Results} object and any
+ * other listeners, without running a single test.  This lets you rebuild the
+ * reports for a run, or try out a new listener against the events of a real
+ * run, as often as you like.
+ * <p/>
+ * By default the events are played back as fast as the listeners can take
+ * them.  With a speed of 1.0 the events are spaced out the way they were
+ * recorded; 2.0 plays back twice as fast, and so on.
+ * <p/>
+ * Events are delivered on the thread that calls {@link #run()}, one journal
+ * after the other, in the order they were recorded.  The results of each
+ * journal are {@link Results#merge(Results) merged}, so the journals of the
+ * shards of a test plan replay as one run.
+ */
+public class Replay {
+    private static final int BATCH_SIZE = 1024;
+    private static final String SPEED_OPTION = "--speed=";
+
+    private final File[] journals;
+    private final List<TestListener> listeners = new LinkedList<TestListener>();
+    private double speed = 0;
+
+    /**
+     * Create a replay of one or more journals.
+     *
+     * @param journals the journal directories
+     */
+    public Replay(File... journals) {
+        if (journals.length == 0)
+            throw new IllegalArgumentException("No journals to replay");
+
+        this.journals = journals;
+    }
+
+    /**
+     * Command line entry point.  Replays the journals and prints the results,
+     * just like the engine does after a run.
+     *
+     * @param arguments the journal directories, optionally preceded by
+     *                  <code>--speed=factor</code>
+     * @throws Exception if a journal could not be read
+     */
+    public static void main(String... arguments) throws Exception {
+        List<File> journals = new ArrayList<File>(arguments.length);
+        double speed = 0;
+
+        for (String argument : arguments) {
+            if (argument.startsWith(SPEED_OPTION)) {
+                speed = Double.parseDouble(argument.substring(SPEED_OPTION.length()));
+            } else {
+                journals.add(new File(argument));
+            }
+        }
+
+        Replay replay = new Replay(journals.toArray(new File[journals.size()]));
+        replay.setSpeed(speed);
+        Results results = replay.run();
+
+        System.out.println(results.passed() ? "All tests passed." : "Tests did not pass");
+
+        System.out.println(results);
+    }
+
+    /**
+     * Set the speed of the replay relative to the recording.  Zero means as
+     * fast as possible.
+     *
+     * @param speed the speed factor
+     */
+    public void setSpeed(double speed) {
+        if (speed < 0)
+            throw new IllegalArgumentException("Speed can't be negative: " + speed);
+
+        this.speed = speed;
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Add a listener to play the events to, besides the results.
+     *
+     * @param listener the listener
+     */
+    public void addTestListener(TestListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeTestListener(TestListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Play the journals back.
+     *
+     * @return the results rebuilt from the journals
+     * @throws IOException if a journal could not be read
+     */
+    public Results run() throws IOException {
+        Results results = new Results();
+
+        for (File journal : journals) {
+            Results played = new Results();
+            List<TestListener> targets = new ArrayList<TestListener>(listeners.size() + 1);
+            targets.add(played);
+            targets.addAll(listeners);
+
+            play(journal, targets);
+            results.merge(played);
+        }
+
+        return results;
+    }
+
+    private void play(File journal, List<TestListener> targets) throws IOException {
+        JournalReader reader = new JournalReader(journal);
+        List<TestEvent> batch = new ArrayList<TestEvent>(BATCH_SIZE);
+        long recordingStart = 0;
+        long replayStart = 0;
+
+        try {
+            for (TestEvent event = reader.next(); null != event; event = reader.next()) {
+                if (speed > 0) {
+                    if (replayStart == 0) {
+                        recordingStart = event.getNanoseconds();
+                        replayStart = System.nanoTime();
+                    }
+
+                    long due = replayStart + (long) ((event.getNanoseconds() - recordingStart) / speed);
+                    if (due > System.nanoTime() && !batch.isEmpty()) {
+                        // deliver what is due before waiting for the next one
+                        deliver(batch, targets);
+                    }
+                    waitUntil(due);
+                }
+
+                batch.add(event);
+                if (batch.size() == BATCH_SIZE) {
+                    deliver(batch, targets);
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                deliver(batch, targets);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void waitUntil(long due) {
+        long remaining = due - System.nanoTime();
+
+        while (remaining > 0) {
+            LockSupport.parkNanos(remaining);
+            remaining = due - System.nanoTime();
+        }
+    }
+
+    private static void deliver(List<TestEvent> batch, List<TestListener> targets) {
+        for (TestListener listener : targets) {
+            if (listener instanceof BatchTestListener) {
+                BatchTestListener.class.cast(listener).handleEvents(new ArrayList<TestEvent>(batch));
+            } else {
+                for (TestEvent event : batch) {
+                    listener.handleEvent(event);
+                }
+            }
+        }
+
+        batch.clear();
+    }
+}
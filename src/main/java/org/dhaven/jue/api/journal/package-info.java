@@ -0,0 +1,31 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * A journal is a compact binary record of every event in a test run.  The
+ * {@link JournalWriter} appends events to memory mapped segment files as they
+ * happen, so the record survives even if the run does not.  The
+ * {@link JournalReader} reads them back, and the {@link Replay} rebuilds the
+ * results of the run from them, as if it had just happened.
+ * <p/>
+ * The same records can be sent over a stream instead, with the
+ * {@link EventStreamWriter} and {@link EventStreamReader}, to follow a run in
+ * another process as it happens.
+ */
+package org.dhaven.jue.api.journal;
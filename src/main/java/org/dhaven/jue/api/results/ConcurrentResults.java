@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.api.results;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.api.event.TestEvent;
+
+/**
+ * Results that may be handed events from many threads at once, such as when
+ * the listeners are called directly on the test threads.  Each thread hands
+ * its events to one of a fixed number of stripes, each a {@link Results} of
+ * its own behind its own lock, so the test threads hardly ever wait on each
+ * other.  The events are folded into the summaries of the stripe as they
+ * arrive, so repeated runs take no more memory than they do in
+ * {@link Results}.
+ * <p/>
+ * The summary tree is only brought up to date when the stripes are
+ * {@link #fold() folded} into it, which the engine does when the run is
+ * over.  The {@link #count(Status)} of each kind of event is available at any
+ * time without folding anything.
+ */
+public class ConcurrentResults extends Results {
+    private static final Status[] STATUSES = Status.values();
+
+    private final Results[] stripes;
+    private final Object[] locks;
+    private final int mask;
+    private final LongAdder[] counts = new LongAdder[STATUSES.length];
+
+    public ConcurrentResults() {
+        // a power of two, at least twice the number of processors
+        int size = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1;
+
+        stripes = new Results[size];
+        locks = new Object[size];
+        mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Results();
+            locks[i] = new Object();
+        }
+
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void handleEvent(TestEvent event) {
+        int stripe = (int) Thread.currentThread().getId() & mask;
+
+        synchronized (locks[stripe]) {
+            stripes[stripe].handleEvent(event);
+        }
+
+        counts[event.getStatus().ordinal()].increment();
+    }
+
+    /**
+     * Get the number of events with the given status received so far.  The
+     * count is exact once the test run is over, and close enough while it is
+     * still going.
+     *
+     * @param status the status to count
+     * @return the number of events with that status
+     */
+    public long count(Status status) {
+        return counts[status.ordinal()].sum();
+    }
+
+    /**
+     * Fold the events received so far into the summary tree.  Each stripe
+     * hands over its summaries and starts afresh, so folding again only
+     * costs as much as the events that came in since.  A test that started
+     * before a fold and ended after it is put back together by the next one.
+     * <p/>
+     * Folding may be done while events come in, but the tree must not be
+     * read while another thread folds.
+     */
+    public synchronized void fold() {
+        for (int i = 0; i < stripes.length; i++) {
+            Results stripe;
+
+            synchronized (locks[i]) {
+                stripe = stripes[i];
+                stripes[i] = new Results();
+            }
+
+            merge(stripe);
+        }
+    }
+}
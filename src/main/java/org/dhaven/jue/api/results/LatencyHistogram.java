@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.api.results;
+
+/**
+ * Counts how long operations took, in a fixed amount of memory however many
+ * there are.  Values are kept in buckets that are 1/32 of a power of two
+ * wide, so a percentile is never off by more than about 3%.  The smallest,
+ * largest, and mean values are exact.
+ * <p/>
+ * The histogram is not thread safe; it is filled in by the results, which
+ * get their events from one thread at a time.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private final long[] counts = new long[(64 - SUB_BUCKET_BITS) * SUB_BUCKETS];
+    private long count = 0;
+    private long total = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    /**
+     * Count one value.  Negative values count as zero.
+     *
+     * @param value the value, usually in nanoseconds
+     */
+    public void record(long value) {
+        long recorded = Math.max(0, value);
+
+        counts[index(recorded)]++;
+        count++;
+        total += recorded;
+        min = Math.min(min, recorded);
+        max = Math.max(max, recorded);
+    }
+
+    /**
+     * Count all the values of another histogram as well.
+     *
+     * @param other the other histogram
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+
+        count += other.count;
+        total += other.total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Get the smallest value.
+     *
+     * @return the smallest value, or 0 if there are none
+     */
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * Get the largest value.
+     *
+     * @return the largest value, or 0 if there are none
+     */
+    public long getMax() {
+        return count == 0 ? 0 : max;
+    }
+
+    /**
+     * Get the average value.
+     *
+     * @return the mean, or 0 if there are no values
+     */
+    public long getMean() {
+        return count == 0 ? 0 : total / count;
+    }
+
+    /**
+     * Get the value that the given fraction of the values are at most.  A
+     * fraction of 0.5 is the median, 1.0 the largest value.
+     *
+     * @param fraction the fraction of the values, from 0 to 1
+     * @return the value, or 0 if there are none
+     */
+    public long percentile(double fraction) {
+        if (fraction < 0 || fraction > 1)
+            throw new IllegalArgumentException("The fraction must be from 0 to 1: " + fraction);
+
+        if (count == 0 || fraction == 0) {
+            return getMin();
+        }
+
+        long target = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.max(min, Math.min(max, highestValue(i)));
+            }
+        }
+
+        return max;
+    }
+
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long highestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.api.results;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.dhaven.jue.api.description.Description;
+import org.dhaven.jue.api.description.Type;
+import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.api.event.TestEvent;
+
+/**
+ * Rolls the runs of a repeated test up into one logical test.  Besides the
+ * combined status, the summary provides the throughput, the error rate, and
+ * the distribution of the run times, which is what a test repeated thousands
+ * of times under load is usually run for.
+ * <p/>
+ * A run is only kept while it is in progress.  Once it finished it is
+ * folded into the totals, so a test can run for as long as it needs to
+ * without the summary growing.  Only the first {@value #KEPT_FAILURES}
+ * failures are kept.
+ * <p/>
+ * The elapsed time is the clock time from the start of the first run to the
+ * end of the last one, the processor time the sum of the runs.
+ * <p/>
+ * Runs that were tagged with different parameters, such as the steps of a
+ * load profile, get a summary each.  The summaries of the same test are
+ * ordered by the time their first run started.
+ */
+public class RepeatedTestSummary extends TestCaseSummary {
+    /**
+     * The number of failures kept with their cause.
+     */
+    public static final int KEPT_FAILURES = 100;
+
+    private final int expectedRuns;
+    private final Set<Summary> running = new HashSet<Summary>();
+    private final LatencyHistogram runTimes = new LatencyHistogram();
+    private final Collection<Failure> failures = new ArrayList<Failure>();
+    private final int[] finished = new int[Status.values().length];
+    private long start = Long.MAX_VALUE;
+    private long end = Long.MIN_VALUE;
+    private long processorTime = 0;
+    private long userTime = 0;
+
+    /**
+     * Create the summary for a repeated test.
+     *
+     * @param run the description of any of the runs
+     */
+    public RepeatedTestSummary(Description run) {
+        super(new TestEvent(new Description(run.getName(), Type.Test, 0, run.getTotalRuns(), run.getParameters()),
+                Status.Started));
+        this.expectedRuns = run.getTotalRuns();
+    }
+
+    /**
+     * The number of runs the test was repeated for.
+     *
+     * @return the number of runs, or {@link Description#OPEN_ENDED}
+     */
+    public int numberOfRuns() {
+        return expectedRuns;
+    }
+
+    /**
+     * Add a run.  The run is added again for each of its events, and it is
+     * folded into the totals as soon as it is complete.
+     *
+     * @param child the summary of the run
+     */
+    @Override
+    public void addChild(Summary child) {
+        if (!child.complete()) {
+            running.add(child);
+            return;
+        }
+
+        running.remove(child);
+        finished[child.getStatus().ordinal()]++;
+
+        if (child.ignored()) {
+            return;
+        }
+
+        runTimes.record(child.elapsedTime());
+        processorTime += child.processorTime();
+        userTime += child.userTime();
+
+        if (child instanceof TestSummary) {
+            TestSummary summary = TestSummary.class.cast(child);
+            start = Math.min(start, summary.startTime());
+            end = Math.max(end, summary.endTime());
+        }
+
+        for (Failure failure : child.getFailures()) {
+            if (failures.size() < KEPT_FAILURES) {
+                failures.add(failure);
+            }
+        }
+    }
+
+    /**
+     * Add the runs of the same test from another run to these.
+     *
+     * @param other the summary from the other run
+     */
+    @Override
+    void combine(TestSummary other) {
+        if (!(other instanceof RepeatedTestSummary)) {
+            return;
+        }
+
+        RepeatedTestSummary runs = RepeatedTestSummary.class.cast(other);
+        running.addAll(runs.running);
+        for (int i = 0; i < finished.length; i++) {
+            finished[i] += runs.finished[i];
+        }
+        runTimes.add(runs.runTimes);
+        processorTime += runs.processorTime;
+        userTime += runs.userTime;
+        start = Math.min(start, runs.start);
+        end = Math.max(end, runs.end);
+
+        for (Failure failure : runs.failures) {
+            if (failures.size() < KEPT_FAILURES) {
+                failures.add(failure);
+            }
+        }
+    }
+
+    /**
+     * Get the runs that are still in progress.  Finished runs are only kept
+     * in the totals.
+     *
+     * @return the runs in progress
+     */
+    @Override
+    public Iterable<Summary> getChildren() {
+        return running;
+    }
+
+    /**
+     * The number of runs so far, finished or not.
+     *
+     * @return the number of runs
+     */
+    @Override
+    public int size() {
+        return finishedRuns() + running.size();
+    }
+
+    /**
+     * Get the number of finished runs that ended with the given status.
+     *
+     * @param status the status
+     * @return the number of runs
+     */
+    public int count(Status status) {
+        return finished[status.ordinal()];
+    }
+
+    /**
+     * Get the number of runs that finished.
+     *
+     * @return the number of runs
+     */
+    public int finishedRuns() {
+        int runs = 0;
+
+        for (int count : finished) {
+            runs += count;
+        }
+
+        return runs;
+    }
+
+    @Override
+    public Status getStatus() {
+        if (count(Status.Failed) > 0) {
+            return Status.Failed;
+        }
+        if (count(Status.Terminated) > 0) {
+            return Status.Terminated;
+        }
+        if (count(Status.Passed) > 0) {
+            return Status.Passed;
+        }
+
+        return count(Status.Ignored) > 0 ? Status.Ignored : Status.Started;
+    }
+
+    @Override
+    public boolean complete() {
+        return running.isEmpty() && finishedRuns() > 0 && finishedRuns() >= expectedRuns;
+    }
+
+    @Override
+    public Iterable<Failure> getFailures() {
+        return failures;
+    }
+
+    @Override
+    public long elapsedTime() {
+        return end > start ? end - start : 0;
+    }
+
+    @Override
+    long startTime() {
+        return start;
+    }
+
+    @Override
+    long endTime() {
+        return end;
+    }
+
+    @Override
+    public long processorTime() {
+        return processorTime;
+    }
+
+    @Override
+    public long userTime() {
+        return userTime;
+    }
+
+    /**
+     * Get the distribution of the times of the runs that were not ignored.
+     *
+     * @return the run times in nanoseconds
+     */
+    public LatencyHistogram getRunTimes() {
+        return runTimes;
+    }
+
+    /**
+     * Get the average time of the finished runs.
+     *
+     * @return the mean run time in nanoseconds, or 0 if no run finished
+     */
+    public long meanRunTime() {
+        return runTimes.getMean();
+    }
+
+    /**
+     * Get the time that the given fraction of the finished runs took at
+     * most.  A fraction of 0.5 is the median, 1.0 the slowest run.
+     *
+     * @param fraction the fraction of the runs, from 0 to 1
+     * @return the run time in nanoseconds, or 0 if no run finished
+     */
+    public long percentile(double fraction) {
+        return runTimes.percentile(fraction);
+    }
+
+    /**
+     * Get the number of runs per second, over the clock time from the start
+     * of the first run to the end of the last.
+     *
+     * @return the throughput, or 0 if it can't be told yet
+     */
+    public double throughput() {
+        long elapsed = elapsedTime();
+
+        return elapsed > 0 ? runTimes.getCount() * 1e9 / elapsed : 0;
+    }
+
+    /**
+     * Get the fraction of the runs that failed or were terminated.
+     *
+     * @return the error rate, from 0 to 1
+     */
+    public double errorRate() {
+        long runs = runTimes.getCount();
+
+        return runs > 0 ? (count(Status.Failed) + count(Status.Terminated)) / (double) runs : 0;
+    }
+
+    @Override
+    public int compareTo(Summary other) {
+        int direction = super.compareTo(other);
+
+        if (direction == 0 && other instanceof RepeatedTestSummary) {
+            long otherStart = RepeatedTestSummary.class.cast(other).startTime();
+            direction = start < otherStart ? -1 : start > otherStart ? 1 : 0;
+        }
+
+        return direction;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        return super.equals(object) && Arrays.equals(getDescription().getParameters(),
+                Summary.class.cast(object).getDescription().getParameters());
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode() * 31 + Arrays.hashCode(getDescription().getParameters());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+
+        builder.append(getDescription().getName());
+        Object[] parameters = getDescription().getParameters();
+        if (parameters.length > 0) {
+            builder.append(Arrays.asList(parameters));
+        }
+        builder.append(" x").append(size()).append("(");
+        builder.append(String.format("%.3f", nanosecondsToMilliseconds(elapsedTime())));
+        builder.append("ms):\t");
+        appendStatus(builder);
+
+        builder.append('\t');
+        appendLoad(builder, runTimes, count(Status.Failed) + count(Status.Terminated), elapsedTime());
+
+        if (!failures.isEmpty()) {
+            Failure first = failures.iterator().next();
+            StringWriter stackTrace = new StringWriter();
+            first.getCause().printStackTrace(new PrintWriter(stackTrace));
+            builder.append("first failure, in ").append(first.getDescription()).append(":\n");
+            builder.append(stackTrace).append("\n");
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Report the runs, throughput, error rate, and run times on one line.
+     *
+     * @param builder  the builder to append to
+     * @param runTimes the run times
+     * @param errors   the number of runs that failed or were terminated
+     * @param elapsed  the clock time the runs took
+     */
+    static void appendLoad(StringBuilder builder, LatencyHistogram runTimes, long errors, long elapsed) {
+        long runs = runTimes.getCount();
+
+        builder.append(runs).append(" runs\t");
+        builder.append(String.format("%.1f ops/sec\t", elapsed > 0 ? runs * 1e9 / elapsed : 0));
+        builder.append(String.format("%.2f%% errors\t", runs > 0 ? errors * 100.0 / runs : 0));
+        builder.append(String.format("min %.3fms\tmean %.3fms\t50%% %.3fms\t90%% %.3fms\t99%% %.3fms\tmax %.3fms\n",
+                runTimes.getMin() / 1e6,
+                runTimes.getMean() / 1e6,
+                runTimes.percentile(0.5) / 1e6,
+                runTimes.percentile(0.9) / 1e6,
+                runTimes.percentile(0.99) / 1e6,
+                runTimes.getMax() / 1e6));
+    }
+}
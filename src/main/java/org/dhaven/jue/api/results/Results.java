@@ -20,15 +20,17 @@
 package org.dhaven.jue.api.results;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.dhaven.jue.api.description.Description;
 import org.dhaven.jue.api.description.Type;
+import org.dhaven.jue.api.event.BatchTestListener;
 import org.dhaven.jue.api.event.Status;
 import org.dhaven.jue.api.event.TestEvent;
-import org.dhaven.jue.api.event.TestListener;
 
 /**
  * Collects the results from the tests as they are run.  The results object
@@ -37,9 +39,20 @@ import org.dhaven.jue.api.event.TestListener;
  * are designed to be run in parallel, this is useful information.  If any
  * test was run multiple times, you will be able to find the average processor
  * times for those tests.
+ * <p/>
+ * The runs of a repeated test are rolled up into a {@link RepeatedTestSummary},
+ * one for each set of parameters the runs were tagged with,
+ * which is what the test case gets as its child.  Finished runs are only
+ * kept in the totals of that summary, so long load runs don't fill up the
+ * memory.  The totals of the results still count every run.
+ * <p/>
+ * The results of several runs, such as the shards of one test plan, can be
+ * {@link #merge(Results) merged} into one.
  */
-public class Results extends TestCaseSummary implements TestListener {
+public class Results extends TestCaseSummary implements BatchTestListener {
     private final Map<Description, TestSummary> collectedResults = new HashMap<Description, TestSummary>();
+    private final Map<String, List<ParentSummary>> casesByTestName = new HashMap<String, List<ParentSummary>>();
+    private final Map<String, RepeatedTestSummary> repeatedTests = new HashMap<String, RepeatedTestSummary>();
 
     /**
      * Create the results object.
@@ -69,16 +82,27 @@ public class Results extends TestCaseSummary implements TestListener {
         return completed;
     }
 
+    @Override
+    public void handleEvents(List<TestEvent> events) {
+        for (TestEvent event : events) {
+            handleEvent(event);
+        }
+    }
+
     @Override
     public void handleEvent(TestEvent event) {
         TestSummary summary = collectedResults.get(event.getDescription());
+        boolean created = null == summary;
 
-        if (null == summary) {
+        if (created) {
             summary = TestSummary.create(event);
         } else {
             summary.handleEvent(event);
         }
 
+        // the summary the test cases get, which rolls up repeated runs
+        Summary test = summary;
+
         switch (summary.getType()) {
             case System:
                 super.handleEvent(event);
@@ -86,19 +110,149 @@ public class Results extends TestCaseSummary implements TestListener {
 
             case TestCase:
                 this.addChild(summary);
+                if (created) {
+                    casesByTestName.clear();
+                }
                 break;
 
             case Test:
-                for (Summary caseSummary : this.getChildren()) {
-                    Description testCase = caseSummary.getDescription();
-                    if (testCase.relatedTo(summary.getDescription())) {
-                        ParentSummary.class.cast(caseSummary).addChild(summary);
-                    }
+                if (summary.getDescription().getTotalRuns() != 1) {
+                    test = repeatedTest(summary);
+                }
+
+                for (ParentSummary testCase : relatedTestCases(summary.getDescription())) {
+                    testCase.addChild(test);
                 }
                 break;
         }
 
-        collectedResults.put(event.getDescription(), summary);
+        if (test != summary && summary.complete()) {
+            // the run is folded into the summary of its test
+            collectedResults.remove(event.getDescription());
+        } else if (created) {
+            collectedResults.put(event.getDescription(), summary);
+        }
+    }
+
+    /**
+     * Add the results of another run to these, such as those of the other
+     * shards of the same tests.  A test case run by several shards is
+     * reported once, with the tests of all of them, and a test that ran in
+     * both keeps the worse outcome.  Since shards run side by side, the clock
+     * time is that of the longest run.
+     * <p/>
+     * Results that each saw only some of the events of a run, such as the
+     * start of a test but not its end, are put back together.
+     * <p/>
+     * The summaries are shared with the other results, so the other results
+     * must not be handed any more events.
+     *
+     * @param other the results to add
+     */
+    public void merge(Results other) {
+        if (this == other)
+            throw new IllegalArgumentException("Can't merge results with themselves");
+
+        keepLonger(other);
+
+        // the runs in progress first, so a run completed below is folded
+        List<Summary> loose = new ArrayList<Summary>();
+        for (Map.Entry<String, RepeatedTestSummary> entry : other.repeatedTests.entrySet()) {
+            RepeatedTestSummary known = repeatedTests.get(entry.getKey());
+
+            if (null != known) {
+                known.combine(entry.getValue());
+            } else {
+                repeatedTests.put(entry.getKey(), entry.getValue());
+                loose.add(entry.getValue());
+            }
+        }
+
+        boolean newCases = false;
+        for (TestSummary summary : other.collectedResults.values()) {
+            Description description = summary.getDescription();
+            TestSummary known = collectedResults.get(description);
+
+            if (null == known) {
+                collectedResults.put(description, summary);
+                if (summary.getType() == Type.TestCase) {
+                    addChild(summary);
+                    newCases = true;
+                } else if (summary.getType() == Type.Test && description.getTotalRuns() == 1) {
+                    loose.add(summary);
+                }
+            } else {
+                known.combine(summary);
+                if (known.getType() == Type.Test && description.getTotalRuns() != 1 && known.complete()) {
+                    repeatedTest(known);
+                    collectedResults.remove(description);
+                }
+            }
+        }
+
+        casesByTestName.clear();
+        if (newCases) {
+            // tests that came before their test case
+            loose.clear();
+            loose.addAll(filterResults(Type.Test));
+            loose.addAll(repeatedTests.values());
+        }
+
+        for (Summary test : loose) {
+            if (test.getDescription().getTotalRuns() == 1 || test instanceof RepeatedTestSummary) {
+                for (ParentSummary testCase : relatedTestCases(test.getDescription())) {
+                    testCase.addChild(test);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add the run of a repeated test to the summary of all its runs with the
+     * same parameters.
+     *
+     * @param run the summary of the run
+     * @return the summary of all the runs
+     */
+    private RepeatedTestSummary repeatedTest(TestSummary run) {
+        Description description = run.getDescription();
+        String key = description.getName() + Arrays.asList(description.getParameters());
+        RepeatedTestSummary repeated = repeatedTests.get(key);
+
+        if (null == repeated) {
+            repeated = new RepeatedTestSummary(description);
+            repeatedTests.put(key, repeated);
+        }
+
+        repeated.addChild(run);
+
+        return repeated;
+    }
+
+    /**
+     * Find the test cases a test belongs to.  The answer is remembered until
+     * a new test case shows up, so a run of events for the same tests does
+     * not scan every test case again.
+     *
+     * @param test the test description
+     * @return the related test cases
+     */
+    private List<ParentSummary> relatedTestCases(Description test) {
+        List<ParentSummary> testCases = casesByTestName.get(test.getName());
+
+        if (null == testCases) {
+            testCases = new ArrayList<ParentSummary>(1);
+
+            for (Summary caseSummary : this.getChildren()) {
+                if (caseSummary.getDescription().relatedTo(test)) {
+                    testCases.add(ParentSummary.class.cast(caseSummary));
+                }
+            }
+
+            casesByTestName.put(test.getName(), testCases);
+        }
+
+        return testCases;
     }
 
     private Collection<Summary> filterResults(Type type) {
@@ -135,6 +289,10 @@ public class Results extends TestCaseSummary implements TestListener {
             if (!summary.ignored()) numRun++;
         }
 
+        for (RepeatedTestSummary repeated : repeatedTests.values()) {
+            numRun += repeated.finishedRuns() - repeated.count(Status.Ignored);
+        }
+
         return numRun;
     }
 
@@ -174,6 +332,13 @@ public class Results extends TestCaseSummary implements TestListener {
             }
         }
 
+        for (RepeatedTestSummary repeated : repeatedTests.values()) {
+            numPassed += repeated.count(Status.Passed);
+            numFailed += repeated.count(Status.Failed);
+            numIgnored += repeated.count(Status.Ignored);
+            numTerminated += repeated.count(Status.Terminated);
+        }
+
         int numTests = numPassed + numFailed + numIgnored + numTerminated;
 
         builder.append(SEPARATOR);
@@ -202,6 +367,9 @@ public class Results extends TestCaseSummary implements TestListener {
         float processor = nanosecondsToMilliseconds(processorTime());
         builder.append("clock time: ").append(String.format("%.3f", clock));
         builder.append("ms\tprocessor time: ").append(String.format("%.3f", processor));
+        if (userTime() > 0) {
+            builder.append("ms\tuser time: ").append(String.format("%.3f", nanosecondsToMilliseconds(userTime())));
+        }
         builder.append("ms\n\n");
 
         return builder.toString();
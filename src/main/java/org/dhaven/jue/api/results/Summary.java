@@ -95,12 +95,22 @@ public interface Summary extends Describable, Comparable<Summary> {
 
     /**
      * Get the processor time associated with this summary.  The processor time
-     * is the collected sum of the elapsed time of the detailed tests.
+     * is the collected sum of the CPU time of the detailed tests.  If the CPU
+     * time of a test was not measured, its elapsed time is used instead.
      *
      * @return the processor time in nanoseconds
      */
     long processorTime();
 
+    /**
+     * Get the user time associated with this summary, the part of the
+     * processor time spent outside the operating system.  Tests that did not
+     * measure it count as zero.
+     *
+     * @return the user time in nanoseconds
+     */
+    long userTime();
+
     /**
      * Get the status for the test.  The same information can be found out with
      * the {@link #passed()}, {@link #failed()}, {@link #ignored()}, and
@@ -21,7 +21,9 @@ package org.dhaven.jue.api.results;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.dhaven.jue.api.event.Status;
@@ -112,6 +114,17 @@ public class TestCaseSummary extends TestSummary implements ParentSummary {
         return time;
     }
 
+    @Override
+    public long userTime() {
+        long time = 0;
+
+        for (Summary child : children) {
+            time += child.userTime();
+        }
+
+        return time;
+    }
+
     @Override
     public void addChild(Summary child) {
         children.add(child);
@@ -122,11 +135,58 @@ public class TestCaseSummary extends TestSummary implements ParentSummary {
         return children;
     }
 
+    /**
+     * Combine with the same test case from another run, which adds the tests
+     * of the other run to these.
+     *
+     * @param other the summary from the other run
+     */
+    @Override
+    void combine(TestSummary other) {
+        super.combine(other);
+
+        if (other instanceof TestCaseSummary) {
+            for (Summary child : TestCaseSummary.class.cast(other).children) {
+                addChild(child);
+            }
+        }
+    }
+
     @Override
     public int size() {
         return children.size();
     }
 
+    /**
+     * Report the combined throughput and run times of the repeated tests, if
+     * there are any.
+     *
+     * @param builder the builder to append to
+     */
+    private void appendLoad(StringBuilder builder) {
+        LatencyHistogram runTimes = new LatencyHistogram();
+        long errors = 0;
+        long start = Long.MAX_VALUE;
+        long end = Long.MIN_VALUE;
+        boolean repeated = false;
+
+        for (Summary child : children) {
+            if (child instanceof RepeatedTestSummary) {
+                RepeatedTestSummary test = RepeatedTestSummary.class.cast(child);
+                repeated = true;
+                runTimes.add(test.getRunTimes());
+                errors += test.count(Status.Failed) + test.count(Status.Terminated);
+                start = Math.min(start, test.startTime());
+                end = Math.max(end, test.endTime());
+            }
+        }
+
+        if (repeated) {
+            builder.append("load:\t");
+            RepeatedTestSummary.appendLoad(builder, runTimes, errors, end > start ? end - start : 0);
+        }
+    }
+
     protected static final String SEPARATOR = "------------------------------------------------------------------\n";
 
     @Override
@@ -137,7 +197,10 @@ public class TestCaseSummary extends TestSummary implements ParentSummary {
         int numIgnored = 0;
         int numTerminated = 0;
 
-        for (Summary summary : children) {
+        List<Summary> sorted = new ArrayList<Summary>(children);
+        Collections.sort(sorted);
+
+        for (Summary summary : sorted) {
             builder.append(summary);
             switch (summary.getStatus()) {
                 case Passed:
@@ -188,7 +251,12 @@ public class TestCaseSummary extends TestSummary implements ParentSummary {
         float processor = nanosecondsToMilliseconds(processorTime());
         builder.append("clock time: ").append(String.format("%.3f", clock));
         builder.append("ms\tprocessor time: ").append(String.format("%.3f", processor));
-        builder.append("ms\n\n");
+        if (userTime() > 0) {
+            builder.append("ms\tuser time: ").append(String.format("%.3f", nanosecondsToMilliseconds(userTime())));
+        }
+        builder.append("ms\n");
+        appendLoad(builder);
+        builder.append("\n");
 
         return builder.toString();
     }
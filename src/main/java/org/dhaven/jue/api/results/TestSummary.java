@@ -110,7 +110,128 @@ public class TestSummary implements Summary, TestListener {
 
     @Override
     public long processorTime() {
-        return elapsedTime();
+        return measured() ? events[END].getCpuTime() - events[START].getCpuTime() : elapsedTime();
+    }
+
+    @Override
+    public long userTime() {
+        return measured() ? events[END].getUserTime() - events[START].getUserTime() : 0;
+    }
+
+    /**
+     * Get the time stamp of the start event.
+     *
+     * @return the time stamp in nanoseconds, or 0 if the test did not start
+     */
+    long startTime() {
+        return null == events[START] ? 0 : events[START].getNanoseconds();
+    }
+
+    /**
+     * Get the time stamp of the end event.
+     *
+     * @return the time stamp in nanoseconds, or 0 if the test did not end
+     */
+    long endTime() {
+        return null == events[END] ? 0 : events[END].getNanoseconds();
+    }
+
+    /**
+     * Combine with the summary of the same test from another run.  The events
+     * of the worse outcome are kept, so a test that failed in either run is
+     * reported as failed.  If either summary is missing an event, they saw
+     * different parts of the same run, and are {@link #fillIn filled in}.
+     *
+     * @param other the summary from the other run
+     */
+    void combine(TestSummary other) {
+        if (!complete() || !other.complete()) {
+            fillIn(other);
+        } else if (severity(other) > severity(this)) {
+            useEvents(other);
+        }
+    }
+
+    /**
+     * Take the events this summary is missing from another summary of the
+     * same run, which saw the rest of them.  Of two end events, the worse
+     * one is kept.
+     *
+     * @param other the summary with the other events
+     */
+    void fillIn(TestSummary other) {
+        if (null == description) {
+            description = other.description;
+        }
+
+        if (null == events[START]) {
+            events[START] = other.events[START];
+        }
+
+        if (severity(other) > severity(this)) {
+            events[END] = other.events[END];
+        }
+    }
+
+    /**
+     * Combine with the summary of the same run from another process, keeping
+     * the events of the run that took longer.  Unlike {@link #complete()},
+     * this only looks at this summary's own events, even for the
+     * {@link Results} of a whole run.  If either summary is missing an event,
+     * they are {@link #fillIn filled in}.
+     *
+     * @param other the summary from the other process
+     */
+    void keepLonger(TestSummary other) {
+        if (null == events[START] || null == events[END]
+                || null == other.events[START] || null == other.events[END]) {
+            fillIn(other);
+        } else if (other.events[END].getNanoseconds() - other.events[START].getNanoseconds()
+                > events[END].getNanoseconds() - events[START].getNanoseconds()) {
+            useEvents(other);
+        }
+    }
+
+    /**
+     * Take over the events of another summary.
+     *
+     * @param other the summary to take the events of
+     */
+    void useEvents(TestSummary other) {
+        if (null == description) {
+            description = other.description;
+        }
+
+        events[START] = other.events[START];
+        events[END] = other.events[END];
+    }
+
+    private static int severity(TestSummary summary) {
+        if (null == summary.events[END]) {
+            return 0;
+        }
+
+        switch (summary.events[END].getStatus()) {
+            case Failed:
+                return 3;
+            case Terminated:
+                return 2;
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * Thread times are only comparable if both events measured them on the
+     * same thread.
+     *
+     * @return <code>true</code> if the CPU time can be used
+     */
+    private boolean measured() {
+        return complete()
+                && events[START].getCpuTime() != TestEvent.NOT_MEASURED
+                && events[END].getCpuTime() != TestEvent.NOT_MEASURED
+                && events[START].getThreadId() == events[END].getThreadId();
     }
 
     @Override
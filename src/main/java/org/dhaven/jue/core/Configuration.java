@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core;
+
+/**
+ * How much the test runners may do at once.  The parallelism is either an
+ * absolute number of threads, or a multiplier for the number of processors
+ * in the machine.  Suites that mostly wait on IO do better with a multiplier
+ * well over one, while CPU bound suites sharing a build machine may want less
+ * than one.
+ * <p/>
+ * Optionally, the number of tests of the same test case that run at the same
+ * time can be limited as well, and a default timeout set for tests that don't
+ * have one.  A failure limit makes the runner stop starting tests once that
+ * many tests failed.
+ * <p/>
+ * Tests can be repeated, which is how a test is turned into load: every
+ * run of every test is handed to the runner on its own.
+ * <p/>
+ * Test cases that can't have their tests spread over threads can be made
+ * case affine, all of them at once here or one by one with the annotation.
+ */
+public class Configuration {
+    /**
+     * The per test case limit that means there is no limit.
+     */
+    public static final int UNLIMITED = 0;
+
+    private int threads = 0;
+    private double multiplier = 1.0;
+    private int testsPerCase = UNLIMITED;
+    private long timeout = 0;
+    private int failureLimit = 0;
+    private int repeat = 1;
+    private boolean caseAffine = false;
+
+    /**
+     * Get the number of tests to run at once, based on the absolute number
+     * of threads if it was set, otherwise on the multiplier.  It is always at
+     * least one.
+     *
+     * @return the target parallelism
+     */
+    public int getParallelism() {
+        if (threads > 0) {
+            return threads;
+        }
+
+        return Math.max(1, (int) Math.round(Runtime.getRuntime().availableProcessors() * multiplier));
+    }
+
+    /**
+     * Set an absolute number of threads, overriding the multiplier.  Zero goes
+     * back to using the multiplier.
+     *
+     * @param threads the number of threads
+     */
+    public void setThreads(int threads) {
+        if (threads < 0)
+            throw new IllegalArgumentException("The number of threads can't be negative: " + threads);
+
+        this.threads = threads;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Set the number of threads per processor.  It is only used if no
+     * absolute number of threads is set.
+     *
+     * @param multiplier the number of threads per processor
+     */
+    public void setMultiplier(double multiplier) {
+        if (!(multiplier > 0))
+            throw new IllegalArgumentException("The multiplier must be more than zero: " + multiplier);
+
+        this.multiplier = multiplier;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    /**
+     * Limit the number of tests from the same test case that run at the same
+     * time.
+     *
+     * @param testsPerCase the limit, or {@link #UNLIMITED}
+     */
+    public void setTestsPerCase(int testsPerCase) {
+        if (testsPerCase < 0)
+            throw new IllegalArgumentException("The tests per case can't be negative: " + testsPerCase);
+
+        this.testsPerCase = testsPerCase;
+    }
+
+    public int getTestsPerCase() {
+        return testsPerCase;
+    }
+
+    /**
+     * Set the number of milliseconds a test may take if neither the test nor
+     * its test case say otherwise.
+     *
+     * @param timeout the default timeout, or 0 for none
+     * @see org.dhaven.jue.Test#timeout()
+     * @see org.dhaven.jue.Timeout
+     */
+    public void setTimeout(long timeout) {
+        if (timeout < 0)
+            throw new IllegalArgumentException("The timeout can't be negative: " + timeout);
+
+        this.timeout = timeout;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Cancel the rest of the run once so many tests failed.  The tests that
+     * were not started by then are reported as terminated.
+     *
+     * @param failureLimit the number of failures, or 0 to run every test
+     */
+    public void setFailureLimit(int failureLimit) {
+        if (failureLimit < 0)
+            throw new IllegalArgumentException("The failure limit can't be negative: " + failureLimit);
+
+        this.failureLimit = failureLimit;
+    }
+
+    public int getFailureLimit() {
+        return failureLimit;
+    }
+
+    /**
+     * Set the number of times to run the tests that have no repeat count of
+     * their own.
+     *
+     * @param repeat the number of runs, at least 1
+     * @see org.dhaven.jue.Repeat
+     */
+    public void setRepeat(int repeat) {
+        if (repeat < 1)
+            throw new IllegalArgumentException("The tests must run at least once: " + repeat);
+
+        this.repeat = repeat;
+    }
+
+    public int getRepeat() {
+        return repeat;
+    }
+
+    /**
+     * Run the tests of every test case one after the other, in order, on one
+     * thread, while the test cases still run alongside each other.
+     *
+     * @param caseAffine <code>true</code> to pin every test case to a thread
+     * @see org.dhaven.jue.CaseAffine
+     */
+    public void setCaseAffine(boolean caseAffine) {
+        this.caseAffine = caseAffine;
+    }
+
+    public boolean isCaseAffine() {
+        return caseAffine;
+    }
+}
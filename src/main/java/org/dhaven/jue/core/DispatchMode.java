@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core;
+
+/**
+ * How the events get from the test threads to the listeners.
+ */
+public enum DispatchMode {
+    /**
+     * The test threads publish the events to a ring buffer, and a dispatcher
+     * thread hands them to the listener lanes.  The listeners are called on
+     * their own threads, one event at a time, and can be as slow as they like
+     * without slowing the tests down.
+     */
+    Asynchronous,
+    /**
+     * The listeners are called directly on the test thread that fired the
+     * event.  There is no hand off to another thread, which keeps the overhead
+     * per event as low as it can be for tests that only take microseconds.
+     * The listeners must be thread safe, such as the
+     * {@link org.dhaven.jue.api.results.ConcurrentResults}, and a slow
+     * listener slows the tests down.  Overflow policies don't apply.
+     */
+    Inline
+}
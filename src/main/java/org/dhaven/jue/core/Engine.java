@@ -19,35 +19,213 @@
 
 package org.dhaven.jue.core;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 import org.dhaven.jue.api.Request;
+import org.dhaven.jue.api.event.Subscription;
 import org.dhaven.jue.api.event.TestListener;
+import org.dhaven.jue.api.journal.JournalWriter;
+import org.dhaven.jue.api.results.ConcurrentResults;
 import org.dhaven.jue.api.results.Results;
 import org.dhaven.jue.core.internal.TestPlan;
+import org.dhaven.jue.core.internal.runner.TestFixedRate;
 import org.dhaven.jue.core.internal.runner.TestForkJoinPool;
+import org.dhaven.jue.core.internal.runner.TestForkedJvms;
+import org.dhaven.jue.core.internal.runner.TestRampUp;
 import org.dhaven.jue.core.internal.runner.TestRunner;
+import org.dhaven.jue.core.internal.runner.TestSustainedLoad;
 
 /**
  * Central class for JUnit Events.  This runs the tests as they are.
  */
 public final class Engine {
-    private final TestListenerSupport listenerSupport = new TestListenerSupport();
+    private static final String JOURNAL_OPTION = "--journal=";
+    private static final String CPU_TIME_OPTION = "--cpu-time";
+    private static final String INLINE_OPTION = "--inline";
+    private static final String THREADS_OPTION = "--threads=";
+    private static final String MULTIPLIER_OPTION = "--multiplier=";
+    private static final String PER_CASE_OPTION = "--per-case=";
+    private static final String HISTORY_OPTION = "--history=";
+    private static final String TIMEOUT_OPTION = "--timeout=";
+    private static final String FAIL_FAST_OPTION = "--fail-fast";
+    private static final String REPEAT_OPTION = "--repeat=";
+    private static final String DURATION_OPTION = "--duration=";
+    private static final String RAMP_UP_OPTION = "--ramp-up=";
+    private static final String RATE_OPTION = "--rate=";
+    private static final String CASE_AFFINE_OPTION = "--case-affine";
+    private static final String FORKS_OPTION = "--forks=";
+    private static final String SHARD_OPTION = "--shard=";
+    private static final String SPLIT_TESTS_OPTION = "--split-tests";
+    private final TestListenerSupport listenerSupport;
     private TestRunner testRunner = new TestForkJoinPool();
+    private Configuration configuration = new Configuration();
+    private TimingHistory timingHistory;
+
+    public Engine() {
+        this(DispatchMode.Asynchronous);
+    }
+
+    /**
+     * Create an engine that gets the events to the listeners the way the mode
+     * says.  In {@link DispatchMode#Inline} mode, the listeners are called on
+     * the test threads, so they must be thread safe.
+     *
+     * @param mode how the events get to the listeners
+     */
+    public Engine(DispatchMode mode) {
+        listenerSupport = new TestListenerSupport(mode);
+    }
 
     /**
-     * Command line entry point for the test engine.
+     * Command line entry point for the test engine.  Arguments that start with
+     * "--" are options for the engine, everything else is passed on to the
+     * request.  The options are:
+     * <ul>
+     * <li><code>--journal=directory</code> record every event in a journal</li>
+     * <li><code>--cpu-time</code> measure the real processor time of the tests</li>
+     * <li><code>--inline</code> call the listeners directly on the test threads</li>
+     * <li><code>--threads=count</code> run that many tests at once</li>
+     * <li><code>--multiplier=factor</code> run that many tests per processor at once</li>
+     * <li><code>--per-case=count</code> run at most that many tests of a test case at once</li>
+     * <li><code>--history=file</code> start the slowest tests first, and remember the times</li>
+     * <li><code>--timeout=milliseconds</code> stop tests without a timeout of their own after that long</li>
+     * <li><code>--fail-fast[=count]</code> stop starting tests after the first, or that many, failures</li>
+     * <li><code>--forks=count</code> split the test cases over that many forked JVMs</li>
+     * <li><code>--shard=index/count</code> only run that shard of the test cases, counting from 1</li>
+     * <li><code>--split-tests</code> with <code>--shard</code>, split the tests of a test case over the shards</li>
+     * <li><code>--case-affine</code> run the tests of each test case in order on one thread</li>
+     * <li><code>--repeat=count</code> run tests without a repeat count of their own that many times</li>
+     * <li><code>--duration=seconds</code> keep running the tests under load for that long</li>
+     * <li><code>--rate=ops</code> with <code>--duration</code>, start that many runs per second on schedule</li>
+     * <li><code>--ramp-up=seconds</code> double the load up to the parallelism, a step that long each</li>
+     * </ul>
+     * <p/>
+     * Only one of <code>--forks</code>, <code>--duration</code> and
+     * <code>--ramp-up</code> can be given.
      *
      * @param arguments the command arguments to pass to the request.
+     * @throws IllegalArgumentException if an option is unknown, or can't be
+     *                                  used with the others
      * @throws Exception if there was a problem in the engine
      */
     public static void main(String... arguments) throws Exception {
         // Set up the test engine
-        Engine engine = new Engine();
+        List<String> requestArguments = new ArrayList<String>(arguments.length);
+        File journalDirectory = null;
+        boolean cpuTimeMeasured = false;
+        DispatchMode mode = DispatchMode.Asynchronous;
+        Configuration configuration = new Configuration();
+        File historyFile = null;
+        long loadSeconds = 0;
+        long stepSeconds = 0;
+        double rate = 0;
+        int forks = 0;
+        int shardIndex = 1;
+        int shardCount = 1;
+        boolean testsSplit = false;
+
+        for (String argument : arguments) {
+            if (argument.startsWith(JOURNAL_OPTION)) {
+                journalDirectory = new File(argument.substring(JOURNAL_OPTION.length()));
+            } else if (argument.equals(CPU_TIME_OPTION)) {
+                cpuTimeMeasured = true;
+            } else if (argument.equals(INLINE_OPTION)) {
+                mode = DispatchMode.Inline;
+            } else if (argument.startsWith(THREADS_OPTION)) {
+                configuration.setThreads(Integer.parseInt(argument.substring(THREADS_OPTION.length())));
+            } else if (argument.startsWith(MULTIPLIER_OPTION)) {
+                configuration.setMultiplier(Double.parseDouble(argument.substring(MULTIPLIER_OPTION.length())));
+            } else if (argument.startsWith(PER_CASE_OPTION)) {
+                configuration.setTestsPerCase(Integer.parseInt(argument.substring(PER_CASE_OPTION.length())));
+            } else if (argument.startsWith(TIMEOUT_OPTION)) {
+                configuration.setTimeout(Long.parseLong(argument.substring(TIMEOUT_OPTION.length())));
+            } else if (argument.equals(FAIL_FAST_OPTION)) {
+                configuration.setFailureLimit(1);
+            } else if (argument.startsWith(FAIL_FAST_OPTION + "=")) {
+                configuration.setFailureLimit(Integer.parseInt(argument.substring(FAIL_FAST_OPTION.length() + 1)));
+            } else if (argument.startsWith(FORKS_OPTION)) {
+                forks = Integer.parseInt(argument.substring(FORKS_OPTION.length()));
+            } else if (argument.startsWith(SHARD_OPTION)) {
+                String[] shard = argument.substring(SHARD_OPTION.length()).split("/");
+                if (shard.length != 2)
+                    throw new IllegalArgumentException(SHARD_OPTION + " needs index/count: " + argument);
+                shardIndex = Integer.parseInt(shard[0]);
+                shardCount = Integer.parseInt(shard[1]);
+            } else if (argument.equals(SPLIT_TESTS_OPTION)) {
+                testsSplit = true;
+            } else if (argument.equals(CASE_AFFINE_OPTION)) {
+                configuration.setCaseAffine(true);
+            } else if (argument.startsWith(REPEAT_OPTION)) {
+                configuration.setRepeat(Integer.parseInt(argument.substring(REPEAT_OPTION.length())));
+            } else if (argument.startsWith(DURATION_OPTION)) {
+                loadSeconds = Long.parseLong(argument.substring(DURATION_OPTION.length()));
+            } else if (argument.startsWith(RATE_OPTION)) {
+                rate = Double.parseDouble(argument.substring(RATE_OPTION.length()));
+            } else if (argument.startsWith(RAMP_UP_OPTION)) {
+                stepSeconds = Long.parseLong(argument.substring(RAMP_UP_OPTION.length()));
+            } else if (argument.startsWith(HISTORY_OPTION)) {
+                historyFile = new File(argument.substring(HISTORY_OPTION.length()));
+            } else if (argument.startsWith("--")) {
+                throw new IllegalArgumentException("Unknown option: " + argument);
+            } else {
+                requestArguments.add(argument);
+            }
+        }
+
+        if (rate > 0 && loadSeconds <= 0) {
+            throw new IllegalArgumentException(RATE_OPTION + " needs " + DURATION_OPTION);
+        }
+        if (stepSeconds > 0 && loadSeconds > 0) {
+            throw new IllegalArgumentException(RAMP_UP_OPTION + " can't be used with " + DURATION_OPTION);
+        }
+        if (forks > 0 && (loadSeconds > 0 || stepSeconds > 0)) {
+            throw new IllegalArgumentException(FORKS_OPTION + " can't be used with "
+                    + (loadSeconds > 0 ? DURATION_OPTION : RAMP_UP_OPTION));
+        }
+
+        Engine engine = new Engine(mode);
+        engine.setCpuTimeMeasured(cpuTimeMeasured);
+        engine.setConfiguration(configuration);
+        if (rate > 0) {
+            engine.setTestRunner(new TestFixedRate(rate, loadSeconds, TimeUnit.SECONDS));
+        } else if (loadSeconds > 0) {
+            engine.setTestRunner(new TestSustainedLoad(loadSeconds, TimeUnit.SECONDS));
+        } else if (stepSeconds > 0) {
+            engine.setTestRunner(new TestRampUp(stepSeconds, TimeUnit.SECONDS));
+        } else if (forks > 0) {
+            engine.setTestRunner(new TestForkedJvms(forks));
+        }
+        if (null != historyFile) {
+            engine.setTimingHistory(TimingHistory.load(historyFile));
+        }
+
+        JournalWriter journal = null;
+        if (null != journalDirectory) {
+            journal = new JournalWriter(journalDirectory);
+            engine.addTestListener(journal);
+        }
 
         // Initialize the test environment
-        Request request = new Request(arguments);
+        Request request = new Request(requestArguments.toArray(new String[requestArguments.size()]));
+        request.setShard(shardIndex, shardCount);
+        request.setTestsSplit(testsSplit);
 
         // Get the results
-        Results results = engine.process(request);
+        Results results;
+        try {
+            results = engine.process(request);
+        } finally {
+            if (null != journal) {
+                journal.close();
+            }
+        }
+
+        if (null != historyFile) {
+            engine.getTimingHistory().save(historyFile);
+        }
 
         System.out.println(results.passed() ? "All tests passed." : "Tests did not pass");
 
@@ -56,11 +234,26 @@ public final class Engine {
 
     public Results process(Request request) throws Exception {
         Thread.currentThread().setContextClassLoader(request.getRequestClassLoader());
-        testRunner.start(listenerSupport);
+        testRunner.start(listenerSupport, configuration);
 
-        Results results = new Results();
+        ConcurrentResults inline = DispatchMode.Inline == listenerSupport.getDispatchMode()
+                ? new ConcurrentResults()
+                : null;
+        Results results = null != inline ? inline : new Results();
         addTestListener(results);
         TestPlan plan = TestPlan.from(request);
+        if (configuration.getRepeat() > 1) {
+            plan.repeat(configuration.getRepeat());
+        }
+        if (configuration.isCaseAffine()) {
+            plan.pinCases();
+        }
+        if (request.getShardCount() > 1) {
+            plan.shard(request.getShardIndex(), request.getShardCount(), request.isTestsSplit(), timingHistory);
+        }
+        if (null != timingHistory) {
+            plan.orderLongestFirst(timingHistory);
+        }
 
         testRunner.execute(plan);
 
@@ -68,9 +261,53 @@ public final class Engine {
         listenerSupport.await();
 
         removeTestListener(results);
+        if (null != inline) {
+            inline.fold();
+        }
+        if (null != timingHistory) {
+            timingHistory.record(results);
+        }
+
         return results;
     }
 
+    /**
+     * Get the configuration the test runner is started with.  Changes to it
+     * apply to the next request processed.
+     *
+     * @return the configuration
+     */
+    public Configuration getConfiguration() {
+        return configuration;
+    }
+
+    public void setConfiguration(Configuration configuration) {
+        if (null == configuration)
+            throw new IllegalArgumentException("Must have a configuration");
+
+        this.configuration = configuration;
+    }
+
+    /**
+     * Get the history of test times used to start the slowest tests first.
+     *
+     * @return the history, or <code>null</code> to run in the planned order
+     */
+    public TimingHistory getTimingHistory() {
+        return timingHistory;
+    }
+
+    /**
+     * Set the history of test times.  The tests expected to take longest are
+     * started first, and the times of every request processed are added to
+     * the history.
+     *
+     * @param timingHistory the history, or <code>null</code> for none
+     */
+    public void setTimingHistory(TimingHistory timingHistory) {
+        this.timingHistory = timingHistory;
+    }
+
     public TestRunner getTestRunner() {
         return testRunner;
     }
@@ -82,6 +319,21 @@ public final class Engine {
         this.testRunner = testRunner;
     }
 
+    /**
+     * Measure the CPU and user time of every test, rather than reporting the
+     * elapsed time as processor time.  Comparing the two tells tests that
+     * wait on each other apart from tests that are simply slow.
+     *
+     * @param measured <code>true</code> to measure the processor time
+     */
+    public void setCpuTimeMeasured(boolean measured) {
+        listenerSupport.setCpuTimeMeasured(measured);
+    }
+
+    public boolean isCpuTimeMeasured() {
+        return listenerSupport.isCpuTimeMeasured();
+    }
+
     public void removeTestListener(TestListener testListener) {
         listenerSupport.removeTestListener(testListener);
     }
@@ -89,4 +341,53 @@ public final class Engine {
     public void addTestListener(TestListener testListener) {
         listenerSupport.addTestListener(testListener);
     }
+
+    /**
+     * Add a listener that only wants some of the events, such as a listener
+     * that only reports failures.
+     *
+     * @param testListener the listener to add
+     * @param subscription the events the listener wants
+     */
+    public void addTestListener(TestListener testListener, Subscription subscription) {
+        listenerSupport.addTestListener(testListener, subscription);
+    }
+
+    /**
+     * Add a listener that only wants some of the events and is allowed to
+     * fall behind without holding up the other listeners.
+     *
+     * @param testListener the listener to add
+     * @param subscription the events the listener wants
+     * @param policy       what to do with events when the listener is behind
+     * @param capacity     how many events the listener may be behind by
+     */
+    public void addTestListener(TestListener testListener, Subscription subscription,
+                                OverflowPolicy policy, int capacity) {
+        listenerSupport.addTestListener(testListener, subscription, policy, capacity);
+    }
+
+    /**
+     * Add a listener that is allowed to fall behind without holding up the
+     * other listeners, such as a report written to a file or a socket.
+     *
+     * @param testListener the listener to add
+     * @param policy       what to do with events when the listener is behind
+     * @param capacity     how many events the listener may be behind by
+     */
+    public void addTestListener(TestListener testListener, OverflowPolicy policy, int capacity) {
+        listenerSupport.addTestListener(testListener, policy, capacity);
+    }
+
+    /**
+     * Get the statistics for a listener, telling how far it is behind and how
+     * many events it has missed.  In {@link DispatchMode#Inline} mode the
+     * events are counted as the listener handles them, and it is never behind.
+     *
+     * @param testListener the listener to check
+     * @return the statistics, or <code>null</code> if it is not registered
+     */
+    public LaneStatistics getListenerStatistics(TestListener testListener) {
+        return listenerSupport.getStatistics(testListener);
+    }
 }
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core;
+
+/**
+ * A snapshot of how well a listener keeps up with the events sent to it.
+ */
+public final class LaneStatistics {
+    private final long offered;
+    private final long delivered;
+    private final long dropped;
+    private final long coalesced;
+    private final long failed;
+    private final RuntimeException lastFailure;
+
+    public LaneStatistics(long offered, long delivered, long dropped, long coalesced,
+                          long failed, RuntimeException lastFailure) {
+        this.offered = offered;
+        this.delivered = delivered;
+        this.dropped = dropped;
+        this.coalesced = coalesced;
+        this.failed = failed;
+        this.lastFailure = lastFailure;
+    }
+
+    /**
+     * The number of events sent to the lane, whether they were kept or not.
+     *
+     * @return the number of events offered
+     */
+    public long offered() {
+        return offered;
+    }
+
+    /**
+     * The number of events the listener has finished handling.
+     *
+     * @return the number of events delivered
+     */
+    public long delivered() {
+        return delivered;
+    }
+
+    /**
+     * The number of events thrown away because the lane was full.
+     *
+     * @return the number of events dropped
+     */
+    public long dropped() {
+        return dropped;
+    }
+
+    /**
+     * The number of events replaced by a more recent event for the same test
+     * because the lane was full.
+     *
+     * @return the number of events coalesced
+     */
+    public long coalesced() {
+        return coalesced;
+    }
+
+    /**
+     * The number of delivered events the listener threw an exception for.  A
+     * batch that throws counts every event in it.
+     *
+     * @return the number of events that failed
+     */
+    public long failed() {
+        return failed;
+    }
+
+    /**
+     * The most recent exception the listener threw.
+     *
+     * @return the exception, or <code>null</code> if it never threw one
+     */
+    public RuntimeException lastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * The number of events waiting for the listener.
+     *
+     * @return the lag in events
+     */
+    public long lag() {
+        return offered - delivered - dropped - coalesced;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("offered: %d\tdelivered: %d\tdropped: %d\tcoalesced: %d\tfailed: %d\tlag: %d",
+                offered, delivered, dropped, coalesced, failed, lag());
+    }
+}
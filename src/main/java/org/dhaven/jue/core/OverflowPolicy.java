@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core;
+
+/**
+ * What a listener lane does with a new event when it is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * Wait for the listener to catch up.  No event is ever lost, but a slow
+     * listener will eventually hold up the delivery to every other listener.
+     * This is the policy used for the
+     * {@link org.dhaven.jue.api.results.Results}.
+     */
+    Block,
+    /**
+     * Throw the event away and count it.  The listener never holds anybody up,
+     * but it will not see every event.
+     */
+    Drop,
+    /**
+     * Hold on to the event outside of the lane, keeping only the most recent
+     * event for each test.  The listener may miss intermediate events such as
+     * {@link org.dhaven.jue.api.event.Status#Started}, but it always sees the
+     * last thing that happened to every test.
+     */
+    Coalesce
+}
@@ -19,46 +19,231 @@
 
 package org.dhaven.jue.core;
 
-import java.util.LinkedList;
-import java.util.Queue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Phaser;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 
 import org.dhaven.jue.api.description.Describable;
+import org.dhaven.jue.api.description.Description;
 import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.api.event.Subscription;
 import org.dhaven.jue.api.event.TestEvent;
 import org.dhaven.jue.api.event.TestListener;
+import org.dhaven.jue.core.internal.dispatch.BlockingWaitStrategy;
+import org.dhaven.jue.core.internal.dispatch.EventDispatcher;
+import org.dhaven.jue.core.internal.dispatch.EventSlot;
+import org.dhaven.jue.core.internal.dispatch.ListenerLane;
+import org.dhaven.jue.core.internal.dispatch.ListenerRegistry;
+import org.dhaven.jue.core.internal.dispatch.RingBuffer;
+import org.dhaven.jue.core.internal.dispatch.SlotHandler;
+import org.dhaven.jue.core.internal.dispatch.WaitStrategy;
+import org.dhaven.jue.core.internal.dispatch.WaitStrategyFactory;
 
 /**
  * Provide support for the Engine class to fire events as necessary.  Other
  * classes that need to fire tests will have a copy of this class.
+ * <p/>
+ * Events are published to a pre-allocated ring buffer without taking any
+ * locks or allocating any objects on the test threads.  A single dispatcher
+ * thread creates the event objects, and hands them to the listeners in the
+ * order they were published.  Each listener has its own bounded
+ * {@link ListenerLane} and thread, so a slow listener does not hold up the
+ * others unless its {@link OverflowPolicy} says it should.  Listeners only get
+ * the events their {@link Subscription} asks for.  The threads are
+ * started with the first event and stopped again by {@link #await()}.
+ * <p/>
+ * In {@link DispatchMode#Inline} mode, all of that is skipped and the
+ * listeners are called directly on the thread that fires the event.
+ * <p/>
+ * When asked to, the support also records how much CPU and user time the
+ * firing thread has used, so the results can report the real processor time
+ * of each test.
  */
 public final class TestListenerSupport {
-    final ExecutorService service;
-    private final Queue<TestListener> listeners = new LinkedList<TestListener>();
-    private Phaser phaser = new Phaser(1);
+    private static final int DEFAULT_BUFFER_SIZE = 1024;
+    private static final int DEFAULT_LANE_SIZE = 1024;
+    private final ListenerRegistry registry = new ListenerRegistry();
+    private final RingBuffer<EventSlot> ringBuffer;
+    private final WaitStrategyFactory laneStrategies;
+    private final DispatchMode mode;
+    private volatile boolean dispatching = false;
+    private volatile ThreadMXBean threadTimer;
+    private EventDispatcher<EventSlot> dispatcher;
+    private Thread dispatcherThread;
 
     public TestListenerSupport() {
-        service = Executors.newSingleThreadExecutor();
+        this(DEFAULT_BUFFER_SIZE, new BlockingWaitStrategy(), DispatchMode.Asynchronous);
     }
 
     /**
-     * Add a test event listener.
+     * Create the listener support with the default ring buffer, dispatching
+     * the events the way the mode says.
+     *
+     * @param mode how the events get to the listeners
+     */
+    public TestListenerSupport(DispatchMode mode) {
+        this(DEFAULT_BUFFER_SIZE, new BlockingWaitStrategy(), mode);
+    }
+
+    /**
+     * Create the listener support with a specific ring buffer configuration.
+     *
+     * @param bufferSize   the number of events that can be in flight at once
+     * @param waitStrategy how the dispatcher and the test threads wait for
+     *                     each other
+     */
+    public TestListenerSupport(int bufferSize, WaitStrategy waitStrategy) {
+        this(bufferSize, waitStrategy, DispatchMode.Asynchronous);
+    }
+
+    /**
+     * Create the listener support with a specific ring buffer configuration
+     * and dispatch mode.  The ring buffer is not used in the
+     * {@link DispatchMode#Inline} mode.  The listener lanes block while they
+     * wait for events.
+     *
+     * @param bufferSize   the number of events that can be in flight at once
+     * @param waitStrategy how the dispatcher and the test threads wait for
+     *                     each other
+     * @param mode         how the events get to the listeners
+     */
+    public TestListenerSupport(int bufferSize, WaitStrategy waitStrategy, DispatchMode mode) {
+        this(bufferSize, waitStrategy, mode, BlockingWaitStrategy.FACTORY);
+    }
+
+    /**
+     * Create the listener support with a specific ring buffer configuration,
+     * dispatch mode, and way for the listener lanes to wait.  Each lane gets
+     * a wait strategy of its own, so an event only wakes up the lanes it is
+     * for.
+     *
+     * @param bufferSize     the number of events that can be in flight at once
+     * @param waitStrategy   how the dispatcher and the test threads wait for
+     *                       each other
+     * @param mode           how the events get to the listeners
+     * @param laneStrategies creates the wait strategy of each listener lane
+     */
+    public TestListenerSupport(int bufferSize, WaitStrategy waitStrategy, DispatchMode mode,
+                               WaitStrategyFactory laneStrategies) {
+        if (null == mode)
+            throw new IllegalArgumentException("Must have a dispatch mode");
+        if (null == laneStrategies)
+            throw new IllegalArgumentException("Must have a lane wait strategy factory");
+
+        this.ringBuffer = new RingBuffer<EventSlot>(bufferSize, EventSlot.FACTORY, waitStrategy);
+        this.laneStrategies = laneStrategies;
+        this.mode = mode;
+    }
+
+    public DispatchMode getDispatchMode() {
+        return mode;
+    }
+
+    /**
+     * Turn the recording of the firing thread's CPU and user time on or off.
+     * It is off by default, since asking for it costs a little on every event.
+     * If the JVM can't measure thread CPU time, it stays off.
+     *
+     * @param measured <code>true</code> to record the processor time
+     */
+    public void setCpuTimeMeasured(boolean measured) {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        if (measured && bean.isCurrentThreadCpuTimeSupported()) {
+            if (!bean.isThreadCpuTimeEnabled()) {
+                bean.setThreadCpuTimeEnabled(true);
+            }
+            threadTimer = bean;
+        } else {
+            threadTimer = null;
+        }
+    }
+
+    /**
+     * Tell whether events record the firing thread's CPU and user time.
+     *
+     * @return <code>true</code> if the processor time is recorded
+     */
+    public boolean isCpuTimeMeasured() {
+        return null != threadTimer;
+    }
+
+    /**
+     * Add a test event listener.  The listener will receive every event, and
+     * will hold up the other listeners if it falls too far behind.
      *
      * @param listener the listener to add
      */
     public void addTestListener(TestListener listener) {
-        listeners.add(listener);
+        addTestListener(listener, Subscription.ALL, OverflowPolicy.Block, DEFAULT_LANE_SIZE);
     }
 
     /**
-     * Remove a test event listener.
+     * Add a test event listener that only wants some of the events.
+     *
+     * @param listener     the listener to add
+     * @param subscription the events the listener wants
+     */
+    public void addTestListener(TestListener listener, Subscription subscription) {
+        addTestListener(listener, subscription, OverflowPolicy.Block, DEFAULT_LANE_SIZE);
+    }
+
+    /**
+     * Add a test event listener with its own overflow policy.
+     *
+     * @param listener the listener to add
+     * @param policy   what to do with events when the listener falls behind
+     * @param capacity the number of events the listener may fall behind by
+     */
+    public void addTestListener(TestListener listener, OverflowPolicy policy, int capacity) {
+        addTestListener(listener, Subscription.ALL, policy, capacity);
+    }
+
+    /**
+     * Add a test event listener that only wants some of the events, with its
+     * own overflow policy.
+     *
+     * @param listener     the listener to add
+     * @param subscription the events the listener wants
+     * @param policy       what to do with events when the listener falls behind
+     * @param capacity     the number of events the listener may fall behind by
+     */
+    public synchronized void addTestListener(TestListener listener, Subscription subscription,
+                                             OverflowPolicy policy, int capacity) {
+        ListenerLane lane = new ListenerLane(listener, subscription, policy, capacity,
+                laneStrategies.newWaitStrategy());
+        registry.add(lane);
+
+        if (dispatching) {
+            lane.start();
+        }
+    }
+
+    /**
+     * Remove a test event listener.  Events already handed to the listener
+     * are still delivered.
      *
      * @param listener the listener to remove
      */
     public void removeTestListener(TestListener listener) {
-        listeners.remove(listener);
+        ListenerLane lane = registry.remove(listener);
+
+        if (null != lane) {
+            lane.stop();
+        }
+    }
+
+    /**
+     * Get the statistics for the listener, telling how far it is behind and
+     * how many events it has missed.  In {@link DispatchMode#Inline} mode the
+     * events are counted as the listener handles them, and it is never behind.
+     *
+     * @param listener the listener to check
+     * @return the statistics, or <code>null</code> if it is not registered
+     */
+    public LaneStatistics getStatistics(TestListener listener) {
+        ListenerLane lane = registry.find(listener);
+
+        return null == lane ? null : lane.getStatistics();
     }
 
     /**
@@ -66,18 +251,106 @@ public final class TestListenerSupport {
      *
      * @param testEvent the test event to send
      */
-    public void fireTestEvent(final TestEvent testEvent) {
-        phaser.register();
-        service.execute(new Runnable() {
-            @Override
-            public void run() {
-                for (TestListener listener : listeners) {
-                    listener.handleEvent(testEvent);
-                }
+    public void fireTestEvent(TestEvent testEvent) {
+        ListenerLane[] lanes = registry.route(testEvent.getType(), testEvent.getStatus());
 
-                phaser.arriveAndDeregister();
-            }
-        });
+        if (lanes.length == 0) {
+            return;
+        }
+
+        if (DispatchMode.Inline == mode) {
+            deliver(lanes, testEvent);
+            return;
+        }
+
+        if (!dispatching) {
+            startDispatcher();
+        }
+
+        long sequence = ringBuffer.next();
+        ringBuffer.get(sequence).setEvent(testEvent);
+        ringBuffer.publish(sequence);
+    }
+
+    /**
+     * Send a test event to all the listeners without creating the event
+     * object on the calling thread.  The event is time stamped now, and
+     * carries the calling thread's processor time if that is being
+     * {@link #setCpuTimeMeasured(boolean) measured}.  Nothing
+     * at all happens if no listener subscribed to this kind of event.
+     *
+     * @param description the description of the test
+     * @param status      the status of the test
+     * @param failure     the cause of the failure, if any
+     */
+    public void fireTestEvent(Description description, Status status, Throwable failure) {
+        fireTestEvent(description, status, failure, System.nanoTime());
+    }
+
+    /**
+     * Send a test event with the given time stamp to all the listeners.  A
+     * runner that starts tests on a schedule uses it to stamp the start of a
+     * test with the time it should have started, so any delay in starting
+     * counts towards the time the test took.
+     *
+     * @param description the description of the test
+     * @param status      the status of the test
+     * @param failure     the cause of the failure, if any
+     * @param timeStamp   the time stamp in {@link System#nanoTime()} terms
+     */
+    public void fireTestEvent(Description description, Status status, Throwable failure, long timeStamp) {
+        if (null == description)
+            throw new IllegalArgumentException("description was null");
+        if (null == status)
+            throw new IllegalArgumentException("status was null");
+
+        ListenerLane[] lanes = registry.route(description.getType(), status);
+
+        if (lanes.length == 0) {
+            return;
+        }
+
+        long cpuTime = TestEvent.NOT_MEASURED;
+        long userTime = TestEvent.NOT_MEASURED;
+        ThreadMXBean timer = threadTimer;
+        if (null != timer) {
+            cpuTime = timer.getCurrentThreadCpuTime();
+            userTime = timer.getCurrentThreadUserTime();
+        }
+
+        if (DispatchMode.Inline == mode) {
+            deliver(lanes, new TestEvent(description, status, failure, timeStamp,
+                    Thread.currentThread().getId(), cpuTime, userTime));
+            return;
+        }
+
+        if (!dispatching) {
+            startDispatcher();
+        }
+
+        long sequence = ringBuffer.next();
+        ringBuffer.get(sequence).set(description, status, failure, timeStamp,
+                Thread.currentThread().getId(), cpuTime, userTime);
+        ringBuffer.publish(sequence);
+    }
+
+    private static void deliver(ListenerLane[] lanes, TestEvent testEvent) {
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i].deliverInline(testEvent);
+        }
+    }
+
+    private void dispatch(EventSlot slot) {
+        ListenerLane[] lanes = registry.route(slot.getDescription().getType(), slot.getStatus());
+
+        if (lanes.length == 0) {
+            return;
+        }
+
+        TestEvent testEvent = slot.getEvent();
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i].offer(testEvent);
+        }
     }
 
     /**
@@ -86,7 +359,18 @@ public final class TestListenerSupport {
      * @param test the test that started
      */
     public void fireTestStarted(Describable test) {
-        fireTestEvent(new TestEvent(test.getDescription(), Status.Started));
+        fireTestEvent(test.getDescription(), Status.Started, null);
+    }
+
+    /**
+     * Signal the start of an individual test that was scheduled to start at
+     * the given time.
+     *
+     * @param test      the test that started
+     * @param timeStamp the time it was scheduled for
+     */
+    public void fireTestStarted(Describable test, long timeStamp) {
+        fireTestEvent(test.getDescription(), Status.Started, null, timeStamp);
     }
 
     /**
@@ -95,7 +379,7 @@ public final class TestListenerSupport {
      * @param test the test that was ignored
      */
     public void fireTestIgnored(Describable test) {
-        fireTestEvent(new TestEvent(test.getDescription(), Status.Ignored));
+        fireTestEvent(test.getDescription(), Status.Ignored, null);
     }
 
     /**
@@ -104,7 +388,7 @@ public final class TestListenerSupport {
      * @param test the test that passed.
      */
     public void fireTestPassed(Describable test) {
-        fireTestEvent(new TestEvent(test.getDescription(), Status.Passed));
+        fireTestEvent(test.getDescription(), Status.Passed, null);
     }
 
     /**
@@ -114,15 +398,70 @@ public final class TestListenerSupport {
      * @param failure the cause of the failure
      */
     public void fireTestFailed(Describable test, Throwable failure) {
-        fireTestEvent(new TestEvent(test.getDescription(), Status.Failed, failure));
+        fireTestEvent(test.getDescription(), Status.Failed, failure);
     }
 
     public void fireTestTerminated(Describable test) {
-        fireTestEvent(new TestEvent(test.getDescription(), Status.Terminated));
+        fireTestEvent(test.getDescription(), Status.Terminated, null);
     }
 
+    /**
+     * Wait for every event fired so far to be delivered to the listeners, and
+     * then stop the dispatcher and lane threads.
+     */
     public void await() {
-        phaser.arriveAndAwaitAdvance();
-        service.shutdown();
+        ringBuffer.drainTo(ringBuffer.getCursor());
+        stopDispatcher();
+    }
+
+    private synchronized void startDispatcher() {
+        if (dispatching) {
+            return;
+        }
+
+        dispatcher = new EventDispatcher<EventSlot>(ringBuffer, new SlotHandler<EventSlot>() {
+            @Override
+            public void onSlot(EventSlot slot, boolean endOfBatch) {
+                dispatch(slot);
+                slot.clear();
+            }
+        });
+
+        for (ListenerLane lane : registry.snapshot()) {
+            lane.start();
+        }
+
+        dispatcherThread = new Thread(dispatcher, "JUE event dispatcher");
+        dispatcherThread.setDaemon(true);
+        dispatcherThread.start();
+        dispatching = true;
+    }
+
+    private synchronized void stopDispatcher() {
+        if (!dispatching) {
+            return;
+        }
+
+        dispatcher.halt();
+        boolean interrupted = false;
+        while (dispatcherThread.isAlive()) {
+            try {
+                dispatcherThread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (ListenerLane lane : registry.snapshot()) {
+            lane.stop();
+        }
+
+        dispatcher = null;
+        dispatcherThread = null;
+        dispatching = false;
     }
 }
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.dhaven.jue.api.description.Type;
+import org.dhaven.jue.api.results.ParentSummary;
+import org.dhaven.jue.api.results.RepeatedTestSummary;
+import org.dhaven.jue.api.results.Summary;
+
+/**
+ * Remembers how long each test took in earlier runs, so the engine can start
+ * the slowest tests first.  If the slowest test class happens to be planned
+ * last, the whole run waits on it while the other threads sit idle; starting
+ * it first lets the short tests fill in around it.
+ * <p/>
+ * The history is kept in a properties file with the test name as the key and
+ * the time in nanoseconds as the value.  Each new time is averaged with the
+ * one already known, so a single slow run doesn't throw off the order.
+ * Tests that have no history yet are expected to take the average time of
+ * the tests that do.
+ */
+public class TimingHistory {
+    private static final String COMMENT = "JUE test timings in nanoseconds";
+    private final Map<String, Long> timings = new HashMap<String, Long>();
+    private long total = 0;
+
+    /**
+     * Load the history from a file.  A file that doesn't exist yet gives an
+     * empty history.
+     *
+     * @param file the history file
+     * @return the history
+     * @throws IOException if the file could not be read
+     */
+    public static TimingHistory load(File file) throws IOException {
+        TimingHistory history = new TimingHistory();
+
+        if (!file.exists()) {
+            return history;
+        }
+
+        Properties properties = new Properties();
+        InputStream in = new FileInputStream(file);
+        try {
+            properties.load(in);
+        } finally {
+            in.close();
+        }
+
+        for (String name : properties.stringPropertyNames()) {
+            try {
+                history.put(name, Long.parseLong(properties.getProperty(name)));
+            } catch (NumberFormatException e) {
+                // skip the entry, it will be measured again
+            }
+        }
+
+        return history;
+    }
+
+    /**
+     * Save the history to a file.
+     *
+     * @param file the history file
+     * @throws IOException if the file could not be written
+     */
+    public synchronized void save(File file) throws IOException {
+        Properties properties = new Properties();
+        for (Map.Entry<String, Long> entry : timings.entrySet()) {
+            properties.setProperty(entry.getKey(), entry.getValue().toString());
+        }
+
+        OutputStream out = new FileOutputStream(file);
+        try {
+            properties.store(out, COMMENT);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Record the times of every completed test in the results.
+     *
+     * @param results the results of a run
+     */
+    public synchronized void record(ParentSummary results) {
+        for (Summary child : results.getChildren()) {
+            if (child instanceof RepeatedTestSummary) {
+                RepeatedTestSummary repeated = RepeatedTestSummary.class.cast(child);
+                if (repeated.meanRunTime() > 0) {
+                    record(repeated.getDescription().getName(), repeated.meanRunTime());
+                }
+            } else if (child.getType() == Type.Test) {
+                if (child.complete() && !child.ignored()) {
+                    record(child.getDescription().getName(), child.elapsedTime());
+                }
+            } else if (child instanceof ParentSummary) {
+                record(ParentSummary.class.cast(child));
+            }
+        }
+    }
+
+    /**
+     * Record the time a test took.
+     *
+     * @param testName    the name of the test
+     * @param nanoseconds the time it took
+     */
+    public synchronized void record(String testName, long nanoseconds) {
+        Long known = timings.get(testName);
+
+        put(testName, null == known ? nanoseconds : (known + nanoseconds) / 2);
+    }
+
+    /**
+     * Estimate how long a test will take.
+     *
+     * @param testName the name of the test
+     * @return the expected time in nanoseconds
+     */
+    public synchronized long estimate(String testName) {
+        Long known = timings.get(testName);
+
+        if (null != known) {
+            return known;
+        }
+
+        return timings.isEmpty() ? 0 : total / timings.size();
+    }
+
+    public synchronized int size() {
+        return timings.size();
+    }
+
+    private void put(String testName, long nanoseconds) {
+        Long old = timings.put(testName, nanoseconds);
+
+        total += nanoseconds - (null == old ? 0 : old);
+    }
+}
@@ -26,7 +26,11 @@ import java.util.List;
 
 import org.dhaven.jue.After;
 import org.dhaven.jue.Before;
+import org.dhaven.jue.CaseAffine;
+import org.dhaven.jue.Repeat;
 import org.dhaven.jue.Test;
+import org.dhaven.jue.Timeout;
+import org.dhaven.jue.UsesResource;
 import org.dhaven.jue.api.description.Description;
 import org.dhaven.jue.api.description.Type;
 
@@ -38,6 +42,7 @@ public class DefaultPlanner implements Planner {
     public TestCase defineTests(Class<?> testCase) throws Exception {
         Description caseDescription = new Description(testCase.getName(), Type.TestCase);
         TestCase testcase = new TestCase(caseDescription);
+        testcase.setCaseAffine(null != testCase.getAnnotation(CaseAffine.class));
 
         List<TestNode> tests = new LinkedList<TestNode>();
         List<Method> setUpMethods = new LinkedList<Method>();
@@ -45,9 +50,8 @@ public class DefaultPlanner implements Planner {
 
         for (Method method : testCase.getMethods()) {
             if (hasAnnotation(method, Test.class)) {
-                // Ensure new object instance with each testlet
-                Object instance = testCase.newInstance();
-                TestNode testlet = new TestNode(instance, method);
+                // Every run makes its own instance when it starts
+                TestNode testlet = new TestNode(testCase, method);
                 tests.add(testlet);
             }
 
@@ -60,7 +64,20 @@ public class DefaultPlanner implements Planner {
             }
         }
 
+        Timeout caseTimeout = testCase.getAnnotation(Timeout.class);
+        Repeat caseRepeat = testCase.getAnnotation(Repeat.class);
+        UsesResource[] caseResources = testCase.getAnnotationsByType(UsesResource.class);
+
         for (TestNode node : tests) {
+            if (null != caseTimeout && node.getTimeout() == 0) {
+                node.setTimeout(caseTimeout.value());
+            }
+            if (null != caseRepeat && node.getRepeat() == 0) {
+                node.setRepeat(caseRepeat.value());
+            }
+            for (UsesResource resource : caseResources) {
+                node.addResource(resource.value(), resource.permits());
+            }
             node.addSetup(setUpMethods);
             node.addTearDown(tearDownMethods);
             testcase.addTest(node);
@@ -19,6 +19,8 @@
 
 package org.dhaven.jue.core.internal;
 
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -32,6 +34,7 @@ import org.dhaven.jue.api.description.Description;
 public class TestCase implements Describable, Iterable<TestNode> {
     private final Description description;
     private final List<TestNode> tests = new LinkedList<TestNode>();
+    private boolean caseAffine = false;
 
     public TestCase(Description description) {
         this.description = description;
@@ -50,6 +53,16 @@ public class TestCase implements Describable, Iterable<TestNode> {
         tests.remove(test);
     }
 
+    /**
+     * Put the tests in a new order.  The runners start the tests in the
+     * order of the test case.
+     *
+     * @param order the order to put the tests in
+     */
+    public void sort(Comparator<? super TestNode> order) {
+        Collections.sort(tests, order);
+    }
+
     @Override
     public Iterator<TestNode> iterator() {
         return tests.iterator();
@@ -59,7 +72,82 @@ public class TestCase implements Describable, Iterable<TestNode> {
         return tests.size();
     }
 
+    /**
+     * Get the number of test runs, counting every run of a repeated test.
+     *
+     * @return the number of runs
+     */
+    public int numberOfRuns() {
+        int runs = 0;
+
+        for (TestNode test : tests) {
+            runs += test.getRuns();
+        }
+
+        return runs;
+    }
+
+    /**
+     * Get every run of every test, in order.  The nodes for the runs of a
+     * repeated test are made as the iteration reaches them.
+     *
+     * @return the runs
+     */
+    public Iterable<TestNode> runs() {
+        return new Iterable<TestNode>() {
+            @Override
+            public Iterator<TestNode> iterator() {
+                return new RunIterator(tests.iterator());
+            }
+        };
+    }
+
     public boolean isEmpty() {
         return tests.isEmpty();
     }
+
+    /**
+     * Tell whether the tests must run one after the other, in order, on the
+     * thread that ran the test before.
+     *
+     * @return <code>true</code> if the tests are pinned to one thread
+     * @see org.dhaven.jue.CaseAffine
+     */
+    public boolean isCaseAffine() {
+        return caseAffine;
+    }
+
+    public void setCaseAffine(boolean caseAffine) {
+        this.caseAffine = caseAffine;
+    }
+
+    private static class RunIterator implements Iterator<TestNode> {
+        private final Iterator<TestNode> tests;
+        private TestNode test;
+        private int run;
+
+        RunIterator(Iterator<TestNode> tests) {
+            this.tests = tests;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return (null != test && run < test.getRuns()) || tests.hasNext();
+        }
+
+        @Override
+        public TestNode next() {
+            if (null == test || run >= test.getRuns()) {
+                test = tests.next();
+                run = 0;
+            }
+
+            return test.forRun(++run);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("The runs of a test case can't be removed");
+        }
+    }
 }
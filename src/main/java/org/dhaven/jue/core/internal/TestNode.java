@@ -21,35 +21,61 @@ package org.dhaven.jue.core.internal;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import org.dhaven.jue.Ignore;
+import org.dhaven.jue.Repeat;
 import org.dhaven.jue.Test;
+import org.dhaven.jue.UsesResource;
 import org.dhaven.jue.api.description.Describable;
 import org.dhaven.jue.api.description.Description;
 import org.dhaven.jue.api.description.Type;
+import org.dhaven.jue.api.event.Status;
 import org.dhaven.jue.core.TestListenerSupport;
 
 /**
- * Codifies a discrete test.
+ * Codifies a discrete test.  A test that is repeated stands for all of its
+ * runs; the node for each run is only made when the run is handed out, and
+ * the instance of the test case only when the run starts.
  */
 public class TestNode implements Describable {
     private Description description;
     private boolean ignored;
     private Method method;
+    private Class<?> testClass;
     private Object testCase;
     private List<Method> setup = new LinkedList<Method>();
     private List<Method> tearDown = new LinkedList<Method>();
     private Class<? extends Throwable> expected;
+    private long timeout;
+    private int repeat;
+    private Map<String, Integer> resources = new LinkedHashMap<String, Integer>();
 
     public TestNode(Object instance, Method testMethod) {
-        this(instance, testMethod, String.format("%s.%s",
-                testMethod.getDeclaringClass().getName(),
-                testMethod.getName()));
+        this(instance.getClass(), instance, testMethod);
+    }
+
+    /**
+     * Create a test that makes its own instance of the test case when it is
+     * run.
+     *
+     * @param testClass  the test case class
+     * @param testMethod the test method
+     */
+    public TestNode(Class<?> testClass, Method testMethod) {
+        this(testClass, null, testMethod);
     }
 
-    private TestNode(Object instance, Method testMethod, String testName) {
+    private TestNode(Class<?> testClass, Object instance, Method testMethod) {
+        String testName = String.format("%s.%s",
+                testMethod.getDeclaringClass().getName(),
+                testMethod.getName());
+
+        this.testClass = testClass;
         testCase = instance;
         description = new Description(testName, Type.Test);
         method = testMethod;
@@ -60,58 +86,157 @@ public class TestNode implements Describable {
         if (Test.None.class.equals(expected)) {
             expected = null;
         }
+        timeout = annotation.timeout();
+
+        Repeat repeated = method.getAnnotation(Repeat.class);
+        repeat = null == repeated ? 0 : repeated.value();
+
+        for (UsesResource resource : method.getAnnotationsByType(UsesResource.class)) {
+            addResource(resource.value(), resource.permits());
+        }
+    }
+
+    /**
+     * Create the node for one run of a repeated test.
+     *
+     * @param test       the repeated test
+     * @param run        the number of the run
+     * @param ofRuns     the number of runs
+     * @param parameters the parameters to tag the run with
+     */
+    private TestNode(TestNode test, int run, int ofRuns, Object... parameters) {
+        testClass = test.testClass;
+        description = new Description(test.description.getName(), Type.Test, run, ofRuns, parameters);
+        method = test.method;
+        ignored = test.ignored;
+        setup = test.setup;
+        tearDown = test.tearDown;
+        expected = test.expected;
+        timeout = test.timeout;
+        repeat = 1;
+        resources = test.resources;
     }
 
     public Description getDescription() {
         return description;
     }
 
-    public void run(TestListenerSupport support) {
+    public Status run(TestListenerSupport support) {
+        return run(support, null);
+    }
+
+    /**
+     * Run the test under a watchdog.  If the watchdog stopped the test, the
+     * test does not report how it ended; the watchdog already did.
+     *
+     * @param support the support to fire the events with
+     * @param watch   the watch over this run, or <code>null</code>
+     * @return how the test ended, {@link Status#Terminated} if it timed out
+     */
+    public Status run(TestListenerSupport support, Watchdog.Watch watch) {
         support.fireTestStarted(this);
 
+        return runStarted(support, watch);
+    }
+
+    /**
+     * Run the test that was scheduled to start at the given time.  The
+     * test is reported as started at that time, so a late start counts
+     * towards the time the test took.
+     *
+     * @param support        the support to fire the events with
+     * @param watch          the watch over this run, or <code>null</code>
+     * @param scheduledStart when the test should have started, in
+     *                       {@link System#nanoTime()} terms
+     * @return how the test ended, {@link Status#Terminated} if it timed out
+     */
+    public Status runScheduled(TestListenerSupport support, Watchdog.Watch watch, long scheduledStart) {
+        support.fireTestStarted(this, scheduledStart);
+
+        return runStarted(support, watch);
+    }
+
+    /**
+     * Run the test and its tear down, and only then report how it ended.
+     * The watch stays open through the tear down, so a tear down that hangs
+     * times out like the test itself.
+     */
+    private Status runStarted(TestListenerSupport support, Watchdog.Watch watch) {
         if (isIgnored()) {
+            if (!finish(watch)) {
+                return Status.Terminated;
+            }
+
             support.fireTestIgnored(this);
-            return;
+            return Status.Ignored;
         }
 
+        Throwable failure = null;
         try {
+            if (null == testCase) {
+                testCase = testClass.newInstance();
+            }
             setup();
             method.invoke(testCase);
-            if (null == expected) {
-                support.fireTestPassed(this);
-            } else {
-                AssertionError failure = new AssertionError("Expected " + expected.getName() + " to be thrown.");
-                support.fireTestFailed(this, failure);
+
+            if (null != expected) {
+                failure = new AssertionError("Expected " + expected.getName() + " to be thrown.");
             }
         } catch (Throwable throwable) {
-            if (null == expected) {
-                support.fireTestFailed(this, throwable);
-            } else {
+            failure = throwable;
+
+            if (null != expected) {
                 Throwable check = throwable;
 
                 if (check instanceof InvocationTargetException) {
                     check = InvocationTargetException.class.cast(check).getCause();
                 }
 
-                if (check.getClass().isAssignableFrom(expected)) {
-                    support.fireTestPassed(this);
-                } else {
-                    support.fireTestFailed(this, check);
-                }
-            }
-        } finally {
-            try {
-                tearDown();
+                failure = check.getClass().isAssignableFrom(expected) ? null : check;
             }
-            catch (Exception e) {
-                support.fireTestFailed(this, e);
+        }
+
+        try {
+            tearDown();
+        } catch (Exception e) {
+            if (null == failure) {
+                failure = e;
             }
         }
+
+        if (!finish(watch)) {
+            return Status.Terminated;
+        }
+
+        if (null == failure) {
+            support.fireTestPassed(this);
+            return Status.Passed;
+        }
+
+        support.fireTestFailed(this, failure);
+        return Status.Failed;
+    }
+
+    /**
+     * Report the test as terminated without running it, because the run was
+     * cancelled before its turn came.
+     *
+     * @param support the support to fire the events with
+     */
+    public void cancel(TestListenerSupport support) {
+        support.fireTestStarted(this);
+        support.fireTestTerminated(this);
+    }
+
+    private static boolean finish(Watchdog.Watch watch) {
+        return null == watch || watch.finish();
     }
 
 
     private void tearDown() throws InvocationTargetException, IllegalAccessException {
-        executeMethods(tearDown);
+        if (null != testCase) {
+            executeMethods(tearDown);
+        }
     }
 
     private void setup() throws InvocationTargetException, IllegalAccessException {
@@ -124,7 +249,119 @@ public class TestNode implements Describable {
         }
     }
 
-    boolean isIgnored() {
+    /**
+     * Get the number of milliseconds the test may take.
+     *
+     * @return the timeout, or 0 if the test has none of its own
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Get the number of milliseconds the test may take, falling back on a
+     * default if the test has no timeout of its own.
+     *
+     * @param defaultTimeout the timeout to use otherwise
+     * @return the timeout, or 0 if there is none
+     */
+    public long getTimeout(long defaultTimeout) {
+        return timeout > 0 ? timeout : defaultTimeout;
+    }
+
+    public void setTimeout(long timeout) {
+        if (timeout < 0)
+            throw new IllegalArgumentException("Timeout can't be negative: " + timeout);
+
+        this.timeout = timeout;
+    }
+
+    /**
+     * Get the number of times the test is repeated.
+     *
+     * @return the repeat count, or 0 if the test has none of its own
+     */
+    public int getRepeat() {
+        return repeat;
+    }
+
+    public void setRepeat(int repeat) {
+        if (repeat < 0)
+            throw new IllegalArgumentException("Repeat count can't be negative: " + repeat);
+
+        this.repeat = repeat;
+    }
+
+    /**
+     * Get the number of times the test runs, which is at least once.
+     *
+     * @return the number of runs
+     */
+    public int getRuns() {
+        return Math.max(1, repeat);
+    }
+
+    /**
+     * Get the node for one run of the test.  A test that runs once is its
+     * own run.
+     *
+     * @param run the number of the run, starting at 1
+     * @return the node for the run
+     */
+    public TestNode forRun(int run) {
+        if (run < 1 || run > getRuns())
+            throw new IllegalArgumentException("No run " + run + " of " + getRuns() + " for " + description.getName());
+
+        return getRuns() == 1 ? this : new TestNode(this, run, getRuns());
+    }
+
+    /**
+     * Get the node for one run of a test that runs until it is stopped, no
+     * matter how many runs it would have otherwise.
+     *
+     * @param run        the number of the run, starting at 1
+     * @param parameters the parameters to tag the run with, such as the
+     *                   step of a load profile
+     * @return the node for the run
+     * @see Description#OPEN_ENDED
+     */
+    public TestNode forOpenEndedRun(int run, Object... parameters) {
+        if (run < 1)
+            throw new IllegalArgumentException("No run " + run + " for " + description.getName());
+
+        return new TestNode(this, run, Description.OPEN_ENDED, parameters);
+    }
+
+    /**
+     * Declare a shared resource the test uses.  The test takes one of its
+     * permits while it runs.  If the resource was declared before, the
+     * smaller number of permits counts.
+     *
+     * @param name    the name of the resource
+     * @param permits the number of tests that may use it at once
+     * @see org.dhaven.jue.UsesResource
+     */
+    public void addResource(String name, int permits) {
+        if (null == name)
+            throw new IllegalArgumentException("The resource must have a name");
+        if (permits < 1)
+            throw new IllegalArgumentException("Resource " + name + " must have at least one permit: " + permits);
+
+        Integer declared = resources.get(name);
+        resources.put(name, null == declared ? permits : Math.min(declared, permits));
+    }
+
+    /**
+     * Get the shared resources the test uses, with the number of permits
+     * each one has.
+     *
+     * @return the resources by name
+     */
+    public Map<String, Integer> getResources() {
+        return Collections.unmodifiableMap(resources);
+    }
+
+    public boolean isIgnored() {
         return ignored;
     }
 
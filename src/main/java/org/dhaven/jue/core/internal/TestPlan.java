@@ -19,11 +19,19 @@
 
 package org.dhaven.jue.core.internal;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.dhaven.jue.api.Request;
+import org.dhaven.jue.core.TimingHistory;
 
 /**
  * Represents the test plan.
@@ -46,6 +54,10 @@ public class TestPlan {
             plan.addTestCase(planner.defineTests(testCase));
         }
 
+        if (null != request.getTestOrder()) {
+            plan.arrange(request.getTestOrder());
+        }
+
         return plan;
     }
 
@@ -53,6 +65,230 @@ public class TestPlan {
         testQueue.add(tests);
     }
 
+    /**
+     * Keep only the named tests, in the order they are named.  A test case
+     * that had tests but has none left is dropped.
+     *
+     * @param testNames the names of the tests
+     * @see Request#setTestOrder(List)
+     */
+    private void arrange(List<String> testNames) {
+        Map<String, LinkedList<TestNode>> byName = new HashMap<String, LinkedList<TestNode>>();
+        Map<TestNode, TestCase> owners = new HashMap<TestNode, TestCase>();
+        List<TestCase> emptied = new ArrayList<TestCase>();
+
+        for (TestCase testCase : testQueue) {
+            if (testCase.isEmpty()) {
+                continue;
+            }
+
+            List<TestNode> nodes = new ArrayList<TestNode>(testCase.size());
+            for (TestNode node : testCase) {
+                nodes.add(node);
+            }
+
+            for (TestNode node : nodes) {
+                testCase.removeTest(node);
+                owners.put(node, testCase);
+
+                LinkedList<TestNode> named = byName.get(node.getDescription().getName());
+                if (null == named) {
+                    named = new LinkedList<TestNode>();
+                    byName.put(node.getDescription().getName(), named);
+                }
+                named.add(node);
+            }
+            emptied.add(testCase);
+        }
+
+        for (String testName : testNames) {
+            LinkedList<TestNode> named = byName.get(testName);
+            TestNode node = null == named ? null : named.poll();
+
+            if (null != node) {
+                owners.get(node).addTest(node);
+            }
+        }
+
+        for (TestCase testCase : emptied) {
+            if (testCase.isEmpty()) {
+                testQueue.remove(testCase);
+            }
+        }
+    }
+
+    /**
+     * Repeat every test that does not have a repeat count of its own.
+     *
+     * @param runs the number of times to run those tests
+     * @see org.dhaven.jue.Repeat
+     */
+    public void repeat(int runs) {
+        for (TestCase testCase : testQueue) {
+            for (TestNode node : testCase) {
+                if (node.getRepeat() == 0) {
+                    node.setRepeat(runs);
+                }
+            }
+        }
+    }
+
+    /**
+     * Run the tests of every test case one after the other on one thread,
+     * as if every test case had the annotation.
+     *
+     * @see org.dhaven.jue.CaseAffine
+     */
+    public void pinCases() {
+        for (TestCase testCase : testQueue) {
+            testCase.setCaseAffine(true);
+        }
+    }
+
+    /**
+     * Order the plan so the tests expected to take longest come first, both
+     * the test cases and the tests within them.  Tests with equal estimates
+     * keep their order.
+     *
+     * @param history the timings of earlier runs
+     */
+    public void orderLongestFirst(final TimingHistory history) {
+        final Map<TestCase, Long> caseEstimates = new HashMap<TestCase, Long>();
+
+        for (TestCase testCase : testQueue) {
+            long estimate = 0;
+
+            for (TestNode node : testCase) {
+                estimate += history.estimate(node.getDescription().getName()) * node.getRuns();
+            }
+
+            caseEstimates.put(testCase, estimate);
+            testCase.sort(new Comparator<TestNode>() {
+                @Override
+                public int compare(TestNode one, TestNode two) {
+                    return compareLongestFirst(history.estimate(one.getDescription().getName()),
+                            history.estimate(two.getDescription().getName()));
+                }
+            });
+        }
+
+        Collections.sort(testQueue, new Comparator<TestCase>() {
+            @Override
+            public int compare(TestCase one, TestCase two) {
+                return compareLongestFirst(caseEstimates.get(one), caseEstimates.get(two));
+            }
+        });
+    }
+
+    /**
+     * Keep only one shard of the plan.  The test cases, or their tests when
+     * they are split, are dealt out longest first, each to the shard with
+     * the least estimated time so far.  Without a history every run counts
+     * the same.  Ties go by name, so every shard splits the same plan the
+     * same way, whatever order the test classes were found in.
+     *
+     * @param index   the shard to keep, from 1 to the count
+     * @param count   the number of shards
+     * @param split   <code>true</code> to split the tests of a test case
+     *                over the shards, <code>false</code> to keep it whole
+     * @param history the timings of earlier runs, or <code>null</code>
+     * @see org.dhaven.jue.api.Request#setShard(int, int)
+     */
+    public void shard(int index, int count, boolean split, TimingHistory history) {
+        if (count < 1)
+            throw new IllegalArgumentException("Must have at least one shard: " + count);
+        if (index < 1 || index > count)
+            throw new IllegalArgumentException("No shard " + index + " of " + count);
+
+        List<TestCase> byName = new ArrayList<TestCase>(testQueue);
+        Collections.sort(byName, new Comparator<TestCase>() {
+            @Override
+            public int compare(TestCase one, TestCase two) {
+                return one.getDescription().getName().compareTo(two.getDescription().getName());
+            }
+        });
+
+        List<Share> shares = new ArrayList<Share>();
+        for (TestCase testCase : byName) {
+            if (split && !testCase.isEmpty()) {
+                for (TestNode node : testCase) {
+                    shares.add(new Share(testCase, node, estimate(node, history)));
+                }
+            } else {
+                long estimate = 0;
+                for (TestNode node : testCase) {
+                    estimate += estimate(node, history);
+                }
+                shares.add(new Share(testCase, null, Math.max(1, estimate)));
+            }
+        }
+        // stable, so tests of the same name keep their planned order
+        Collections.sort(shares);
+
+        long[] loads = new long[count];
+        Set<TestCase> splitCases = new HashSet<TestCase>();
+        for (Share share : shares) {
+            int least = 0;
+            for (int i = 1; i < count; i++) {
+                if (loads[i] < loads[least]) least = i;
+            }
+            loads[least] += share.estimate;
+
+            if (least == index - 1) {
+                continue;
+            }
+
+            if (null == share.node) {
+                testQueue.remove(share.testCase);
+            } else {
+                share.testCase.removeTest(share.node);
+                splitCases.add(share.testCase);
+            }
+        }
+
+        for (TestCase testCase : splitCases) {
+            if (testCase.isEmpty()) {
+                testQueue.remove(testCase);
+            }
+        }
+    }
+
+    private static long estimate(TestNode node, TimingHistory history) {
+        long estimate = null == history ? 0 : history.estimate(node.getDescription().getName());
+
+        return Math.max(1, estimate) * node.getRuns();
+    }
+
+    /**
+     * A test case, or one test of it, to deal out to a shard.
+     */
+    private static class Share implements Comparable<Share> {
+        private final TestCase testCase;
+        private final TestNode node;
+        private final long estimate;
+
+        Share(TestCase testCase, TestNode node, long estimate) {
+            this.testCase = testCase;
+            this.node = node;
+            this.estimate = estimate;
+        }
+
+        private String getName() {
+            return (null == node ? testCase : node).getDescription().getName();
+        }
+
+        @Override
+        public int compareTo(Share other) {
+            int direction = compareLongestFirst(estimate, other.estimate);
+
+            return direction != 0 ? direction : getName().compareTo(other.getName());
+        }
+    }
+
+    private static int compareLongestFirst(long one, long two) {
+        return one > two ? -1 : one < two ? 1 : 0;
+    }
+
     public Collection<TestCase> export() {
         return testQueue;
     }
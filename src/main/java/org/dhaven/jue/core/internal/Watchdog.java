@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.dhaven.jue.api.description.Describable;
+import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.core.TestListenerSupport;
+
+/**
+ * Stops tests that take too long.  A single thread turns a timer wheel: each
+ * tick it looks at one bucket of the wheel, and only the tests due in that
+ * bucket.  Starting and finishing a watch are cheap enough to do for every
+ * test, and there is never more than the one thread, however many tests are
+ * running.
+ * <p/>
+ * When a test runs out of time, its thread is interrupted and the test is
+ * reported as {@link Status#Terminated}, with the stack of the stuck thread
+ * as the cause.  From then on the test is done as far as everybody else is
+ * concerned: the events it may still fire are dropped, and the runner is told
+ * so it can carry on without the stuck thread.  When the stuck thread gets
+ * back to finishing its watch, the interrupt is cleared, so it can't hit the
+ * next test run on the same thread.
+ * <p/>
+ * Tests without a time limit all share the {@link #UNWATCHED} watch, so
+ * they cost nothing.
+ */
+public class Watchdog {
+    private static final long TICK = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int WHEEL_SIZE = 512;
+    private static final int MASK = WHEEL_SIZE - 1;
+    private static final int RUNNING = 0;
+    private static final int FINISHED = 1;
+    private static final int TIMED_OUT = 2;
+    private static final int INTERRUPTED = 3;
+    private static final int CLEARED = 4;
+
+    /**
+     * The watch of every test without a time limit.  It never times out.
+     */
+    public static final Watch UNWATCHED = new Watch(null, null, null, null);
+
+    private final Queue<Watch> incoming = new ConcurrentLinkedQueue<Watch>();
+    private final List<List<Watch>> wheel = new ArrayList<List<Watch>>(WHEEL_SIZE);
+    private final long start = System.nanoTime();
+    private volatile Thread thread;
+
+    public Watchdog() {
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new ArrayList<Watch>());
+        }
+    }
+
+    /**
+     * Start watching a test that is about to run on the current thread.
+     *
+     * @param test      the test
+     * @param timeout   the milliseconds the test may take, 0 for no limit
+     * @param support   the support to report the timeout with
+     * @param onTimeout what to do when the test runs out of time, after it
+     *                  was reported
+     * @return the watch the test has to finish, {@link #UNWATCHED} if there
+     *         is no limit
+     */
+    public Watch watch(Describable test, long timeout, TestListenerSupport support, Runnable onTimeout) {
+        if (timeout <= 0) {
+            return UNWATCHED;
+        }
+
+        Watch watch = new Watch(test, Thread.currentThread(), support, onTimeout);
+        watch.timeout = timeout;
+        watch.deadline = tick(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout)) + 1;
+        incoming.add(watch);
+
+        if (null == thread) {
+            startThread();
+        }
+
+        return watch;
+    }
+
+    /**
+     * Stop the watchdog thread.  Tests that are still watched won't time out.
+     */
+    public synchronized void shutdown() {
+        Thread stopping = thread;
+        thread = null;
+
+        if (null != stopping) {
+            LockSupport.unpark(stopping);
+        }
+    }
+
+    private synchronized void startThread() {
+        if (null != thread) {
+            return;
+        }
+
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                turnWheel();
+            }
+        }, "JUE watchdog");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private long tick(long nanoTime) {
+        return (nanoTime - start) / TICK;
+    }
+
+    private void turnWheel() {
+        long current = tick(System.nanoTime());
+
+        while (Thread.currentThread() == thread) {
+            long now = tick(System.nanoTime());
+
+            for (Watch watch = incoming.poll(); null != watch; watch = incoming.poll()) {
+                // anything already overdue goes in the bucket checked next
+                wheel.get((int) (Math.max(watch.deadline, current) & MASK)).add(watch);
+            }
+
+            while (current <= now) {
+                expire(current);
+                current++;
+            }
+
+            LockSupport.parkNanos(TICK);
+        }
+    }
+
+    private void expire(long tick) {
+        Iterator<Watch> bucket = wheel.get((int) (tick & MASK)).iterator();
+
+        while (bucket.hasNext()) {
+            Watch watch = bucket.next();
+
+            if (watch.state.get() != RUNNING) {
+                bucket.remove();
+            } else if (watch.deadline <= tick) {
+                bucket.remove();
+                watch.expire();
+            }
+        }
+    }
+
+    /**
+     * The watch over one run of a test.  Whoever gets to the end first, the
+     * test or the watchdog, reports how the test ended.
+     */
+    public static final class Watch {
+        private final AtomicInteger state = new AtomicInteger(RUNNING);
+        private final Describable test;
+        private final Thread thread;
+        private final TestListenerSupport support;
+        private final Runnable onTimeout;
+        private long timeout;
+        private long deadline;
+
+        private Watch(Describable test, Thread thread, TestListenerSupport support, Runnable onTimeout) {
+            this.test = test;
+            this.thread = thread;
+            this.support = support;
+            this.onTimeout = onTimeout;
+        }
+
+        /**
+         * Claim the end of the test for the test itself.  A test must only
+         * report how it ended if this returns <code>true</code>.  It can be
+         * called any number of times, but only on the thread running the test.
+         * If the test timed out, this waits for the watchdog's interrupt and
+         * clears it.
+         *
+         * @return <code>true</code> if the test finished in time
+         */
+        public boolean finish() {
+            if (this == UNWATCHED || state.compareAndSet(RUNNING, FINISHED) || state.get() == FINISHED) {
+                return true;
+            }
+
+            // the interrupt follows the terminated event, it can't be long
+            while (state.get() == TIMED_OUT) {
+                Thread.yield();
+            }
+            if (state.compareAndSet(INTERRUPTED, CLEARED)) {
+                Thread.interrupted();
+            }
+
+            return false;
+        }
+
+        /**
+         * Tell whether the watchdog stopped the test.
+         *
+         * @return <code>true</code> if the test ran out of time
+         */
+        public boolean timedOut() {
+            return state.get() >= TIMED_OUT;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(RUNNING, TIMED_OUT)) {
+                return;
+            }
+
+            TimeoutException failure = new TimeoutException("Test timed out after " + timeout + "ms");
+            failure.setStackTrace(thread.getStackTrace());
+
+            // report before interrupting, so a sequential runner can't get
+            // ahead of the terminated event
+            try {
+                support.fireTestEvent(test.getDescription(), Status.Terminated, failure);
+            } finally {
+                thread.interrupt();
+                state.set(INTERRUPTED);
+                if (null != onTimeout) {
+                    onTimeout.run();
+                }
+            }
+        }
+    }
+}
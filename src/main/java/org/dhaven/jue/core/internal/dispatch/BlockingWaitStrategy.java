@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.dispatch;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Park waiting threads on a lock until they are signalled.  This is the
+ * default strategy, it uses no processor time while the buffer is idle.
+ * Producers only touch the lock when somebody is actually waiting.
+ */
+public final class BlockingWaitStrategy implements WaitStrategy {
+    public static final WaitStrategyFactory FACTORY = new WaitStrategyFactory() {
+        @Override
+        public WaitStrategy newWaitStrategy() {
+            return new BlockingWaitStrategy();
+        }
+    };
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition progress = lock.newCondition();
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    @Override
+    public void waitFor(Barrier barrier) {
+        if (barrier.isSatisfied()) {
+            return;
+        }
+
+        lock.lock();
+        waiters.incrementAndGet();
+        try {
+            while (!barrier.isSatisfied()) {
+                progress.awaitUninterruptibly();
+            }
+        } finally {
+            waiters.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void signalAll() {
+        if (waiters.get() > 0) {
+            lock.lock();
+            try {
+                progress.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
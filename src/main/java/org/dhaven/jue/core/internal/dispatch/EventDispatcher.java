@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.dispatch;
+
+/**
+ * The single consumer for a {@link RingBuffer}.  The dispatcher runs on its
+ * own thread and hands every published slot, in sequence order, to its
+ * handler.  It keeps running until it is halted, and always finishes the
+ * slots that were published before it was halted.
+ *
+ * @param <E> the slot type
+ */
+public final class EventDispatcher<E> implements Runnable {
+    private final RingBuffer<E> ringBuffer;
+    private final SlotHandler<E> handler;
+    private volatile boolean running = true;
+
+    public EventDispatcher(RingBuffer<E> ringBuffer, SlotHandler<E> handler) {
+        this.ringBuffer = ringBuffer;
+        this.handler = handler;
+    }
+
+    @Override
+    public void run() {
+        long next = ringBuffer.getConsumed() + 1;
+
+        while (true) {
+            final long waitingFor = next;
+            ringBuffer.waitFor(new WaitStrategy.Barrier() {
+                @Override
+                public boolean isSatisfied() {
+                    return !running || ringBuffer.isPublished(waitingFor);
+                }
+            });
+
+            long available = ringBuffer.highestPublished(next);
+            if (available < next) {
+                // halted and nothing left to do
+                return;
+            }
+
+            for (long sequence = next; sequence <= available; sequence++) {
+                handler.onSlot(ringBuffer.get(sequence), sequence == available);
+            }
+
+            ringBuffer.release(available);
+            next = available + 1;
+        }
+    }
+
+    /**
+     * Ask the dispatcher to stop once it runs out of published slots.
+     */
+    public void halt() {
+        running = false;
+        ringBuffer.wakeUp();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.dispatch;
+
+import org.dhaven.jue.api.description.Description;
+import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.api.event.TestEvent;
+
+/**
+ * A reusable slot in the event ring buffer.  Producers fill the slot after
+ * claiming it, the consumer empties it after dispatching it.
+ * <p/>
+ * The slot holds the raw parts of an event: the description, the status, the
+ * time stamp, the thread, the processor times and the failure, if any.
+ * Firing an event only copies those references into the slot, so the test
+ * threads do not allocate anything.
+ * The {@link TestEvent} itself is only created on the dispatcher thread, and
+ * only if somebody is listening.  Events that already exist as objects can
+ * be passed through the slot as they are.
+ */
+public final class EventSlot {
+    /**
+     * Factory for the ring buffer.
+     */
+    public static final SlotFactory<EventSlot> FACTORY = new SlotFactory<EventSlot>() {
+        @Override
+        public EventSlot newSlot() {
+            return new EventSlot();
+        }
+    };
+
+    private static final Status[] STATUS = Status.values();
+
+    private Description description;
+    private byte status;
+    private long timeStamp;
+    private long threadId;
+    private long cpuTime;
+    private long userTime;
+    private Throwable failure;
+    private TestEvent event;
+
+    /**
+     * Record an event in the slot.
+     *
+     * @param description the description of the test
+     * @param status      the status
+     * @param failure     the failure, or <code>null</code>
+     * @param timeStamp   the time stamp in nanoseconds
+     * @param threadId    the thread the event happened on
+     * @param cpuTime     the thread's CPU time, or {@link TestEvent#NOT_MEASURED}
+     * @param userTime    the thread's user time, or {@link TestEvent#NOT_MEASURED}
+     */
+    public void set(Description description, Status status, Throwable failure,
+                    long timeStamp, long threadId, long cpuTime, long userTime) {
+        this.description = description;
+        this.status = (byte) status.ordinal();
+        this.failure = failure;
+        this.timeStamp = timeStamp;
+        this.threadId = threadId;
+        this.cpuTime = cpuTime;
+        this.userTime = userTime;
+        this.event = null;
+    }
+
+    /**
+     * Record an event that was already created.
+     *
+     * @param event the event
+     */
+    public void setEvent(TestEvent event) {
+        this.event = event;
+        this.description = null;
+        this.failure = null;
+    }
+
+    public Description getDescription() {
+        return null == event ? description : event.getDescription();
+    }
+
+    public Status getStatus() {
+        return null == event ? STATUS[status] : event.getStatus();
+    }
+
+    /**
+     * Get the event for this slot, creating it if it only exists as raw parts.
+     *
+     * @return the event
+     */
+    public TestEvent getEvent() {
+        if (null == event) {
+            event = new TestEvent(description, STATUS[status], failure, timeStamp, threadId, cpuTime, userTime);
+        }
+
+        return event;
+    }
+
+    /**
+     * Release any references held by the slot so they can be collected.
+     */
+    public void clear() {
+        description = null;
+        failure = null;
+        event = null;
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.dispatch;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.dhaven.jue.api.description.Description;
+import org.dhaven.jue.api.event.BatchTestListener;
+import org.dhaven.jue.api.event.Subscription;
+import org.dhaven.jue.api.event.TestEvent;
+import org.dhaven.jue.api.event.TestListener;
+import org.dhaven.jue.core.LaneStatistics;
+import org.dhaven.jue.core.OverflowPolicy;
+
+/**
+ * A bounded, private queue in front of one listener, with its own thread.
+ * Every listener gets a lane so that a slow listener only slows itself down,
+ * unless it asked for {@link OverflowPolicy#Block}.
+ * <p/>
+ * Events are offered to the lane by one thread at a time, the event
+ * dispatcher.  When the lane is full the {@link OverflowPolicy} decides what
+ * happens to the event.  A {@link BatchTestListener} gets all the events that
+ * are waiting in the lane in one call.
+ */
+public final class ListenerLane {
+    private final TestListener listener;
+    private final Subscription subscription;
+    private final OverflowPolicy policy;
+    private final RingBuffer<EventSlot> buffer;
+    private final Map<Description, TestEvent> overflow = new LinkedHashMap<Description, TestEvent>();
+    private volatile boolean overflowing = false;
+    private volatile boolean running = false;
+    // counted by every test thread at once in inline mode
+    private final LongAdder offered = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final LongAdder failed = new LongAdder();
+    private volatile RuntimeException lastFailure;
+    private Thread thread;
+
+    /**
+     * Create a lane for the listener.
+     *
+     * @param listener     the listener to deliver to
+     * @param subscription the events the listener wants
+     * @param policy       what to do when the lane is full
+     * @param capacity     the number of events the lane holds
+     * @param waitStrategy how the lane thread waits for events
+     */
+    public ListenerLane(TestListener listener, Subscription subscription, OverflowPolicy policy,
+                        int capacity, WaitStrategy waitStrategy) {
+        if (null == listener)
+            throw new IllegalArgumentException("Must have a listener");
+        if (null == subscription)
+            throw new IllegalArgumentException("Must have a subscription");
+        if (null == policy)
+            throw new IllegalArgumentException("Must have an overflow policy");
+
+        this.listener = listener;
+        this.subscription = subscription;
+        this.policy = policy;
+        this.buffer = new RingBuffer<EventSlot>(capacity, EventSlot.FACTORY, waitStrategy);
+    }
+
+    public TestListener getListener() {
+        return listener;
+    }
+
+    public Subscription getSubscription() {
+        return subscription;
+    }
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Hand an event to the lane.  Only one thread may offer events at a time.
+     *
+     * @param event the event
+     */
+    public void offer(TestEvent event) {
+        offered.increment();
+
+        if (overflowing) {
+            coalesce(event);
+            return;
+        }
+
+        long sequence;
+        if (policy == OverflowPolicy.Block) {
+            sequence = buffer.next();
+        } else {
+            sequence = buffer.tryNext();
+
+            if (sequence < 0) {
+                if (policy == OverflowPolicy.Drop) {
+                    dropped.incrementAndGet();
+                } else {
+                    coalesce(event);
+                }
+                return;
+            }
+        }
+
+        buffer.get(sequence).setEvent(event);
+        buffer.publish(sequence);
+    }
+
+    /**
+     * Call the listener with the event right away, on the calling thread,
+     * without going through the lane's buffer and thread.  This is how the
+     * events get to the listener in
+     * {@link org.dhaven.jue.core.DispatchMode#Inline} mode, where many test
+     * threads call it at once.  The event is counted the same way as one that
+     * went through the lane.
+     *
+     * @param event the event
+     */
+    public void deliverInline(TestEvent event) {
+        offered.increment();
+        deliver(event);
+    }
+
+    private void coalesce(TestEvent event) {
+        synchronized (overflow) {
+            if (null != overflow.put(event.getDescription(), event)) {
+                coalesced.incrementAndGet();
+            }
+            overflowing = true;
+        }
+
+        buffer.wakeUp();
+    }
+
+    /**
+     * Get a snapshot of the lane's statistics.
+     *
+     * @return the statistics
+     */
+    public LaneStatistics getStatistics() {
+        return new LaneStatistics(offered.sum(), delivered.sum(), dropped.get(), coalesced.get(),
+                failed.sum(), lastFailure);
+    }
+
+    /**
+     * Start the lane thread if it is not running already.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+
+        if (null != thread) {
+            // the listener stopped its own lane, let the old thread finish
+            join();
+        }
+
+        running = true;
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                consume();
+            }
+        }, "JUE listener lane: " + listener.getClass().getName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Deliver everything already offered to the lane and then stop the lane
+     * thread.  A listener that removes itself from its own lane stops the
+     * lane without waiting for it.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+
+        if (Thread.currentThread() == thread) {
+            running = false;
+            return;
+        }
+
+        final long cursor = buffer.getCursor();
+        buffer.waitFor(new WaitStrategy.Barrier() {
+            @Override
+            public boolean isSatisfied() {
+                return buffer.getConsumed() >= cursor && !overflowing;
+            }
+        });
+
+        running = false;
+        buffer.wakeUp();
+        join();
+    }
+
+    private void join() {
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        thread = null;
+    }
+
+    private void consume() {
+        long next = buffer.getConsumed() + 1;
+
+        while (true) {
+            final long waitingFor = next;
+            buffer.waitFor(new WaitStrategy.Barrier() {
+                @Override
+                public boolean isSatisfied() {
+                    return !running || overflowing || buffer.isPublished(waitingFor);
+                }
+            });
+
+            long available = buffer.highestPublished(next);
+            if (available >= next) {
+                if (listener instanceof BatchTestListener) {
+                    List<TestEvent> events = new ArrayList<TestEvent>((int) (available - next + 1));
+                    for (long sequence = next; sequence <= available; sequence++) {
+                        EventSlot slot = buffer.get(sequence);
+                        events.add(slot.getEvent());
+                        slot.clear();
+                    }
+                    deliver(events);
+                } else {
+                    for (long sequence = next; sequence <= available; sequence++) {
+                        EventSlot slot = buffer.get(sequence);
+                        deliver(slot.getEvent());
+                        slot.clear();
+                    }
+                }
+
+                buffer.release(available);
+                next = available + 1;
+            } else if (overflowing) {
+                // Nothing goes in the ring while we are overflowing, so
+                // the ring is empty and everything left is in the overflow
+                flushOverflow();
+            } else if (!running) {
+                return;
+            }
+        }
+    }
+
+    private void flushOverflow() {
+        List<TestEvent> events;
+
+        synchronized (overflow) {
+            events = new ArrayList<TestEvent>(overflow.values());
+            overflow.clear();
+            overflowing = false;
+        }
+
+        if (listener instanceof BatchTestListener) {
+            deliver(events);
+        } else {
+            for (TestEvent event : events) {
+                deliver(event);
+            }
+        }
+
+        // wake up anybody waiting for the overflow to drain
+        buffer.wakeUp();
+    }
+
+    private void deliver(TestEvent event) {
+        try {
+            listener.handleEvent(event);
+        } catch (RuntimeException exception) {
+            // A broken listener must not kill its lane
+            failed(exception, 1);
+        }
+
+        delivered.increment();
+    }
+
+    private void deliver(List<TestEvent> events) {
+        try {
+            BatchTestListener.class.cast(listener).handleEvents(events);
+        } catch (RuntimeException exception) {
+            // A broken listener must not kill its lane
+            failed(exception, events.size());
+        }
+
+        delivered.add(events.size());
+    }
+
+    private void failed(RuntimeException exception, int events) {
+        lastFailure = exception;
+        failed.add(events);
+    }
+}
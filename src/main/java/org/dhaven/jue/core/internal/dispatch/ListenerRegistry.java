@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.dispatch;
+
+import org.dhaven.jue.api.description.Type;
+import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.api.event.Subscription;
+import org.dhaven.jue.api.event.TestListener;
+
+/**
+ * Keeps track of the listener lanes.  Every change publishes a brand new
+ * table, so the event dispatcher can walk the current snapshot without locks,
+ * iterators, or fear of it changing underneath it.  Listeners can come and go
+ * in the middle of a run.
+ * <p/>
+ * Along with the list of all lanes, the table holds a route for every
+ * combination of {@link Type} and {@link Status}: the lanes whose
+ * {@link Subscription} accepts that kind of event.  An empty route means
+ * nobody wants the event.
+ */
+public final class ListenerRegistry {
+    private volatile Table table = new Table(new ListenerLane[0]);
+
+    /**
+     * Get the current set of lanes.  The array is shared, and must never be
+     * modified.
+     *
+     * @return the lanes
+     */
+    public ListenerLane[] snapshot() {
+        return table.lanes;
+    }
+
+    /**
+     * Get the lanes that want events of a type and status.  The array is
+     * shared, and must never be modified.
+     *
+     * @param type   the type of the event
+     * @param status the status of the event
+     * @return the lanes for the event
+     */
+    public ListenerLane[] route(Type type, Status status) {
+        return table.routes[Subscription.route(type, status)];
+    }
+
+    /**
+     * Add a lane.
+     *
+     * @param lane the lane to add
+     */
+    public synchronized void add(ListenerLane lane) {
+        ListenerLane[] current = table.lanes;
+        ListenerLane[] updated = new ListenerLane[current.length + 1];
+
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = lane;
+
+        table = new Table(updated);
+    }
+
+    /**
+     * Remove the lane for a listener.
+     *
+     * @param listener the listener to remove
+     * @return the lane that was removed, or <code>null</code> if there was none
+     */
+    public synchronized ListenerLane remove(TestListener listener) {
+        ListenerLane[] current = table.lanes;
+        int index = indexOf(current, listener);
+
+        if (index < 0) {
+            return null;
+        }
+
+        ListenerLane[] updated = new ListenerLane[current.length - 1];
+        System.arraycopy(current, 0, updated, 0, index);
+        System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+
+        table = new Table(updated);
+        return current[index];
+    }
+
+    /**
+     * Find the lane for a listener.
+     *
+     * @param listener the listener to look for
+     * @return the lane, or <code>null</code> if there is none
+     */
+    public ListenerLane find(TestListener listener) {
+        ListenerLane[] current = table.lanes;
+        int index = indexOf(current, listener);
+
+        return index < 0 ? null : current[index];
+    }
+
+    private static int indexOf(ListenerLane[] lanes, TestListener listener) {
+        for (int i = 0; i < lanes.length; i++) {
+            if (lanes[i].getListener() == listener) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * An immutable set of lanes and the routes computed from them.
+     */
+    private static final class Table {
+        private final ListenerLane[] lanes;
+        private final ListenerLane[][] routes;
+
+        Table(ListenerLane[] lanes) {
+            this.lanes = lanes;
+            this.routes = new ListenerLane[Subscription.routeCount()][];
+
+            for (Type type : Type.values()) {
+                for (Status status : Status.values()) {
+                    routes[Subscription.route(type, status)] = select(type, status);
+                }
+            }
+        }
+
+        private ListenerLane[] select(Type type, Status status) {
+            int count = 0;
+            for (ListenerLane lane : lanes) {
+                if (lane.getSubscription().accepts(type, status)) {
+                    count++;
+                }
+            }
+
+            ListenerLane[] route = new ListenerLane[count];
+            int index = 0;
+            for (ListenerLane lane : lanes) {
+                if (lane.getSubscription().accepts(type, status)) {
+                    route[index++] = lane;
+                }
+            }
+
+            return route;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.dispatch;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pre-allocated, multi-producer, single-consumer ring buffer.  Every slot
+ * is created up front and reused, so publishing an event never allocates.
+ * <p/>
+ * Producers claim a sequence number with a single atomic increment, fill in
+ * the slot for that sequence, and then publish it.  No locks are taken on the
+ * way.  The consumer walks the sequence numbers in order, stopping at the
+ * first slot that has not been published yet, and releases the slots it is
+ * done with so producers can reuse them.  A producer that laps the consumer
+ * waits using the configured {@link WaitStrategy}.
+ *
+ * @param <E> the slot type
+ */
+public final class RingBuffer<E> {
+    private final Object[] slots;
+    private final int mask;
+    private final int shift;
+    private final AtomicIntegerArray published;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final AtomicLong consumed = new AtomicLong(-1);
+    private final WaitStrategy waitStrategy;
+
+    /**
+     * Create the ring buffer.  The size is rounded up to the next power of
+     * two.
+     *
+     * @param size         the minimum number of slots
+     * @param factory      the factory to pre-allocate slots with
+     * @param waitStrategy the strategy for waiting threads
+     */
+    public RingBuffer(int size, SlotFactory<E> factory, WaitStrategy waitStrategy) {
+        if (size < 1)
+            throw new IllegalArgumentException("Ring buffer must have at least one slot");
+        if (null == factory)
+            throw new IllegalArgumentException("Must have a slot factory");
+        if (null == waitStrategy)
+            throw new IllegalArgumentException("Must have a wait strategy");
+
+        int capacity = Integer.highestOneBit(size);
+        if (capacity < size) {
+            capacity <<= 1;
+        }
+
+        this.slots = new Object[capacity];
+        this.mask = capacity - 1;
+        this.shift = Integer.numberOfTrailingZeros(capacity);
+        this.published = new AtomicIntegerArray(capacity);
+        this.waitStrategy = waitStrategy;
+
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = factory.newSlot();
+            published.set(i, -1);
+        }
+    }
+
+    /**
+     * The number of slots in the buffer.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Claim the next sequence, waiting for the consumer if the buffer is
+     * full.  The caller must publish the sequence once the slot is filled.
+     *
+     * @return the claimed sequence
+     */
+    public long next() {
+        final long sequence = claimed.incrementAndGet();
+        final long wrapPoint = sequence - slots.length;
+
+        if (wrapPoint > consumed.get()) {
+            waitStrategy.waitFor(new WaitStrategy.Barrier() {
+                @Override
+                public boolean isSatisfied() {
+                    return wrapPoint <= consumed.get();
+                }
+            });
+        }
+
+        return sequence;
+    }
+
+    /**
+     * Claim the next sequence if there is room for it.
+     *
+     * @return the claimed sequence, or <code>-1</code> if the buffer is full
+     */
+    public long tryNext() {
+        long current;
+        long sequence;
+
+        do {
+            current = claimed.get();
+            sequence = current + 1;
+
+            if (sequence - slots.length > consumed.get()) {
+                return -1;
+            }
+        } while (!claimed.compareAndSet(current, sequence));
+
+        return sequence;
+    }
+
+    /**
+     * Get the slot for a claimed or published sequence.
+     *
+     * @param sequence the sequence
+     * @return the slot
+     */
+    @SuppressWarnings("unchecked")
+    public E get(long sequence) {
+        return (E) slots[(int) sequence & mask];
+    }
+
+    /**
+     * Make a filled slot visible to the consumer.
+     *
+     * @param sequence the claimed sequence
+     */
+    public void publish(long sequence) {
+        published.set((int) sequence & mask, (int) (sequence >>> shift));
+        waitStrategy.signalAll();
+    }
+
+    /**
+     * Check whether a sequence has been published.
+     *
+     * @param sequence the sequence
+     * @return <code>true</code> if the consumer can read the slot
+     */
+    public boolean isPublished(long sequence) {
+        return published.get((int) sequence & mask) == (int) (sequence >>> shift);
+    }
+
+    /**
+     * Find the highest sequence that can be consumed without gaps, starting
+     * with <code>from</code>.
+     *
+     * @param from the first sequence to check
+     * @return the highest contiguous published sequence, or
+     *         <code>from - 1</code> if <code>from</code> is not published
+     */
+    public long highestPublished(long from) {
+        long upTo = claimed.get();
+
+        for (long sequence = from; sequence <= upTo; sequence++) {
+            if (!isPublished(sequence)) {
+                return sequence - 1;
+            }
+        }
+
+        return upTo;
+    }
+
+    /**
+     * The highest sequence claimed by any producer so far.  It may not be
+     * published yet.
+     *
+     * @return the producer cursor
+     */
+    public long getCursor() {
+        return claimed.get();
+    }
+
+    /**
+     * The highest sequence the consumer is done with.
+     *
+     * @return the consumer sequence
+     */
+    public long getConsumed() {
+        return consumed.get();
+    }
+
+    /**
+     * Hand all slots up to and including the sequence back to the producers.
+     *
+     * @param sequence the last consumed sequence
+     */
+    public void release(long sequence) {
+        consumed.set(sequence);
+        waitStrategy.signalAll();
+    }
+
+    /**
+     * Wake up every thread waiting on the buffer so it checks its barrier
+     * again.  Used when a barrier depends on something besides the buffer.
+     */
+    public void wakeUp() {
+        waitStrategy.signalAll();
+    }
+
+    /**
+     * Wait, using the buffer's wait strategy, until the barrier is satisfied.
+     *
+     * @param barrier the condition to wait for
+     */
+    public void waitFor(WaitStrategy.Barrier barrier) {
+        waitStrategy.waitFor(barrier);
+    }
+
+    /**
+     * Wait until the consumer is done with every sequence up to and including
+     * the one provided.
+     *
+     * @param sequence the sequence to drain to
+     */
+    public void drainTo(final long sequence) {
+        waitStrategy.waitFor(new WaitStrategy.Barrier() {
+            @Override
+            public boolean isSatisfied() {
+                return consumed.get() >= sequence;
+            }
+        });
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.dispatch;
+
+/**
+ * Creates the pre-allocated slots for a {@link RingBuffer}.  The ring buffer
+ * calls the factory once per slot when it is constructed, and then reuses the
+ * slots for the rest of its life.
+ *
+ * @param <E> the slot type
+ */
+public interface SlotFactory<E> {
+    /**
+     * Create a new, empty slot.
+     *
+     * @return the slot
+     */
+    E newSlot();
+}
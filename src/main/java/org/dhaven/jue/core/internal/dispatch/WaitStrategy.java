@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.dispatch;
+
+/**
+ * A wait strategy decides what a thread does while it waits for the ring
+ * buffer to make progress.  The consumer waits for events to be published,
+ * and producers wait for capacity when the buffer is full.  The strategies
+ * trade latency for processor time: spinning reacts the fastest but burns a
+ * core, blocking is the kindest to the rest of the machine.
+ */
+public interface WaitStrategy {
+    /**
+     * Wait until the barrier is satisfied.  Implementations must check the
+     * barrier before waiting, and must not return until it is satisfied.
+     *
+     * @param barrier the condition to wait for
+     */
+    void waitFor(Barrier barrier);
+
+    /**
+     * Wake up any thread waiting on this strategy so it can check its
+     * barrier again.  Called every time the ring buffer makes progress.
+     */
+    void signalAll();
+
+    /**
+     * The condition a waiting thread is interested in.
+     */
+    interface Barrier {
+        /**
+         * Check whether the waiting thread can proceed.
+         *
+         * @return <code>true</code> if the thread no longer needs to wait
+         */
+        boolean isSatisfied();
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.dispatch;
+
+/**
+ * Creates a {@link WaitStrategy} for each thread that needs one of its own,
+ * such as the thread of every listener lane.  Strategies must not be shared
+ * between lanes: a blocking strategy would wake every lane for every event,
+ * and a spinning one keeps a core busy per lane anyway.
+ */
+public interface WaitStrategyFactory {
+    /**
+     * Create a new wait strategy.
+     *
+     * @return the wait strategy
+     */
+    WaitStrategy newWaitStrategy();
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.dispatch;
+
+/**
+ * Spin for a short while, then keep yielding the processor to other threads.
+ * Low latency, but keeps a core busy whenever the buffer is idle.  Only use
+ * this when there are more cores than busy threads.
+ */
+public final class YieldingWaitStrategy implements WaitStrategy {
+    private static final int SPIN_TRIES = 100;
+
+    @Override
+    public void waitFor(Barrier barrier) {
+        int counter = 0;
+
+        while (!barrier.isSatisfied()) {
+            if (counter < SPIN_TRIES) {
+                counter++;
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    @Override
+    public void signalAll() {
+        // nothing to do, yielding threads check again on their own
+    }
+}
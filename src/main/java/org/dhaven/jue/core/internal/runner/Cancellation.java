@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.runner;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dhaven.jue.api.event.Status;
+
+/**
+ * Tells the runner to stop starting tests, either because it was asked to or
+ * because too many tests failed.  The tests that are not started are still
+ * reported, as terminated, so the results account for every test.
+ */
+class Cancellation {
+    private final int failureLimit;
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile boolean cancelled = false;
+
+    /**
+     * Create the cancellation.
+     *
+     * @param failureLimit the number of failures to cancel after, or 0 to
+     *                     never cancel because of failures
+     */
+    Cancellation(int failureLimit) {
+        this.failureLimit = failureLimit;
+    }
+
+    /**
+     * Record how a test ended.
+     *
+     * @param status the status the test ended with
+     */
+    void testEnded(Status status) {
+        if (Status.Failed == status && failureLimit > 0 && failures.incrementAndGet() >= failureLimit) {
+            cancelled = true;
+        }
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+}
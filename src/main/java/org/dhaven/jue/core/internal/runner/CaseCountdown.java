@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.runner;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dhaven.jue.core.TestListenerSupport;
+import org.dhaven.jue.core.internal.TestCase;
+
+/**
+ * Counts down the tests of a test case that are still running, so the test
+ * case can be reported as finished by whichever thread ran its last test.
+ * That lets the tests of one test case run on any number of threads without
+ * anybody waiting for them.
+ * <p/>
+ * The countdown also keeps the number of tests of the case that run at the
+ * same time under a limit, if there is one.  Tests over the limit are held
+ * back, not blocked, and handed to the next thread that finishes a test of
+ * the same case.
+ * <p/>
+ * A case affine test case has a limit of one, and its tests are held back
+ * as they are handed out rather than when a thread picks them up.  Only the
+ * first test goes to a thread; that thread then runs the others one after
+ * the other, in order.
+ *
+ * @param <R> the type of the runner for a test
+ */
+class CaseCountdown<R> {
+    private final TestCase testCase;
+    private final AtomicInteger remaining;
+    private final int limit;
+    private final Queue<R> waiting = new ArrayDeque<R>();
+    private int running = 0;
+
+    CaseCountdown(TestCase testCase) {
+        this(testCase, 0);
+    }
+
+    /**
+     * Create a countdown that lets only so many tests run at once.
+     *
+     * @param testCase the test case
+     * @param limit    the number of tests that may run at once, or 0 for any
+     */
+    CaseCountdown(TestCase testCase, int limit) {
+        this.testCase = testCase;
+        this.remaining = new AtomicInteger(testCase.numberOfRuns());
+        this.limit = testCase.isCaseAffine() ? 1 : limit;
+    }
+
+    /**
+     * Hand out a test.  The tests of a case affine test case enter right
+     * away, so only the first one is let through and the rest wait for the
+     * thread that runs it.
+     *
+     * @param runner the runner for the test
+     * @return <code>true</code> if the runner should be given a thread
+     */
+    boolean dispatch(R runner) {
+        return !testCase.isCaseAffine() || enter(runner);
+    }
+
+    /**
+     * Ask to run a test.  If the limit is reached, the runner is held back
+     * until another test finishes.
+     *
+     * @param runner the runner for the test
+     * @return <code>true</code> if the test may run now
+     */
+    boolean enter(R runner) {
+        if (limit <= 0) {
+            return true;
+        }
+
+        synchronized (this) {
+            if (running < limit) {
+                running++;
+                return true;
+            }
+
+            waiting.add(runner);
+            return false;
+        }
+    }
+
+    /**
+     * Record that one of the tests finished.  The last one to finish fires
+     * the test case's terminated event.
+     *
+     * @param support the support to fire the event with
+     * @return a runner that was held back and may run now, or <code>null</code>
+     */
+    R testDone(TestListenerSupport support) {
+        R next = null;
+
+        if (limit > 0) {
+            synchronized (this) {
+                next = waiting.poll();
+                if (null == next) {
+                    running--;
+                }
+            }
+        }
+
+        if (remaining.decrementAndGet() == 0) {
+            support.fireTestTerminated(testCase);
+        }
+
+        return next;
+    }
+
+    /**
+     * Record that one of the tests was never run, without it having entered.
+     * The last one to be accounted for fires the test case's terminated
+     * event.
+     *
+     * @param support the support to fire the event with
+     */
+    void testSkipped(TestListenerSupport support) {
+        if (remaining.decrementAndGet() == 0) {
+            support.fireTestTerminated(testCase);
+        }
+    }
+
+    TestCase getTestCase() {
+        return testCase;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.runner;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dhaven.jue.api.Request;
+import org.dhaven.jue.api.journal.EventStreamWriter;
+import org.dhaven.jue.core.Configuration;
+import org.dhaven.jue.core.Engine;
+
+/**
+ * The entry point of a JVM forked by {@link TestForkedJvms}.  It connects
+ * back to the parent over the loopback interface, runs the test classes it
+ * was given with an engine of its own, and streams every event back.
+ * <p/>
+ * The child first sends its {@link System#nanoTime()}, so the parent can
+ * put the child's time stamps on its own clock.  The parent answers with the
+ * names of the tests to run, in the order it planned them, and the child
+ * sends the events in the journal format.  Anything more the parent sends
+ * cancels the run, as does the parent going away.
+ */
+public final class ForkedEngine {
+    private static final String THREADS_OPTION = "--threads=";
+    private static final String MULTIPLIER_OPTION = "--multiplier=";
+    private static final String PER_CASE_OPTION = "--per-case=";
+    private static final String TIMEOUT_OPTION = "--timeout=";
+    private static final String REPEAT_OPTION = "--repeat=";
+    private static final String CASE_AFFINE_OPTION = "--case-affine";
+    private static final String CPU_TIME_OPTION = "--cpu-time";
+
+    private ForkedEngine() {
+    }
+
+    /**
+     * Run the test classes and stream the events to the parent.
+     *
+     * @param arguments the port to connect to, the options, and the names of
+     *                  the test classes
+     * @throws Exception if the tests could not be run
+     */
+    public static void main(String... arguments) throws Exception {
+        if (arguments.length == 0)
+            throw new IllegalArgumentException("No port to report to");
+
+        int port = Integer.parseInt(arguments[0]);
+        Configuration configuration = new Configuration();
+        boolean cpuTimeMeasured = false;
+        List<Class<?>> testClasses = new ArrayList<Class<?>>();
+
+        for (int i = 1; i < arguments.length; i++) {
+            String argument = arguments[i];
+
+            if (argument.startsWith(THREADS_OPTION)) {
+                configuration.setThreads(Integer.parseInt(argument.substring(THREADS_OPTION.length())));
+            } else if (argument.startsWith(MULTIPLIER_OPTION)) {
+                configuration.setMultiplier(Double.parseDouble(argument.substring(MULTIPLIER_OPTION.length())));
+            } else if (argument.startsWith(PER_CASE_OPTION)) {
+                configuration.setTestsPerCase(Integer.parseInt(argument.substring(PER_CASE_OPTION.length())));
+            } else if (argument.startsWith(TIMEOUT_OPTION)) {
+                configuration.setTimeout(Long.parseLong(argument.substring(TIMEOUT_OPTION.length())));
+            } else if (argument.startsWith(REPEAT_OPTION)) {
+                configuration.setRepeat(Integer.parseInt(argument.substring(REPEAT_OPTION.length())));
+            } else if (argument.equals(CASE_AFFINE_OPTION)) {
+                configuration.setCaseAffine(true);
+            } else if (argument.equals(CPU_TIME_OPTION)) {
+                cpuTimeMeasured = true;
+            } else if (argument.startsWith("--")) {
+                throw new IllegalArgumentException("Unknown option: " + argument);
+            } else {
+                testClasses.add(Class.forName(argument));
+            }
+        }
+
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        try {
+            DataOutputStream clock = new DataOutputStream(socket.getOutputStream());
+            clock.writeLong(System.nanoTime());
+            clock.flush();
+
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            List<String> testNames = new ArrayList<String>();
+            for (int count = in.readInt(); count > 0; count--) {
+                testNames.add(in.readUTF());
+            }
+
+            EventStreamWriter events = new EventStreamWriter(socket.getOutputStream());
+            Engine engine = new Engine();
+            engine.setConfiguration(configuration);
+            engine.setCpuTimeMeasured(cpuTimeMeasured);
+            engine.addTestListener(events);
+            listenForCancel(socket.getInputStream(), engine.getTestRunner());
+
+            Request request = new Request(testClasses.toArray(new Class<?>[testClasses.size()]));
+            request.setTestOrder(testNames);
+            engine.process(request);
+            events.close();
+        } finally {
+            socket.close();
+        }
+
+        // a test that never ended may still hold a thread
+        System.exit(0);
+    }
+
+    /**
+     * Get the options that give a child the same configuration as the
+     * parent.  The failure limit is left to the parent, which sees the
+     * failures of every child.
+     *
+     * @param configuration   the parent's configuration
+     * @param cpuTimeMeasured <code>true</code> if the parent measures CPU time
+     * @return the options
+     */
+    static List<String> options(Configuration configuration, boolean cpuTimeMeasured) {
+        List<String> options = new ArrayList<String>();
+
+        if (configuration.getThreads() > 0) {
+            options.add(THREADS_OPTION + configuration.getThreads());
+        } else {
+            options.add(MULTIPLIER_OPTION + configuration.getMultiplier());
+        }
+        options.add(PER_CASE_OPTION + configuration.getTestsPerCase());
+        options.add(TIMEOUT_OPTION + configuration.getTimeout());
+        options.add(REPEAT_OPTION + configuration.getRepeat());
+        if (configuration.isCaseAffine()) {
+            options.add(CASE_AFFINE_OPTION);
+        }
+        if (cpuTimeMeasured) {
+            options.add(CPU_TIME_OPTION);
+        }
+
+        return options;
+    }
+
+    private static void listenForCancel(final InputStream in, final TestRunner runner) {
+        Thread listener = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    in.read();
+                } catch (IOException e) {
+                    // the parent is gone
+                }
+
+                runner.cancel();
+            }
+        }, "JUE fork cancel");
+        listener.setDaemon(true);
+        listener.start();
+    }
+}
@@ -0,0 +1,385 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.runner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.dhaven.jue.api.description.Description;
+import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.core.Configuration;
+import org.dhaven.jue.core.TestListenerSupport;
+import org.dhaven.jue.core.internal.TestCase;
+import org.dhaven.jue.core.internal.TestNode;
+import org.dhaven.jue.core.internal.TestPlan;
+import org.dhaven.jue.core.internal.Watchdog;
+
+/**
+ * The common ground of the runners that put the tests under load rather
+ * than running each of them once.  The runner reports the test cases and
+ * the ignored tests as usual, and leaves it to the subclass to decide how
+ * the other tests are run, and for how long.
+ * <p/>
+ * Every run is reported with its own run number and an open ended number of
+ * runs, so the results roll the runs up per test.  Repeat counts, case
+ * affinity and the limit on tests per test case don't apply.
+ * <p/>
+ * The shared resources of the tests do: a run only starts once it has
+ * them.
+ */
+abstract class LoadRunner implements TestRunner {
+    private static final long POLL = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long RESOURCE_POLL = TimeUnit.MILLISECONDS.toNanos(1);
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private TestListenerSupport support;
+    private int parallelism;
+    private Watchdog watchdog;
+    private long timeout;
+    private Cancellation cancellation;
+    private ResourceGate<Runnable> resources;
+
+    @Override
+    public void start(TestListenerSupport support, Configuration configuration) {
+        this.support = support;
+        this.parallelism = configuration.getParallelism();
+        this.watchdog = new Watchdog();
+        this.timeout = configuration.getTimeout();
+        this.cancellation = new Cancellation(configuration.getFailureLimit());
+    }
+
+    @Override
+    public void execute(TestPlan plan) {
+        support.fireTestEvent(Description.JUEName, Status.Started, null);
+        resources = new ResourceGate<Runnable>(plan.export());
+
+        List<TestCase> testCases = new ArrayList<TestCase>();
+        List<LoadedTest> tests = new ArrayList<LoadedTest>();
+        for (TestCase testCase : plan.export()) {
+            support.fireTestStarted(testCase);
+
+            if (testCase.isEmpty()) {
+                //noinspection ThrowableInstanceNeverThrown
+                support.fireTestFailed(testCase, new AssertionError("Test class does not have any tests: "
+                        + testCase.getDescription().getName()));
+                continue;
+            }
+
+            testCases.add(testCase);
+            for (TestNode node : testCase) {
+                if (node.isIgnored()) {
+                    node.run(support);
+                } else {
+                    tests.add(new LoadedTest(node));
+                }
+            }
+        }
+
+        if (!tests.isEmpty()) {
+            load(tests);
+        }
+
+        for (TestCase testCase : testCases) {
+            support.fireTestTerminated(testCase);
+        }
+
+        support.fireTestEvent(Description.JUEName, Status.Terminated, null);
+    }
+
+    /**
+     * Put the tests under load, and return when the load is over and every
+     * run that was started is accounted for.
+     *
+     * @param tests the tests that are not ignored, at least one
+     */
+    protected abstract void load(List<LoadedTest> tests);
+
+    @Override
+    public void cancel() {
+        cancellation.cancel();
+    }
+
+    @Override
+    public void shutdown() {
+        watchdog.shutdown();
+    }
+
+    /**
+     * Get the configured parallelism.
+     *
+     * @return the number of tests to run at once
+     */
+    protected int getParallelism() {
+        return parallelism;
+    }
+
+    protected boolean isCancelled() {
+        return cancellation.isCancelled();
+    }
+
+    /**
+     * Wait until the given time, or until the runner is cancelled.
+     *
+     * @param deadline the time to wait for, in {@link System#nanoTime()} terms
+     */
+    protected void waitUntil(long deadline) {
+        long remaining = deadline - System.nanoTime();
+
+        while (remaining > 0 && !isCancelled()) {
+            LockSupport.parkNanos(Math.min(remaining, POLL));
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
+    /**
+     * Run one run of a test under the watchdog.
+     *
+     * @param run       the run
+     * @param onTimeout what to do if the run times out
+     * @return <code>true</code> if the run ended, <code>false</code> if the
+     *         watchdog took it over and the thread should go
+     */
+    protected boolean runOnce(TestNode run, Runnable onTimeout) {
+        Watchdog.Watch watch = watchdog.watch(run, run.getTimeout(timeout), support, onTimeout);
+
+        cancellation.testEnded(run.run(support, watch));
+
+        return watch.finish();
+    }
+
+    /**
+     * Run one run of a test that was scheduled to start at a given time,
+     * under the watchdog.  The time the run took counts from the scheduled
+     * start.
+     *
+     * @param run            the run
+     * @param scheduledStart when the run should have started
+     * @param onTimeout      what to do if the run times out
+     * @return <code>true</code> if the run ended, <code>false</code> if the
+     *         watchdog took it over and the thread should go
+     */
+    protected boolean runOnce(TestNode run, long scheduledStart, Runnable onTimeout) {
+        Watchdog.Watch watch = watchdog.watch(run, run.getTimeout(timeout), support, onTimeout);
+
+        cancellation.testEnded(run.runScheduled(support, watch, scheduledStart));
+
+        return watch.finish();
+    }
+
+    /**
+     * Take the shared resources of a run, or hold the run back until they
+     * are given up.
+     *
+     * @param run    the run
+     * @param resume what to do once a run that was held back has them
+     * @return <code>true</code> if the run has its resources now
+     */
+    protected boolean takeResources(TestNode run, Runnable resume) {
+        return resources.enter(resume, run);
+    }
+
+    /**
+     * Give up the shared resources of a run, and resume the runs that were
+     * waiting for them.
+     *
+     * @param run the run that has its resources
+     */
+    protected void releaseResources(TestNode run) {
+        for (Runnable ready : resources.exit(run)) {
+            ready.run();
+        }
+    }
+
+    /**
+     * Start a daemon thread, so a run that never ends doesn't keep the JVM
+     * alive.
+     *
+     * @param runnable what the thread runs
+     */
+    protected void startThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "JUE load " + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * A test under load, with the number of runs it got so far.
+     */
+    protected static class LoadedTest {
+        private final TestNode node;
+        private final AtomicInteger runs = new AtomicInteger();
+
+        LoadedTest(TestNode node) {
+            this.node = node;
+        }
+
+        /**
+         * Get the node for the next run.
+         *
+         * @param parameters what to tag the run with
+         * @return the run
+         */
+        TestNode nextRun(Object... parameters) {
+            return node.forOpenEndedRun(runs.incrementAndGet(), parameters);
+        }
+    }
+
+    /**
+     * Workers that each run one test after the other, going round all the
+     * tests.  The number of workers can be changed while they are running.
+     * A worker whose run times out is replaced, so the load stays the same.
+     * <p/>
+     * A worker skips the tests whose shared resources are taken, and only
+     * pauses when every test is waiting for one.
+     */
+    protected class WorkerPool {
+        private final List<LoadedTest> tests;
+        private final AtomicReferenceArray<Worker> slots;
+        private final Phaser phaser = new Phaser(1);
+        private volatile Object[] tags = new Object[0];
+
+        /**
+         * Create the pool without any workers.
+         *
+         * @param tests      the tests to go round
+         * @param maxWorkers the most workers the pool will have
+         */
+        WorkerPool(List<LoadedTest> tests, int maxWorkers) {
+            this.tests = tests;
+            this.slots = new AtomicReferenceArray<Worker>(maxWorkers);
+        }
+
+        /**
+         * Change the number of workers.  Workers that are no longer needed
+         * finish their current run first.
+         *
+         * @param workers    the number of workers
+         * @param parameters what to tag the runs from now on with
+         */
+        void resize(int workers, Object... parameters) {
+            if (workers < 0 || workers > slots.length())
+                throw new IllegalArgumentException("Can't have " + workers + " workers, the most is " + slots.length());
+
+            tags = parameters;
+
+            for (int i = 0; i < slots.length(); i++) {
+                if (i >= workers) {
+                    slots.set(i, null);
+                } else if (null == slots.get(i)) {
+                    startWorker(i, i % tests.size(), null);
+                }
+            }
+        }
+
+        /**
+         * Stop every worker, and wait for their runs to end.
+         */
+        void stop() {
+            resize(0);
+            phaser.arriveAndAwaitAdvance();
+        }
+
+        /**
+         * Start a worker, unless the slot was changed in the meantime.
+         *
+         * @param slot     the slot of the worker
+         * @param first    the index of the first test to run
+         * @param replaces the worker that is expected in the slot
+         */
+        private void startWorker(int slot, int first, Worker replaces) {
+            Worker worker = new Worker(slot, first);
+
+            if (slots.compareAndSet(slot, replaces, worker)) {
+                phaser.register();
+                startThread(worker);
+            }
+        }
+
+        private class Worker implements Runnable {
+            private final int slot;
+            private volatile int next;
+            private final Runnable replace = new Runnable() {
+                @Override
+                public void run() {
+                    // keep the load up without the stuck thread, whose run
+                    // keeps its resources until it is back
+                    startWorker(slot, next, Worker.this);
+                    phaser.arriveAndDeregister();
+                }
+            };
+
+            Worker(int slot, int first) {
+                this.slot = slot;
+                this.next = first;
+            }
+
+            @Override
+            public void run() {
+                boolean replaced = false;
+
+                try {
+                    while (slots.get(slot) == this && !isCancelled()) {
+                        TestNode run = nextRun();
+                        if (null == run) {
+                            LockSupport.parkNanos(RESOURCE_POLL);
+                            continue;
+                        }
+
+                        replaced = !runOnce(run, replace);
+                        releaseResources(run);
+
+                        if (replaced) {
+                            // the watchdog already arrived for this worker
+                            return;
+                        }
+                    }
+                } finally {
+                    if (!replaced) {
+                        phaser.arriveAndDeregister();
+                    }
+                }
+            }
+
+            /**
+             * Get the next run of the first test, going round from where the
+             * worker left off, whose resources are free.
+             *
+             * @return the run, holding its resources, or <code>null</code> if
+             *         every test is waiting for a resource
+             */
+            private TestNode nextRun() {
+                for (int i = 0; i < tests.size(); i++) {
+                    LoadedTest test = tests.get(next);
+                    next = (next + 1) % tests.size();
+
+                    if (resources.tryEnter(test.node)) {
+                        return test.nextRun(tags);
+                    }
+                }
+
+                return null;
+            }
+        }
+    }
+}
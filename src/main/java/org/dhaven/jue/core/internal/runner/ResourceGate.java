@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.runner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.dhaven.jue.core.internal.TestCase;
+import org.dhaven.jue.core.internal.TestNode;
+
+/**
+ * Keeps the tests that use the same shared resource under the number of
+ * permits the resource has.  A test that can't have all of its resources
+ * is held back, not blocked, and handed to the thread that frees them up,
+ * so the threads go on with other tests in the meantime.
+ * <p/>
+ * The tests waiting for a resource get it in the order they asked for it.
+ * A test that asks later does not get ahead of one that is waiting for any
+ * of the same resources, so a test that needs several of them is not
+ * starved by tests that need one.
+ *
+ * @param <R> the type of the runner for a test
+ */
+class ResourceGate<R> {
+    private final Map<String, Integer> available = new HashMap<String, Integer>();
+    private final List<Deferred<R>> waiting = new LinkedList<Deferred<R>>();
+
+    /**
+     * Create the gate for the resources the tests use.
+     *
+     * @param testCases the test cases of the plan
+     */
+    ResourceGate(Iterable<TestCase> testCases) {
+        for (TestCase testCase : testCases) {
+            for (TestNode node : testCase) {
+                register(node);
+            }
+        }
+    }
+
+    /**
+     * Ask to run a test.  If the test can't have its resources now, the
+     * runner is held back until another test gives them up.
+     *
+     * @param runner the runner to hand back once the test has its resources
+     * @param node   the test
+     * @return <code>true</code> if the test has its resources and may run now
+     */
+    boolean enter(R runner, TestNode node) {
+        Set<String> resources = node.getResources().keySet();
+        if (resources.isEmpty()) {
+            return true;
+        }
+
+        synchronized (this) {
+            addMissing(node);
+            if (take(resources)) {
+                return true;
+            }
+
+            waiting.add(new Deferred<R>(runner, resources));
+            return false;
+        }
+    }
+
+    /**
+     * Take the resources of a test if they are free, without holding the
+     * test back if they are not.
+     *
+     * @param node the test
+     * @return <code>true</code> if the test has its resources and may run now
+     */
+    boolean tryEnter(TestNode node) {
+        Set<String> resources = node.getResources().keySet();
+        if (resources.isEmpty()) {
+            return true;
+        }
+
+        synchronized (this) {
+            addMissing(node);
+            return take(resources);
+        }
+    }
+
+    /**
+     * Give up the resources of a test that is done with them.
+     *
+     * @param node the test
+     * @return the runners that were held back and have their resources now
+     */
+    List<R> exit(TestNode node) {
+        Set<String> resources = node.getResources().keySet();
+        if (resources.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<R> ready = new ArrayList<R>();
+
+        synchronized (this) {
+            for (String resource : resources) {
+                available.put(resource, available.get(resource) + 1);
+            }
+
+            Set<String> blocked = new HashSet<String>();
+            for (Iterator<Deferred<R>> it = waiting.iterator(); it.hasNext(); ) {
+                Deferred<R> deferred = it.next();
+
+                if (isFree(deferred.resources, blocked)) {
+                    takeFree(deferred.resources);
+                    ready.add(deferred.runner);
+                    it.remove();
+                } else {
+                    blocked.addAll(deferred.resources);
+                }
+            }
+        }
+
+        return ready;
+    }
+
+    private synchronized void register(TestNode node) {
+        for (Map.Entry<String, Integer> resource : node.getResources().entrySet()) {
+            Integer permits = available.get(resource.getKey());
+
+            if (null == permits || resource.getValue() < permits) {
+                available.put(resource.getKey(), resource.getValue());
+            }
+        }
+    }
+
+    /**
+     * Make room for the resources of a test that was not in the plan.
+     */
+    private void addMissing(TestNode node) {
+        for (Map.Entry<String, Integer> resource : node.getResources().entrySet()) {
+            if (!available.containsKey(resource.getKey())) {
+                available.put(resource.getKey(), resource.getValue());
+            }
+        }
+    }
+
+    /**
+     * Take the resources if they are free and nobody is waiting for them.
+     */
+    private boolean take(Collection<String> resources) {
+        Set<String> blocked = new HashSet<String>();
+        for (Deferred<R> deferred : waiting) {
+            blocked.addAll(deferred.resources);
+        }
+
+        if (!isFree(resources, blocked)) {
+            return false;
+        }
+
+        takeFree(resources);
+        return true;
+    }
+
+    private boolean isFree(Collection<String> resources, Set<String> blocked) {
+        for (String resource : resources) {
+            Integer permits = available.get(resource);
+
+            if (blocked.contains(resource) || null == permits || permits < 1) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void takeFree(Collection<String> resources) {
+        for (String resource : resources) {
+            available.put(resource, available.get(resource) - 1);
+        }
+    }
+
+    private static class Deferred<R> {
+        private final R runner;
+        private final Set<String> resources;
+
+        Deferred(R runner, Set<String> resources) {
+            this.runner = runner;
+            this.resources = resources;
+        }
+    }
+}
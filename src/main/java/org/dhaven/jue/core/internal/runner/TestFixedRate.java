@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.runner;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.dhaven.jue.core.internal.TestNode;
+
+/**
+ * Starts the tests at a fixed rate, whether or not the runs started before
+ * have finished.  A runner that waits for a run to end before starting the
+ * next one slows down along with the system under test, which hides the
+ * worst of the run times; this one keeps to the schedule.
+ * <p/>
+ * Each run is reported as started at the time it was scheduled for, so the
+ * time a run took includes any delay in starting it.  The results roll the
+ * runs up per test, with the distribution of the run times measured that
+ * way, and the throughput that was actually achieved.
+ * <p/>
+ * The runs go round all the tests of the plan, and each run gets its own
+ * thread, a virtual one where the JVM has them.  There is no limit to the
+ * number of runs in progress, so the configured parallelism does not
+ * apply.  Cancelling the runner, or reaching the failure limit, stops
+ * starting runs.
+ * <p/>
+ * A run whose shared resources are taken gets its thread once they are
+ * given up; the wait counts towards its time like any other delay.
+ */
+public class TestFixedRate extends LoadRunner {
+    private final double rate;
+    private final long duration;
+
+    /**
+     * Create a runner that starts so many runs per second for so long.
+     *
+     * @param rate     the number of runs to start per second
+     * @param duration how long to keep starting runs
+     * @param unit     the unit of the duration
+     */
+    public TestFixedRate(double rate, long duration, TimeUnit unit) {
+        if (!(rate > 0))
+            throw new IllegalArgumentException("The rate must be more than zero: " + rate);
+        if (duration <= 0)
+            throw new IllegalArgumentException("The duration must be more than zero: " + duration);
+        if (null == unit)
+            throw new IllegalArgumentException("The unit of the duration is required");
+
+        this.rate = rate;
+        this.duration = unit.toNanos(duration);
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    @Override
+    protected void load(List<LoadedTest> tests) {
+        final ThreadFactory threads = TestVirtualThreads.createThreadFactory();
+        final Semaphore ended = new Semaphore(0);
+        long start = System.nanoTime();
+        int started = 0;
+
+        while (started < Integer.MAX_VALUE && !isCancelled()) {
+            // compute every start from the first, so rounding doesn't add up
+            final long scheduled = start + (long) (started * 1e9 / rate);
+            if (scheduled - start >= duration) {
+                break;
+            }
+
+            waitUntil(scheduled);
+            if (isCancelled()) {
+                break;
+            }
+
+            final TestNode run = tests.get(started % tests.size()).nextRun();
+            started++;
+
+            // run by the watchdog instead, if the run gets stuck
+            final Runnable end = new Runnable() {
+                @Override
+                public void run() {
+                    ended.release();
+                }
+            };
+            final Runnable invocation = new Runnable() {
+                @Override
+                public void run() {
+                    boolean finished = runOnce(run, scheduled, end);
+
+                    // a stuck run keeps its resources until it is back
+                    releaseResources(run);
+                    if (finished) {
+                        end.run();
+                    }
+                }
+            };
+            Runnable dispatch = new Runnable() {
+                @Override
+                public void run() {
+                    threads.newThread(invocation).start();
+                }
+            };
+
+            if (takeResources(run, dispatch)) {
+                dispatch.run();
+            }
+        }
+
+        ended.acquireUninterruptibly(started);
+    }
+}
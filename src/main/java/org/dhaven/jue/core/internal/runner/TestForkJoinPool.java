@@ -20,136 +20,324 @@
 package org.dhaven.jue.core.internal.runner;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 import org.dhaven.jue.api.description.Description;
 import org.dhaven.jue.api.event.Status;
-import org.dhaven.jue.api.event.TestEvent;
+import org.dhaven.jue.core.Configuration;
 import org.dhaven.jue.core.TestListenerSupport;
 import org.dhaven.jue.core.internal.TestCase;
 import org.dhaven.jue.core.internal.TestNode;
 import org.dhaven.jue.core.internal.TestPlan;
+import org.dhaven.jue.core.internal.Watchdog;
 
 /**
- * Implementation using Java 5's Fork/Join Pool.
+ * Implementation using Java 7's Fork/Join Pool.  Every test is its own task,
+ * no matter which test case it belongs to, so idle threads can steal single
+ * tests from the busy ones.  Even a single test case with many tests will
+ * keep every core busy.  The last test of each test case to finish reports
+ * the test case as done.
+ * <p/>
+ * The tests wait in one queue in plan order, and every task the pool runs
+ * takes the oldest test from it, so the tests at the front of the plan are
+ * started first.  No more than a few tests per thread are handed out at a
+ * time; the next one is taken from the plan as one is done, so a big test
+ * plan does not sit in memory all at once.
+ * <p/>
+ * Nobody joins the test tasks; the run is over when every test is accounted
+ * for.  When a test times out, the watchdog accounts for it, and a
+ * compensating worker takes the place of the stuck thread until it comes
+ * back.  The pool can't be given an extra thread, so the compensating worker
+ * is a thread of its own that takes one test at a time from the queue, and
+ * goes as soon as the stuck thread is back.
+ * <p/>
+ * The tests of a case affine test case are not stolen one by one: the case
+ * is handed out as a single task, which runs the tests in order.
+ * <p/>
+ * A test whose shared resources are taken is set aside, and queued again
+ * by the test that gives them up, so no thread waits for a resource.
+ * <p/>
+ * Once the run is cancelled, the tasks still in the pool report their tests
+ * as terminated instead of running them, and the tests not handed out yet
+ * are reported right away.
  */
 public class TestForkJoinPool implements TestRunner {
+    private static final long POLL = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int RUNS_PER_THREAD = 16;
+    private final AtomicInteger stuckThreads = new AtomicInteger();
+    private final AtomicInteger compensatingWorkers = new AtomicInteger();
     private TestListenerSupport support;
     private ForkJoinPool service;
+    private Queue<NodeRunner> ready;
+    private Semaphore inFlight;
+    private int testsPerCase;
+    private Watchdog watchdog;
+    private long timeout;
+    private Cancellation cancellation;
+    private ResourceGate<NodeRunner> resources;
 
     @Override
-    public void start(TestListenerSupport support) {
+    public void start(TestListenerSupport support, Configuration configuration) {
         this.support = support;
-        this.service = new ForkJoinPool();
+        this.service = new ForkJoinPool(configuration.getParallelism());
+        this.ready = new ConcurrentLinkedQueue<NodeRunner>();
+        this.inFlight = new Semaphore(configuration.getParallelism() * RUNS_PER_THREAD);
+        this.stuckThreads.set(0);
+        this.compensatingWorkers.set(0);
+        this.testsPerCase = configuration.getTestsPerCase();
+        this.watchdog = new Watchdog();
+        this.timeout = configuration.getTimeout();
+        this.cancellation = new Cancellation(configuration.getFailureLimit());
     }
 
     @Override
     public void execute(TestPlan plan) {
-        service.invoke(new RunSolver(plan.export(), support));
+        support.fireTestEvent(Description.JUEName, Status.Started, null);
+
+        resources = new ResourceGate<NodeRunner>(plan.export());
+        List<TestCase> testCases = new ArrayList<TestCase>();
+        int numberOfTests = 0;
+        for (TestCase testCase : plan.export()) {
+            support.fireTestStarted(testCase);
+
+            if (testCase.isEmpty()) {
+                //noinspection ThrowableInstanceNeverThrown
+                support.fireTestFailed(testCase, new AssertionError("Test class does not have any tests: "
+                        + testCase.getDescription().getName()));
+            } else {
+                testCases.add(testCase);
+                numberOfTests += testCase.numberOfRuns();
+            }
+        }
+
+        CountDownLatch latch = new CountDownLatch(numberOfTests);
+        for (TestCase testCase : testCases) {
+            CaseCountdown<NodeRunner> countdown = new CaseCountdown<NodeRunner>(testCase, testsPerCase);
+
+            for (TestNode node : testCase.runs()) {
+                inFlight.acquireUninterruptibly();
+                NodeRunner runner = new NodeRunner(node, countdown, latch, testCase.isCaseAffine(), false);
+
+                if (!countdown.dispatch(runner)) {
+                    // the thread that runs the test before it runs this one
+                } else if (cancellation.isCancelled() && !runner.admitted) {
+                    node.cancel(support);
+                    countdown.testSkipped(support);
+                    latch.countDown();
+                    inFlight.release();
+                } else {
+                    submit(runner);
+                }
+            }
+        }
+
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            // do nothing, we are interrupting the run
+        }
+
+        support.fireTestEvent(Description.JUEName, Status.Terminated, null);
+    }
+
+    @Override
+    public void cancel() {
+        cancellation.cancel();
     }
 
     @Override
     public void shutdown() {
         service.shutdown();
+        watchdog.shutdown();
     }
 
-    private static int getNumberOfProcessors() {
-        return Runtime.getRuntime().availableProcessors();
+    /**
+     * Queue a test and give the pool a task to run it.  Whoever takes the
+     * task runs the oldest queued test, which need not be this one.
+     *
+     * @param runner the test
+     */
+    private void submit(NodeRunner runner) {
+        final Queue<NodeRunner> queue = ready;
+
+        queue.add(runner);
+        service.execute(new Runnable() {
+            @Override
+            public void run() {
+                runNext(queue);
+            }
+        });
     }
 
-    private static class RunSolver extends RecursiveAction {
-		private static final long serialVersionUID = -4093751896814113100L;
-		private final Collection<TestCase> plan;
-        private final TestListenerSupport support;
+    private static void runNext(Queue<NodeRunner> queue) {
+        NodeRunner runner = queue.poll();
 
-        public RunSolver(Collection<TestCase> plan, TestListenerSupport support) {
-            this.plan = plan;
-            this.support = support;
+        if (null != runner) {
+            runner.run();
         }
+    }
 
-        @Override
-        protected void compute() {
-            int threshold = plan.size() / TestForkJoinPool.getNumberOfProcessors();
-            boolean runParallel = threshold > 2;
+    /**
+     * Start a worker outside the pool to take the place of a thread stuck
+     * in a test that timed out.
+     */
+    private void compensate() {
+        stuckThreads.incrementAndGet();
+        compensatingWorkers.incrementAndGet();
 
-            support.fireTestEvent(new TestEvent(Description.JUEName, Status.Started));
+        final ForkJoinPool pool = service;
+        final Queue<NodeRunner> queue = ready;
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                helpOut(pool, queue);
+            }
+        }, "JUE compensating worker");
+        thread.setDaemon(true);
+        thread.start();
+    }
 
-            Collection<RecursiveAction> actions = new ArrayList<RecursiveAction>(plan.size());
-            for (TestCase testCase : plan) {
-                TestCaseRunner runner = new TestCaseRunner(testCase, support);
-                if (runParallel) {
-                    actions.add(runner);
-                } else {
-                    runner.compute();
+    /**
+     * Run the queued tests one at a time, for as long as there are more
+     * compensating workers than stuck threads.
+     *
+     * @param pool  the pool the tests belong to
+     * @param queue the tests waiting for a thread
+     */
+    private void helpOut(ForkJoinPool pool, Queue<NodeRunner> queue) {
+        while (!pool.isShutdown()) {
+            int helping = compensatingWorkers.get();
+            if (helping > stuckThreads.get()) {
+                if (compensatingWorkers.compareAndSet(helping, helping - 1)) {
+                    return;
                 }
+                continue;
             }
 
-            if (runParallel) {
-                invokeAll(actions);
+            NodeRunner runner = queue.poll();
+            if (null == runner) {
+                LockSupport.parkNanos(POLL);
+            } else {
+                runner.run();
             }
-
-            support.fireTestEvent(new TestEvent(Description.JUEName, Status.Terminated));
         }
     }
 
-    private static class TestCaseRunner extends RecursiveAction {
-		private static final long serialVersionUID = -6717716230263567796L;
-		private final TestCase testCase;
-        private final TestListenerSupport support;
+    private class NodeRunner implements Runnable {
+        private final TestNode node;
+        private final CaseCountdown<NodeRunner> countdown;
+        private final CountDownLatch latch;
+        private final boolean admitted;
+        private final boolean cleared;
 
-        public TestCaseRunner(TestCase testCase, TestListenerSupport support) {
-            this.testCase = testCase;
-            this.support = support;
+        /**
+         * Create the task for a test.
+         *
+         * @param node      the test
+         * @param countdown the countdown for the test's case
+         * @param latch     the countdown for the whole plan
+         * @param admitted  <code>true</code> if the countdown already let the
+         *                  test run
+         * @param cleared   <code>true</code> if the test already has its
+         *                  resources
+         */
+        public NodeRunner(TestNode node, CaseCountdown<NodeRunner> countdown, CountDownLatch latch,
+                          boolean admitted, boolean cleared) {
+            this.node = node;
+            this.countdown = countdown;
+            this.latch = latch;
+            this.admitted = admitted;
+            this.cleared = cleared;
         }
 
+        /**
+         * Run the test, unless too many tests of its case are running.  In
+         * that case the thread that finishes one of them runs this one, so
+         * no thread waits for a turn.
+         */
         @Override
-        protected void compute() {
-            int threshold = testCase.size() / TestForkJoinPool.getNumberOfProcessors();
-            boolean runParallel = threshold > 2;
+        public void run() {
+            if (!admitted && !countdown.enter(this)) {
+                return;
+            }
 
-            support.fireTestEvent(new TestEvent(testCase.getDescription(), Status.Started));
+            NodeRunner runner = this;
+            while (null != runner) {
+                runner = runner.runTest();
+            }
+        }
 
-            if (testCase.isEmpty()) {
-                //noinspection ThrowableInstanceNeverThrown
-                support.fireTestEvent(new TestEvent(testCase.getDescription(), Status.Failed,
-                        new AssertionError("Test class does not have any tests: "
-                                + testCase.getDescription().getName())));
-            } else {
-                Collection<RecursiveAction> actions = new ArrayList<RecursiveAction>(testCase.size());
-                for (TestNode node : testCase) {
-                    NodeRunner runner = new NodeRunner(node, support);
-
-                    if (runParallel) {
-                        actions.add(runner);
-                    } else {
-                        runner.compute();
-                    }
-                }
+        /**
+         * Run the test and account for it.
+         *
+         * @return a test of the same case to run next, or <code>null</code>
+         */
+        private NodeRunner runTest() {
+            if (cancellation.isCancelled()) {
+                node.cancel(support);
+                return done(cleared);
+            }
 
-                if (runParallel) {
-                    invokeAll(actions);
-                }
+            if (!cleared && !resources.enter(new NodeRunner(node, countdown, latch, true, true), node)) {
+                // the test that gives up the resources queues this one again
+                return null;
+            }
 
-                support.fireTestEvent(new TestEvent(testCase.getDescription(), Status.Terminated));
+            long limit = node.getTimeout(timeout);
+            Watchdog.Watch watch = limit <= 0 ? Watchdog.UNWATCHED : watchdog.watch(node, limit, support,
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            // carry on without the stuck thread
+                            compensate();
+                            NodeRunner next = done(false);
+                            if (null != next) {
+                                submit(new NodeRunner(next.node, countdown, latch, true, false));
+                            }
+                        }
+                    });
+
+            cancellation.testEnded(node.run(support, watch));
+
+            if (watch.finish()) {
+                return done(true);
             }
+
+            // the thread is back, so its resources are free at last, and
+            // the compensating worker can go
+            releaseResources();
+            stuckThreads.decrementAndGet();
+            return null;
         }
-    }
 
-    private static class NodeRunner extends RecursiveAction {
-		private static final long serialVersionUID = 6775236283531536301L;
-		private TestNode node;
-        private TestListenerSupport support;
+        /**
+         * Account for the test.  A test that timed out keeps its resources
+         * until its thread is back.
+         */
+        private NodeRunner done(boolean holdsResources) {
+            if (holdsResources) {
+                releaseResources();
+            }
 
-        public NodeRunner(TestNode node, TestListenerSupport support) {
-            this.node = node;
-            this.support = support;
+            NodeRunner next = countdown.testDone(support);
+            latch.countDown();
+            inFlight.release();
+
+            return next;
         }
 
-        @Override
-        protected void compute() {
-            node.run(support);
+        private void releaseResources() {
+            for (NodeRunner waiting : resources.exit(node)) {
+                submit(waiting);
+            }
         }
     }
 }
@@ -0,0 +1,508 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.runner;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import org.dhaven.jue.api.description.Description;
+import org.dhaven.jue.api.description.Type;
+import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.api.event.TestEvent;
+import org.dhaven.jue.api.journal.EventStreamReader;
+import org.dhaven.jue.core.Configuration;
+import org.dhaven.jue.core.TestListenerSupport;
+import org.dhaven.jue.core.internal.TestCase;
+import org.dhaven.jue.core.internal.TestNode;
+import org.dhaven.jue.core.internal.TestPlan;
+
+/**
+ * Splits the test cases of the plan over several JVMs started on this
+ * machine, so a test case that fills the heap or stalls the garbage
+ * collector only slows down the test cases that share its JVM, and a test
+ * that brings its JVM down does not take the run with it.
+ * <p/>
+ * The test cases are dealt out so every JVM gets about the same number of
+ * test runs.  The limits of a shared resource only hold within one JVM, so
+ * test cases that use the same {@link org.dhaven.jue.UsesResource resource}
+ * all go to the same JVM.  Each child runs its share with an engine of its
+ * own, using the same configuration, and streams the events back over a
+ * socket on the loopback interface.  The child is sent the tests of its
+ * share in the order they were planned here, so it runs the same tests, in
+ * the same order, as this JVM would have.  The events go out to the
+ * listeners as if the tests had run here, with their time stamps moved onto
+ * this JVM's clock.
+ * <p/>
+ * When a child ends without finishing its share, the tests it was running
+ * and the ones it never got to are reported as terminated, with a failure
+ * that says what happened.  Cancelling the run, or reaching the failure
+ * limit of the configuration, tells every child to stop starting tests.
+ */
+public class TestForkedJvms implements TestRunner {
+    private static final int CONNECT_POLL = 100;
+    private final int forks;
+    private final List<Fork> running = new CopyOnWriteArrayList<Fork>();
+    private TestListenerSupport support;
+    private Configuration configuration;
+    private Cancellation cancellation;
+
+    /**
+     * Create a runner that forks so many JVMs.
+     *
+     * @param forks the number of JVMs to split the plan over
+     */
+    public TestForkedJvms(int forks) {
+        if (forks < 1)
+            throw new IllegalArgumentException("Need at least one JVM to fork: " + forks);
+
+        this.forks = forks;
+    }
+
+    public int getForks() {
+        return forks;
+    }
+
+    @Override
+    public void start(TestListenerSupport support, Configuration configuration) {
+        this.support = support;
+        this.configuration = configuration;
+        this.cancellation = new Cancellation(configuration.getFailureLimit());
+        running.clear();
+    }
+
+    @Override
+    public void execute(TestPlan plan) {
+        support.fireTestEvent(Description.JUEName, Status.Started, null);
+
+        List<List<TestCase>> shares = share(plan.export());
+        String classPath = classPath();
+        CountDownLatch latch = new CountDownLatch(shares.size());
+
+        for (int i = 0; i < shares.size(); i++) {
+            Fork fork = new Fork(shares.get(i), classPath, latch);
+            running.add(fork);
+
+            Thread thread = new Thread(fork, "JUE fork " + (i + 1));
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            // do nothing, we are interrupting the run
+        }
+
+        support.fireTestEvent(Description.JUEName, Status.Terminated, null);
+    }
+
+    @Override
+    public void cancel() {
+        cancellation.cancel();
+
+        for (Fork fork : running) {
+            fork.cancel();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        for (Fork fork : running) {
+            fork.destroy();
+        }
+        running.clear();
+    }
+
+    /**
+     * Deal the test cases out over the JVMs, the biggest first, each to the
+     * JVM with the fewest runs so far.  Test cases that share a resource are
+     * dealt out together.  Each share keeps the order of the plan.
+     *
+     * @param testCases the test cases in plan order
+     * @return the test cases for each JVM
+     */
+    List<List<TestCase>> share(Collection<TestCase> testCases) {
+        List<TestCase> planned = new ArrayList<TestCase>(testCases);
+        final Map<TestCase, Integer> positions = new HashMap<TestCase, Integer>();
+        for (TestCase testCase : planned) {
+            positions.put(testCase, positions.size());
+        }
+
+        List<List<TestCase>> biggestFirst = groupByResource(planned);
+        Collections.sort(biggestFirst, new Comparator<List<TestCase>>() {
+            @Override
+            public int compare(List<TestCase> one, List<TestCase> two) {
+                return numberOfRuns(two) - numberOfRuns(one);
+            }
+        });
+
+        int count = Math.min(forks, biggestFirst.size());
+        List<List<TestCase>> shares = new ArrayList<List<TestCase>>(count);
+        int[] runs = new int[count];
+        for (int i = 0; i < count; i++) {
+            shares.add(new ArrayList<TestCase>());
+        }
+
+        for (List<TestCase> group : biggestFirst) {
+            int least = 0;
+            for (int i = 1; i < count; i++) {
+                if (runs[i] < runs[least]) {
+                    least = i;
+                }
+            }
+
+            shares.get(least).addAll(group);
+            runs[least] += numberOfRuns(group);
+        }
+
+        for (List<TestCase> share : shares) {
+            Collections.sort(share, new Comparator<TestCase>() {
+                @Override
+                public int compare(TestCase one, TestCase two) {
+                    return positions.get(one) - positions.get(two);
+                }
+            });
+        }
+
+        return shares;
+    }
+
+    /**
+     * Group the test cases that use the same resources, directly or through
+     * other test cases.
+     */
+    private static List<List<TestCase>> groupByResource(List<TestCase> testCases) {
+        int[] groups = new int[testCases.size()];
+        Map<String, Integer> users = new HashMap<String, Integer>();
+
+        for (int i = 0; i < groups.length; i++) {
+            groups[i] = i;
+
+            for (TestNode node : testCases.get(i)) {
+                for (String resource : node.getResources().keySet()) {
+                    Integer user = users.get(resource);
+
+                    if (null == user) {
+                        users.put(resource, i);
+                    } else {
+                        // join the groups, keeping the lower one
+                        int one = groupOf(groups, user);
+                        int two = groupOf(groups, i);
+                        groups[Math.max(one, two)] = Math.min(one, two);
+                    }
+                }
+            }
+        }
+
+        Map<Integer, List<TestCase>> grouped = new LinkedHashMap<Integer, List<TestCase>>();
+        for (int i = 0; i < groups.length; i++) {
+            int group = groupOf(groups, i);
+            List<TestCase> members = grouped.get(group);
+            if (null == members) {
+                members = new ArrayList<TestCase>();
+                grouped.put(group, members);
+            }
+            members.add(testCases.get(i));
+        }
+
+        return new ArrayList<List<TestCase>>(grouped.values());
+    }
+
+    private static int groupOf(int[] groups, int index) {
+        while (groups[index] != index) {
+            index = groups[index];
+        }
+
+        return index;
+    }
+
+    private static int numberOfRuns(List<TestCase> testCases) {
+        int runs = 0;
+
+        for (TestCase testCase : testCases) {
+            runs += testCase.numberOfRuns();
+        }
+
+        return runs;
+    }
+
+    /**
+     * Get the class path for the children: this JVM's, plus wherever the
+     * request loads the test classes from.
+     */
+    private static String classPath() {
+        StringBuilder classPath = new StringBuilder(System.getProperty("java.class.path"));
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+
+        if (loader instanceof URLClassLoader) {
+            for (URL url : URLClassLoader.class.cast(loader).getURLs()) {
+                if ("file".equals(url.getProtocol())) {
+                    classPath.append(File.pathSeparatorChar).append(new File(url.getPath()).getPath());
+                }
+            }
+        }
+
+        return classPath.toString();
+    }
+
+    /**
+     * One child JVM, and the thread following its events.
+     */
+    private class Fork implements Runnable {
+        private final List<TestCase> share;
+        private final String classPath;
+        private final CountDownLatch latch;
+        private final Set<Description> seen = new HashSet<Description>();
+        private final Set<Description> open = new HashSet<Description>();
+        private volatile Process process;
+        private volatile OutputStream control;
+        private volatile boolean cancelled = false;
+
+        Fork(List<TestCase> share, String classPath, CountDownLatch latch) {
+            this.share = share;
+            this.classPath = classPath;
+            this.latch = latch;
+        }
+
+        @Override
+        public void run() {
+            String problem;
+
+            try {
+                problem = fork();
+            } catch (Exception e) {
+                problem = "Could not run the forked JVM: " + e;
+            } finally {
+                destroy();
+            }
+
+            if (null != problem) {
+                account(cancelled ? null : new AssertionError(problem));
+            }
+
+            latch.countDown();
+        }
+
+        /**
+         * Run the child and follow its events.
+         *
+         * @return what went wrong, or <code>null</code> if the child finished
+         *         its share
+         */
+        private String fork() throws IOException, InterruptedException {
+            ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+            Socket socket;
+
+            try {
+                process = launch(server.getLocalPort());
+                socket = accept(server);
+            } finally {
+                server.close();
+            }
+
+            if (null == socket) {
+                return "The forked JVM exited with code " + process.waitFor() + " before it connected";
+            }
+
+            boolean complete;
+            try {
+                sendTests(socket);
+                control = socket.getOutputStream();
+                if (cancelled) {
+                    cancel();
+                }
+
+                complete = follow(socket);
+            } finally {
+                socket.close();
+            }
+
+            int exitCode = process.waitFor();
+            return complete ? null : "The forked JVM exited with code " + exitCode + " before it finished";
+        }
+
+        private Process launch(int port) throws IOException {
+            List<String> command = new ArrayList<String>();
+            command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+            command.add("-cp");
+            command.add(classPath);
+            command.add(ForkedEngine.class.getName());
+            command.add(String.valueOf(port));
+            command.addAll(ForkedEngine.options(configuration, support.isCpuTimeMeasured()));
+            for (TestCase testCase : share) {
+                command.add(testCase.getDescription().getName());
+            }
+
+            return new ProcessBuilder(command).inheritIO().start();
+        }
+
+        /**
+         * Send the child the names of the tests of its share, in plan order.
+         */
+        private void sendTests(Socket socket) throws IOException {
+            List<String> testNames = new ArrayList<String>();
+            for (TestCase testCase : share) {
+                for (TestNode node : testCase) {
+                    testNames.add(node.getDescription().getName());
+                }
+            }
+
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(testNames.size());
+            for (String testName : testNames) {
+                out.writeUTF(testName);
+            }
+            out.flush();
+        }
+
+        /**
+         * Wait for the child to connect, as long as it is alive.
+         *
+         * @return the connection, or <code>null</code> if the child died
+         */
+        private Socket accept(ServerSocket server) throws IOException {
+            server.setSoTimeout(CONNECT_POLL);
+
+            while (true) {
+                try {
+                    return server.accept();
+                } catch (SocketTimeoutException e) {
+                    if (!process.isAlive()) {
+                        return null;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Pass the child's events on until its stream ends.
+         *
+         * @return <code>true</code> if the child marked the end of its stream
+         */
+        private boolean follow(Socket socket) throws IOException {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            long offset = System.nanoTime() - in.readLong();
+            EventStreamReader reader = new EventStreamReader(in);
+
+            for (TestEvent event = reader.next(); null != event; event = reader.next()) {
+                if (event.getType() == Type.System) {
+                    // this runner reports the run itself
+                    continue;
+                }
+
+                Description description = event.getDescription();
+                seen.add(description);
+                if (event.getStatus() == Status.Started) {
+                    open.add(description);
+                } else {
+                    open.remove(description);
+                }
+
+                support.fireTestEvent(new TestEvent(description, event.getStatus(), event.getFailure(),
+                        event.getNanoseconds() + offset, event.getThreadId(),
+                        event.getCpuTime(), event.getUserTime()));
+
+                if (event.getType() == Type.Test && event.getStatus() != Status.Started) {
+                    cancellation.testEnded(event.getStatus());
+                    if (cancellation.isCancelled()) {
+                        TestForkedJvms.this.cancel();
+                    }
+                }
+            }
+
+            return reader.isComplete();
+        }
+
+        /**
+         * Report whatever the child left unfinished as terminated: first the
+         * tests it was running, then the ones it never started, then the test
+         * cases.
+         */
+        private void account(Throwable failure) {
+            for (Description description : open) {
+                if (description.getType() == Type.Test) {
+                    support.fireTestEvent(description, Status.Terminated, failure);
+                }
+            }
+
+            for (TestCase testCase : share) {
+                if (!seen.contains(testCase.getDescription())) {
+                    support.fireTestStarted(testCase);
+                }
+
+                for (TestNode node : testCase.runs()) {
+                    if (!seen.contains(node.getDescription())) {
+                        support.fireTestStarted(node);
+                        support.fireTestEvent(node.getDescription(), Status.Terminated, failure);
+                    }
+                }
+
+                if (!seen.contains(testCase.getDescription()) || open.contains(testCase.getDescription())) {
+                    support.fireTestTerminated(testCase);
+                }
+            }
+        }
+
+        /**
+         * Tell the child to stop starting tests.
+         */
+        void cancel() {
+            cancelled = true;
+
+            OutputStream out = control;
+            if (null != out) {
+                try {
+                    out.write(1);
+                    out.flush();
+                } catch (IOException e) {
+                    // the child is gone already
+                }
+            }
+        }
+
+        void destroy() {
+            Process child = process;
+            if (null != child) {
+                child.destroy();
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.runner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steps up the load to find where the throughput flattens out and the run
+ * times start to climb.  The tests are run by a number of workers that
+ * changes in steps, each step lasting the same time, all in one process so
+ * the warm up is only paid once.  By default the number of workers doubles
+ * from one to the configured parallelism: 1, 2, 4, and so on.
+ * <p/>
+ * Every run is tagged with its step and the number of workers in the step,
+ * so the results have a summary for each step of each test.  Otherwise the
+ * runner works like {@link TestSustainedLoad}.
+ */
+public class TestRampUp extends LoadRunner {
+    private final long dwell;
+    private final int[] steps;
+
+    /**
+     * Create a runner that doubles the number of workers up to the
+     * configured parallelism.
+     *
+     * @param dwell how long each step lasts
+     * @param unit  the unit of the time
+     */
+    public TestRampUp(long dwell, TimeUnit unit) {
+        this(dwell, unit, new int[0]);
+    }
+
+    /**
+     * Create a runner that goes through the given numbers of workers.
+     *
+     * @param dwell how long each step lasts
+     * @param unit  the unit of the time
+     * @param steps the number of workers in each step
+     */
+    public TestRampUp(long dwell, TimeUnit unit, int... steps) {
+        if (dwell <= 0)
+            throw new IllegalArgumentException("Each step must last more than zero: " + dwell);
+        if (null == unit)
+            throw new IllegalArgumentException("The unit of the time is required");
+        for (int step : steps) {
+            if (step < 1)
+                throw new IllegalArgumentException("Each step needs at least one worker: " + step);
+        }
+
+        this.dwell = unit.toNanos(dwell);
+        this.steps = steps.clone();
+    }
+
+    /**
+     * Get the number of workers in each step.
+     *
+     * @return the steps
+     */
+    public int[] getSteps() {
+        return steps.length > 0 ? steps.clone() : doubling(getParallelism());
+    }
+
+    @Override
+    protected void load(List<LoadedTest> tests) {
+        int[] workers = getSteps();
+        int most = 0;
+        for (int step : workers) {
+            most = Math.max(most, step);
+        }
+
+        WorkerPool pool = new WorkerPool(tests, most);
+        long deadline = System.nanoTime();
+
+        for (int step = 0; step < workers.length && !isCancelled(); step++) {
+            deadline += dwell;
+            pool.resize(workers[step], "step " + (step + 1), workers[step] + " workers");
+            waitUntil(deadline);
+        }
+
+        pool.stop();
+    }
+
+    /**
+     * Double the number of workers from one up to the most, which is the last
+     * step even if it is not a power of two.
+     *
+     * @param most the number of workers in the last step
+     * @return the steps
+     */
+    static int[] doubling(int most) {
+        List<Integer> steps = new ArrayList<Integer>();
+        for (int workers = 1; workers < most; workers *= 2) {
+            steps.add(workers);
+        }
+        steps.add(most);
+
+        int[] result = new int[steps.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = steps.get(i);
+        }
+
+        return result;
+    }
+}
@@ -19,6 +19,7 @@
 
 package org.dhaven.jue.core.internal.runner;
 
+import org.dhaven.jue.core.Configuration;
 import org.dhaven.jue.core.TestListenerSupport;
 import org.dhaven.jue.core.internal.TestPlan;
 
@@ -28,10 +29,13 @@ import org.dhaven.jue.core.internal.TestPlan;
 public interface TestRunner {
     /**
      * Initialize any thread pools, etc. using the configured TestListenerSupport.
+     * The runner should run as many tests at once as the configuration's
+     * parallelism says, and respect its limit on tests per test case.
      *
-     * @param support the test listener support to use for every node
+     * @param support       the test listener support to use for every node
+     * @param configuration how much the runner may do at once
      */
-    void start(TestListenerSupport support);
+    void start(TestListenerSupport support, Configuration configuration);
 
     /**
      * Execute the test plan as provided.
@@ -40,6 +44,14 @@ public interface TestRunner {
      */
     void execute(TestPlan plan);
 
+    /**
+     * Stop starting tests.  The tests that are running finish as usual, and
+     * the ones that did not start yet are reported as terminated, so the
+     * results still account for every test of the plan.  The runner cancels
+     * itself when the configuration's failure limit is reached.
+     */
+    void cancel();
+
     /**
      * Shutdown the test internal, waiting for any running tests to complete,
      * clean up any background threads, etc.
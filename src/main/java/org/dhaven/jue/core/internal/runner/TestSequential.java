@@ -21,53 +21,75 @@ package org.dhaven.jue.core.internal.runner;
 
 import org.dhaven.jue.api.description.Description;
 import org.dhaven.jue.api.event.Status;
-import org.dhaven.jue.api.event.TestEvent;
+import org.dhaven.jue.core.Configuration;
 import org.dhaven.jue.core.TestListenerSupport;
 import org.dhaven.jue.core.internal.TestCase;
 import org.dhaven.jue.core.internal.TestNode;
 import org.dhaven.jue.core.internal.TestPlan;
+import org.dhaven.jue.core.internal.Watchdog;
 
 /**
  * Run the tests sequentially, just like would happen with traditional JUnit.
+ * The configured parallelism does not apply.  Tests that time out are
+ * interrupted and reported, but since every test runs on the calling thread,
+ * a test that ignores the interrupt still holds up the rest.
+ * <p/>
+ * Once the run is cancelled, the remaining tests are reported as terminated
+ * without being run.
  */
 public class TestSequential implements TestRunner {
     private TestListenerSupport support;
+    private Watchdog watchdog;
+    private long timeout;
+    private Cancellation cancellation;
 
     @Override
-    public void start(TestListenerSupport support) {
+    public void start(TestListenerSupport support, Configuration configuration) {
         this.support = support;
+        this.watchdog = new Watchdog();
+        this.timeout = configuration.getTimeout();
+        this.cancellation = new Cancellation(configuration.getFailureLimit());
     }
 
     @Override
     public void execute(TestPlan plan) {
-        support.fireTestEvent(new TestEvent(Description.JUEName, Status.Started));
+        support.fireTestEvent(Description.JUEName, Status.Started, null);
 
         for (TestCase testCase : plan.export()) {
             executeTestCase(testCase);
         }
 
-        support.fireTestEvent(new TestEvent(Description.JUEName, Status.Terminated));
+        support.fireTestEvent(Description.JUEName, Status.Terminated, null);
     }
 
     private void executeTestCase(TestCase testCase) {
-        support.fireTestEvent(new TestEvent(testCase.getDescription(), Status.Started));
+        support.fireTestStarted(testCase);
 
         if (testCase.isEmpty()) {
             //noinspection ThrowableInstanceNeverThrown
-            support.fireTestEvent(new TestEvent(testCase.getDescription(), Status.Failed,
-                    new AssertionError("Test class does not have any tests: "
-                            + testCase.getDescription().getName())));
+            support.fireTestFailed(testCase, new AssertionError("Test class does not have any tests: "
+                    + testCase.getDescription().getName()));
         } else {
-            for (TestNode node : testCase) {
-                node.run(support);
+            for (TestNode node : testCase.runs()) {
+                if (cancellation.isCancelled()) {
+                    node.cancel(support);
+                } else {
+                    cancellation.testEnded(node.run(support,
+                            watchdog.watch(node, node.getTimeout(timeout), support, null)));
+                }
             }
 
-            support.fireTestEvent(new TestEvent(testCase.getDescription(), Status.Terminated));
+            support.fireTestTerminated(testCase);
         }
     }
 
+    @Override
+    public void cancel() {
+        cancellation.cancel();
+    }
+
     @Override
     public void shutdown() {
-        // nothing to do
+        watchdog.shutdown();
     }
 }
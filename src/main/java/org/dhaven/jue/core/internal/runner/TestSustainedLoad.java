@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.runner;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Puts the tests under sustained load: as many workers as the configured
+ * parallelism run the tests over and over until the configured time is up.
+ * Each worker goes round all the tests of the plan, starting at a different
+ * one, so every test gets about the same share of the load.
+ * <p/>
+ * The results roll the runs up per test, with the throughput, the error
+ * rate, and the distribution of the run times.  Ignored tests are reported
+ * once.
+ * <p/>
+ * A run that times out gets its worker replaced, so the load stays the
+ * same.  Cancelling the runner, or reaching the failure limit, ends the load
+ * early.
+ */
+public class TestSustainedLoad extends LoadRunner {
+    private final long duration;
+
+    /**
+     * Create a runner that keeps the tests running for so long.
+     *
+     * @param duration how long to run the tests
+     * @param unit     the unit of the duration
+     */
+    public TestSustainedLoad(long duration, TimeUnit unit) {
+        if (duration <= 0)
+            throw new IllegalArgumentException("The duration must be more than zero: " + duration);
+        if (null == unit)
+            throw new IllegalArgumentException("The unit of the duration is required");
+
+        this.duration = unit.toNanos(duration);
+    }
+
+    @Override
+    protected void load(List<LoadedTest> tests) {
+        long deadline = System.nanoTime() + duration;
+        WorkerPool workers = new WorkerPool(tests, getParallelism());
+
+        workers.resize(getParallelism());
+        waitUntil(deadline);
+        workers.stop();
+    }
+}
@@ -19,39 +19,99 @@
 
 package org.dhaven.jue.core.internal.runner;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.dhaven.jue.api.description.Description;
 import org.dhaven.jue.api.event.Status;
-import org.dhaven.jue.api.event.TestEvent;
+import org.dhaven.jue.core.Configuration;
 import org.dhaven.jue.core.TestListenerSupport;
 import org.dhaven.jue.core.internal.TestCase;
 import org.dhaven.jue.core.internal.TestNode;
 import org.dhaven.jue.core.internal.TestPlan;
+import org.dhaven.jue.core.internal.Watchdog;
 
 /**
- * Provides the execution model for running the tests.
+ * Provides the execution model for running the tests.  The pool has exactly
+ * as many threads as the configured parallelism, and every one of them runs
+ * tests; nobody waits on a test case to finish.  Instead, whichever thread
+ * finishes the last test of a test case reports the test case as done.
+ * <p/>
+ * The queue of tests waiting for a thread is bounded, so a big test plan
+ * does not sit in memory all at once.  When the queue is full, the thread
+ * handing out the tests waits for room.
+ * <p/>
+ * A test that times out leaves its thread stuck until the test notices the
+ * interrupt.  The pool gets an extra thread for as long as that lasts, so the
+ * parallelism stays what it was configured to be.
+ * <p/>
+ * A case affine test case takes up one place in the queue, and the thread
+ * that picks it up runs all of its tests in order.
+ * <p/>
+ * A test whose shared resources are taken is set aside when a thread picks
+ * it up, and the thread moves on.  The test is queued again once the test
+ * holding the resources is done.
+ * <p/>
+ * Once the run is cancelled, the queued tests are reported as terminated
+ * instead of being run, and the tests not queued yet are reported right
+ * away.
  */
 public class TestThreadPool implements TestRunner {
+    private static final int QUEUE_PER_THREAD = 16;
     private ThreadPoolExecutor service;
     private TestListenerSupport support;
-
-    private int getNumberOfThreads() {
-        return Runtime.getRuntime().availableProcessors();
-    }
+    private int testsPerCase;
+    private int threads;
+    private int stuckThreads = 0;
+    private Watchdog watchdog;
+    private long timeout;
+    private Cancellation cancellation;
+    private ResourceGate<NodeRunner> resources;
 
     public void execute(TestPlan plan) {
         Collection<TestCase> testPlan = plan.export();
-        CountDownLatch latch = new CountDownLatch(testPlan.size());
+        resources = new ResourceGate<NodeRunner>(testPlan);
+        int numberOfTests = 0;
+        for (TestCase testCase : testPlan) {
+            numberOfTests += testCase.numberOfRuns();
+        }
+        CountDownLatch latch = new CountDownLatch(numberOfTests);
+
+        support.fireTestEvent(Description.JUEName, Status.Started, null);
 
-        support.fireTestEvent(new TestEvent(Description.JUEName, Status.Started));
+        for (TestCase testCase : testPlan) {
+            support.fireTestStarted(testCase);
+
+            if (testCase.isEmpty()) {
+                //noinspection ThrowableInstanceNeverThrown
+                support.fireTestFailed(testCase, new AssertionError("Test class does not have any tests: "
+                        + testCase.getDescription().getName()));
+                continue;
+            }
 
-        for (TestCase node : testPlan) {
-            service.execute(new TestCaseRunner(node, latch, support));
+            CaseCountdown<NodeRunner> countdown = new CaseCountdown<NodeRunner>(testCase, testsPerCase);
+            for (TestNode node : testCase.runs()) {
+                NodeRunner runner = new NodeRunner(node, latch, countdown, testCase.isCaseAffine(), false);
+
+                if (!countdown.dispatch(runner)) {
+                    // the thread that runs the test before it runs this one
+                } else if (cancellation.isCancelled() && !runner.admitted) {
+                    node.cancel(support);
+                    countdown.testSkipped(support);
+                    latch.countDown();
+                } else {
+                    service.execute(runner);
+                }
+            }
         }
 
         try {
@@ -60,75 +120,241 @@ public class TestThreadPool implements TestRunner {
             // do nothing, we are interrupting the run
         }
 
-        support.fireTestEvent(new TestEvent(Description.JUEName, Status.Terminated));
+        support.fireTestEvent(Description.JUEName, Status.Terminated, null);
     }
 
-    public void start(TestListenerSupport support) {
+    public void start(TestListenerSupport support, Configuration configuration) {
+        this.threads = configuration.getParallelism();
+        this.stuckThreads = 0;
         this.support = support;
-        service = new ThreadPoolExecutor(getNumberOfThreads(), Short.MAX_VALUE,
+        this.testsPerCase = configuration.getTestsPerCase();
+        this.watchdog = new Watchdog();
+        this.timeout = configuration.getTimeout();
+        this.cancellation = new Cancellation(configuration.getFailureLimit());
+        service = new ThreadPoolExecutor(threads, threads,
                 60L, TimeUnit.SECONDS,
-                new SynchronousQueue<Runnable>());
+                new ArrayBlockingQueue<Runnable>(threads * QUEUE_PER_THREAD),
+                new TestThreadFactory(),
+                new WaitForRoom());
+    }
+
+    public void cancel() {
+        cancellation.cancel();
     }
 
     public void shutdown() {
         service.shutdown();
+        watchdog.shutdown();
     }
 
-    private class NodeRunner implements Runnable {
-        private final TestNode node;
-        private final TestListenerSupport support;
-        private final CountDownLatch barrier;
+    /**
+     * Change the number of threads in the pool, for as long as a thread is
+     * stuck in a test that timed out.  The stuck thread may come back before
+     * the watchdog adds its replacement, so the pool never shrinks below the
+     * configured size.
+     *
+     * @param change the number of threads to add, or remove if negative
+     */
+    private synchronized void resize(int change) {
+        stuckThreads += change;
+        int size = threads + Math.max(0, stuckThreads);
 
-        public NodeRunner(TestNode node, CountDownLatch barrier, TestListenerSupport support) {
-            this.node = node;
-            this.support = support;
-            this.barrier = barrier;
+        if (size > service.getMaximumPoolSize()) {
+            service.setMaximumPoolSize(size);
+            service.setCorePoolSize(size);
+        } else {
+            service.setCorePoolSize(size);
+            service.setMaximumPoolSize(size);
+        }
+    }
+
+    /**
+     * Queue a test without waiting for room.
+     *
+     * @param runner   the test
+     * @param overflow where to put the test if the queue is full
+     */
+    private void offer(NodeRunner runner, Queue<NodeRunner> overflow) {
+        if (!service.getQueue().offer(runner)) {
+            overflow.add(runner);
         }
+    }
+
+    /**
+     * Queue the tests that found no room, on a thread of their own.  The
+     * watchdog must not wait for room in the queue, or every other test
+     * that times out meanwhile would wait with it.
+     *
+     * @param overflow the tests to queue
+     */
+    private void handOff(final Queue<NodeRunner> overflow) {
+        if (overflow.isEmpty()) {
+            return;
+        }
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (NodeRunner runner : overflow) {
+                    service.execute(runner);
+                }
+            }
+        }, "JUE hand-off");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Daemon threads, so a test that never ends doesn't keep the JVM alive.
+     */
+    private static class TestThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
 
         @Override
-        public void run() {
-            node.run(support);
-            barrier.countDown();
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "JUE test " + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Makes the thread handing out the tests wait for room in the queue,
+     * rather than running the test itself or throwing it away.
+     */
+    private static class WaitForRoom implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("The test runner was shut down");
+            }
+
+            try {
+                executor.getQueue().put(runnable);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting to run a test", e);
+            }
         }
     }
 
-    private class TestCaseRunner implements Runnable {
-        private final TestListenerSupport support;
+    private class NodeRunner implements Runnable {
+        private final TestNode node;
         private final CountDownLatch barrier;
-        private final TestCase testCase;
+        private final CaseCountdown<NodeRunner> countdown;
+        private final boolean admitted;
+        private final boolean cleared;
 
-        public TestCaseRunner(TestCase testCase, CountDownLatch barrier, TestListenerSupport support) {
-            this.testCase = testCase;
+        /**
+         * Create the task for a test.
+         *
+         * @param node      the test
+         * @param barrier   the countdown for the whole plan
+         * @param countdown the countdown for the test's case
+         * @param admitted  <code>true</code> if the countdown already let the
+         *                  test run
+         * @param cleared   <code>true</code> if the test already has its
+         *                  resources
+         */
+        public NodeRunner(TestNode node, CountDownLatch barrier, CaseCountdown<NodeRunner> countdown,
+                          boolean admitted, boolean cleared) {
+            this.node = node;
             this.barrier = barrier;
-            this.support = support;
+            this.countdown = countdown;
+            this.admitted = admitted;
+            this.cleared = cleared;
         }
 
         @Override
         public void run() {
-            support.fireTestEvent(new TestEvent(testCase.getDescription(), Status.Started));
+            if (!admitted && !countdown.enter(this)) {
+                // the node that makes room will hand this one back
+                return;
+            }
 
-            if (testCase.isEmpty()) {
-                //noinspection ThrowableInstanceNeverThrown
-                support.fireTestEvent(new TestEvent(testCase.getDescription(), Status.Failed,
-                        new AssertionError("Test class does not have any tests: "
-                                + testCase.getDescription().getName())));
-            } else {
-                CountDownLatch latch = new CountDownLatch(testCase.size());
-
-                for (TestNode node : testCase) {
-                    service.execute(new NodeRunner(node, latch, support));
+            Queue<NodeRunner> overflow = new ArrayDeque<NodeRunner>();
+            NodeRunner runner = this;
+            while (null != runner) {
+                runner = runner.runTest(overflow);
+                if (null == runner) {
+                    runner = overflow.poll();
                 }
+            }
+        }
 
-                try {
-                    latch.await();
-                } catch (InterruptedException e) {
-                    // do nothing, it was interrupted
-                }
+        /**
+         * Run the test and account for it.
+         *
+         * @param overflow where to put the tests that got their resources
+         *                 back but found no room in the queue
+         * @return a test of the same case to run next, or <code>null</code>
+         */
+        private NodeRunner runTest(Queue<NodeRunner> overflow) {
+            if (cancellation.isCancelled()) {
+                node.cancel(support);
+                return done(cleared, overflow);
+            }
+
+            if (!cleared && !resources.enter(new NodeRunner(node, barrier, countdown, true, true), node)) {
+                // the test that gives up the resources queues this one again
+                return null;
+            }
+
+            long limit = node.getTimeout(timeout);
+            Watchdog.Watch watch = limit <= 0 ? Watchdog.UNWATCHED : watchdog.watch(node, limit, support,
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            // carry on without the stuck thread
+                            Queue<NodeRunner> overflow = new ArrayDeque<NodeRunner>();
+                            NodeRunner next = done(false, overflow);
+                            if (null != next) {
+                                offer(new NodeRunner(next.node, barrier, countdown, true, false), overflow);
+                            }
+                            // queued first, so the extra thread has work
+                            resize(1);
+                            handOff(overflow);
+                        }
+                    });
 
-                support.fireTestEvent(new TestEvent(testCase.getDescription(), Status.Terminated));
+            cancellation.testEnded(node.run(support, watch));
+
+            if (watch.finish()) {
+                return done(true, overflow);
             }
 
+            // the thread is back, so its resources are free at last, and
+            // the extra thread can go
+            releaseResources(overflow);
+            resize(-1);
+            return null;
+        }
+
+        /**
+         * Account for the test, and give up its resources unless it timed
+         * out; a test that timed out keeps them until its thread is back.
+         */
+        private NodeRunner done(boolean holdsResources, Queue<NodeRunner> overflow) {
+            if (holdsResources) {
+                releaseResources(overflow);
+            }
+
+            NodeRunner next = countdown.testDone(support);
             barrier.countDown();
+
+            return next;
+        }
+
+        /**
+         * Give up the test's resources.  The tests that were waiting for
+         * them go back in the queue.  A pool thread doesn't wait for room
+         * there, or every thread could end up waiting; the tests that don't
+         * fit are left for it to run itself.
+         */
+        private void releaseResources(Queue<NodeRunner> overflow) {
+            for (NodeRunner ready : resources.exit(node)) {
+                offer(ready, overflow);
+            }
         }
     }
 }
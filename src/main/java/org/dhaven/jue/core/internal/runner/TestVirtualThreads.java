@@ -0,0 +1,333 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.runner;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dhaven.jue.api.description.Description;
+import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.core.Configuration;
+import org.dhaven.jue.core.TestListenerSupport;
+import org.dhaven.jue.core.internal.TestCase;
+import org.dhaven.jue.core.internal.TestNode;
+import org.dhaven.jue.core.internal.TestPlan;
+import org.dhaven.jue.core.internal.Watchdog;
+
+/**
+ * Runs every test on its own virtual thread, so tests that spend their time
+ * blocked on sockets or databases don't need an operating system thread
+ * each.  Tens of thousands of blocking tests can be in flight at once.
+ * <p/>
+ * Virtual threads need Java 21.  The runner finds them at run time, so the
+ * project can still be built for older versions; on an older JVM every test
+ * gets a platform thread instead, which works but does not scale as far.
+ * <p/>
+ * The number of tests in flight can be limited with a semaphore.  Without a
+ * limit, every test of the plan is started at once.  A test that times out
+ * gives up its permit right away, whether or not its thread has noticed.
+ * <p/>
+ * A case affine test case gets a single thread, which runs its tests in
+ * order.
+ * <p/>
+ * A test whose shared resources are taken ends its thread and keeps its
+ * permit; it gets a new thread once the test holding the resources is
+ * done.
+ * <p/>
+ * Once the run is cancelled, no more threads are started; the tests that did
+ * not start yet are reported as terminated.
+ */
+public class TestVirtualThreads implements TestRunner {
+    private final int concurrency;
+    private TestListenerSupport support;
+    private ThreadFactory threadFactory;
+    private Semaphore permits;
+    private int testsPerCase;
+    private Watchdog watchdog;
+    private long timeout;
+    private Cancellation cancellation;
+    private ResourceGate<NodeRunner> resources;
+
+    /**
+     * Create a runner that starts every test at once.
+     */
+    public TestVirtualThreads() {
+        this(0);
+    }
+
+    /**
+     * Create a runner that has no more than so many tests in flight.
+     *
+     * @param concurrency the number of tests that may run at once, or 0 for
+     *                    no limit
+     */
+    public TestVirtualThreads(int concurrency) {
+        if (concurrency < 0)
+            throw new IllegalArgumentException("Concurrency can't be negative: " + concurrency);
+
+        this.concurrency = concurrency;
+    }
+
+    @Override
+    public void start(TestListenerSupport support, Configuration configuration) {
+        this.support = support;
+        this.threadFactory = createThreadFactory();
+        this.permits = concurrency > 0 ? new Semaphore(concurrency) : null;
+        this.testsPerCase = configuration.getTestsPerCase();
+        this.watchdog = new Watchdog();
+        this.timeout = configuration.getTimeout();
+        this.cancellation = new Cancellation(configuration.getFailureLimit());
+    }
+
+    @Override
+    public void execute(TestPlan plan) {
+        Collection<TestCase> testPlan = plan.export();
+        resources = new ResourceGate<NodeRunner>(testPlan);
+        int numberOfTests = 0;
+        for (TestCase testCase : testPlan) {
+            numberOfTests += testCase.numberOfRuns();
+        }
+        CountDownLatch latch = new CountDownLatch(numberOfTests);
+
+        support.fireTestEvent(Description.JUEName, Status.Started, null);
+
+        for (TestCase testCase : testPlan) {
+            support.fireTestStarted(testCase);
+
+            if (testCase.isEmpty()) {
+                //noinspection ThrowableInstanceNeverThrown
+                support.fireTestFailed(testCase, new AssertionError("Test class does not have any tests: "
+                        + testCase.getDescription().getName()));
+                continue;
+            }
+
+            CaseCountdown<NodeRunner> countdown = new CaseCountdown<NodeRunner>(testCase, testsPerCase);
+            for (TestNode node : testCase.runs()) {
+                NodeRunner runner = new NodeRunner(node, latch, countdown, testCase.isCaseAffine(), false);
+                if (!countdown.dispatch(runner)) {
+                    // the thread that runs the test before it runs this one
+                    continue;
+                }
+
+                if (null != permits) {
+                    permits.acquireUninterruptibly();
+                }
+
+                if (cancellation.isCancelled() && !runner.admitted) {
+                    if (null != permits) {
+                        permits.release();
+                    }
+                    node.cancel(support);
+                    countdown.testSkipped(support);
+                    latch.countDown();
+                } else {
+                    threadFactory.newThread(runner).start();
+                }
+            }
+        }
+
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            // do nothing, we are interrupting the run
+        }
+
+        support.fireTestEvent(Description.JUEName, Status.Terminated, null);
+    }
+
+    @Override
+    public void cancel() {
+        cancellation.cancel();
+    }
+
+    @Override
+    public void shutdown() {
+        // every thread ends with its test
+        watchdog.shutdown();
+    }
+
+    /**
+     * Tell whether the tests get virtual threads on this JVM.
+     *
+     * @return <code>true</code> if virtual threads are available
+     */
+    public static boolean isVirtual() {
+        return null != virtualThreadFactory();
+    }
+
+    /**
+     * Get a factory for virtual threads, or for daemon platform threads on
+     * JVMs that don't have virtual threads.
+     *
+     * @return the thread factory
+     */
+    static ThreadFactory createThreadFactory() {
+        ThreadFactory factory = virtualThreadFactory();
+
+        return null != factory ? factory : new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "JUE test " + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * Look up <code>Thread.ofVirtual().factory()</code> without compiling
+     * against it.
+     *
+     * @return the factory, or <code>null</code> on JVMs before Java 21
+     */
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Object builder = ofVirtual.invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+
+            return ThreadFactory.class.cast(factory.invoke(builder));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private class NodeRunner implements Runnable {
+        private final TestNode node;
+        private final CountDownLatch latch;
+        private final CaseCountdown<NodeRunner> countdown;
+        private final boolean admitted;
+        private final boolean cleared;
+
+        /**
+         * Create the runner for a test.
+         *
+         * @param node      the test
+         * @param latch     the countdown for the whole plan
+         * @param countdown the countdown for the test's case
+         * @param admitted  <code>true</code> if the countdown already let the
+         *                  test run
+         * @param cleared   <code>true</code> if the test already has its
+         *                  resources
+         */
+        public NodeRunner(TestNode node, CountDownLatch latch, CaseCountdown<NodeRunner> countdown,
+                          boolean admitted, boolean cleared) {
+            this.node = node;
+            this.latch = latch;
+            this.countdown = countdown;
+            this.admitted = admitted;
+            this.cleared = cleared;
+        }
+
+        @Override
+        public void run() {
+            boolean holdsPermit = null != permits;
+
+            try {
+                if (!admitted && !countdown.enter(this)) {
+                    // the test that makes room for this one will run it
+                    return;
+                }
+
+                NodeRunner runner = this;
+                while (null != runner) {
+                    if (cancellation.isCancelled()) {
+                        runner.node.cancel(support);
+                        runner = runner.done(runner.cleared);
+                        continue;
+                    }
+
+                    if (!runner.cleared && !resources.enter(runner.resumed(), runner.node)) {
+                        // the runner keeps the permit while it waits
+                        holdsPermit = false;
+                        return;
+                    }
+
+                    Watchdog.Watch watch = runner.watch();
+                    cancellation.testEnded(runner.node.run(support, watch));
+
+                    if (!watch.finish()) {
+                        // the watchdog took the permit over, but the
+                        // resources are only free now the thread is back
+                        holdsPermit = false;
+                        runner.releaseResources();
+                        return;
+                    }
+
+                    runner = runner.done(true);
+                }
+            } finally {
+                if (holdsPermit) {
+                    permits.release();
+                }
+            }
+        }
+
+        private Watchdog.Watch watch() {
+            long limit = node.getTimeout(timeout);
+            if (limit <= 0) {
+                return Watchdog.UNWATCHED;
+            }
+
+            return watchdog.watch(node, limit, support, new Runnable() {
+                @Override
+                public void run() {
+                    // carry on without the stuck thread, passing its permit on
+                    NodeRunner next = done(false);
+                    if (null != next) {
+                        threadFactory.newThread(new NodeRunner(next.node, latch, countdown, true, false)).start();
+                    } else if (null != permits) {
+                        permits.release();
+                    }
+                }
+            });
+        }
+
+        /**
+         * Get the runner to start once the test has its resources.
+         */
+        private NodeRunner resumed() {
+            return new NodeRunner(node, latch, countdown, true, true);
+        }
+
+        private NodeRunner done(boolean holdsResources) {
+            if (holdsResources) {
+                releaseResources();
+            }
+
+            NodeRunner next = countdown.testDone(support);
+            latch.countDown();
+
+            return next;
+        }
+
+        private void releaseResources() {
+            for (NodeRunner ready : resources.exit(node)) {
+                threadFactory.newThread(ready).start();
+            }
+        }
+    }
+}
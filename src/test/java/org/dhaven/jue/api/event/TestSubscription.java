@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.api.event;
+
+import org.dhaven.jue.Test;
+import org.dhaven.jue.api.description.Type;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class TestSubscription {
+    @Test
+    public void allAcceptsEverything() {
+        for (Type type : Type.values()) {
+            for (Status status : Status.values()) {
+                assertThat(Subscription.ALL.accepts(type, status), is(true));
+            }
+        }
+    }
+
+    @Test
+    public void subscribeToStatus() {
+        Subscription subscription = Subscription.to(Status.Failed, Status.Terminated);
+
+        assertThat(subscription.accepts(Type.Test, Status.Failed), is(true));
+        assertThat(subscription.accepts(Type.TestCase, Status.Terminated), is(true));
+        assertThat(subscription.accepts(Type.Test, Status.Passed), is(false));
+    }
+
+    @Test
+    public void subscribeToType() {
+        Subscription subscription = Subscription.to(Type.TestCase);
+
+        assertThat(subscription.accepts(Type.TestCase, Status.Started), is(true));
+        assertThat(subscription.accepts(Type.Test, Status.Started), is(false));
+    }
+
+    @Test
+    public void narrowSubscription() {
+        Subscription subscription = Subscription.to(Status.Failed).only(Type.Test);
+
+        assertThat(subscription.accepts(Type.Test, Status.Failed), is(true));
+        assertThat(subscription.accepts(Type.TestCase, Status.Failed), is(false));
+        assertThat(subscription.only(Status.Passed).accepts(Type.Test, Status.Failed), is(false));
+    }
+
+    @Test
+    public void routesAreUnique() {
+        boolean[] seen = new boolean[Subscription.routeCount()];
+
+        for (Type type : Type.values()) {
+            for (Status status : Status.values()) {
+                int route = Subscription.route(type, status);
+                assertThat(seen[route], is(false));
+                seen[route] = true;
+            }
+        }
+
+        assertThat(seen.length, equalTo(Type.values().length * Status.values().length));
+    }
+}
@@ -93,6 +93,16 @@ public class TestTestEvent {
         assertThat((System.nanoTime() - new TestEvent(Description.JUEName, Status.Terminated).getNanoseconds()), lessThan(100L));
     }
 
+    @Test
+    public void createTestEventWithTimeStamp() {
+        Throwable cause = new IllegalArgumentException("Just because");
+        TestEvent event = new TestEvent(Description.JUEName, Status.Failed,
+                new InvocationTargetException(cause), 12345L);
+
+        assertThat(event.getNanoseconds(), equalTo(12345L));
+        assertThat(event.getFailure(), equalTo(cause));
+    }
+
     @Test
     public void stringFormattedProperly() {
         TestEvent event = new TestEvent(Description.JUEName, Status.Terminated);
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.api.journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.dhaven.jue.Test;
+import org.dhaven.jue.api.description.Description;
+import org.dhaven.jue.api.description.Type;
+import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.api.event.TestEvent;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class TestEventStream {
+    private final Description test = new Description("org.TestCase.test", Type.Test, 1, 2, "step 1");
+
+    private byte[] write(boolean close, TestEvent... events) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EventStreamWriter writer = new EventStreamWriter(bytes);
+
+        writer.handleEvents(Arrays.asList(events));
+        if (close) {
+            writer.close();
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void eventsComeBackAsWritten() throws IOException {
+        TestEvent started = new TestEvent(test, Status.Started, null, 100L, 7L);
+        TestEvent failed = new TestEvent(test, Status.Failed, new IllegalStateException("on purpose"), 200L, 7L, 50L, 30L);
+        EventStreamReader reader = new EventStreamReader(new ByteArrayInputStream(write(true, started, failed)));
+
+        TestEvent first = reader.next();
+        assertThat(first.getDescription(), equalTo(test));
+        assertThat(Arrays.toString(first.getDescription().getParameters()), equalTo("[step 1]"));
+        assertThat(first.getStatus(), equalTo(Status.Started));
+        assertThat(first.getNanoseconds(), equalTo(100L));
+
+        TestEvent second = reader.next();
+        assertThat(second.getStatus(), equalTo(Status.Failed));
+        assertThat(second.getFailure().getMessage(), equalTo("on purpose"));
+        assertThat(second.getCpuTime(), equalTo(50L));
+
+        assertThat(reader.next(), nullValue());
+        assertThat(reader.isComplete(), equalTo(true));
+    }
+
+    @Test
+    public void streamCutShortIsNotComplete() throws IOException {
+        byte[] bytes = write(false, new TestEvent(test, Status.Started, null, 100L, 7L));
+        EventStreamReader reader = new EventStreamReader(
+                new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length + 2)));
+
+        assertThat(reader.next().getStatus(), equalTo(Status.Started));
+        assertThat(reader.next(), nullValue());
+        assertThat(reader.isComplete(), equalTo(false));
+    }
+
+    @Test(expected = IOException.class)
+    public void streamMustStartWithHeader() throws IOException {
+        new EventStreamReader(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}));
+    }
+}
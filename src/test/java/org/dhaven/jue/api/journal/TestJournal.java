@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.api.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dhaven.jue.After;
+import org.dhaven.jue.Before;
+import org.dhaven.jue.Test;
+import org.dhaven.jue.api.description.Description;
+import org.dhaven.jue.api.description.Type;
+import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.api.event.TestEvent;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.nullValue;
+
+public class TestJournal {
+    private File directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = File.createTempFile("journal", "");
+        assertThat(directory.delete(), equalTo(true));
+    }
+
+    @After
+    public void removeDirectory() {
+        File[] files = directory.listFiles();
+        if (null != files) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private List<TestEvent> readAll() throws IOException {
+        List<TestEvent> events = new ArrayList<TestEvent>();
+        JournalReader reader = new JournalReader(directory);
+
+        TestEvent event = reader.next();
+        while (null != event) {
+            events.add(event);
+            event = reader.next();
+        }
+        reader.close();
+
+        return events;
+    }
+
+    @Test
+    public void eventsComeBackAsWritten() throws IOException {
+        Description test = new Description("org.TestCase.test", Type.Test, 2, 3, "first", 2);
+        IllegalStateException failure = new IllegalStateException("on purpose");
+        TestEvent started = new TestEvent(test, Status.Started, null, 100L, 7L);
+        TestEvent failed = new TestEvent(test, Status.Failed, failure, 200L, 7L, 50L, 30L);
+
+        JournalWriter writer = new JournalWriter(directory);
+        writer.handleEvent(started);
+        writer.handleEvent(failed);
+        writer.close();
+
+        List<TestEvent> events = readAll();
+        assertThat(events.size(), equalTo(2));
+
+        TestEvent first = events.get(0);
+        assertThat(first.getDescription(), equalTo(test));
+        assertThat(first.getDescription().getTotalRuns(), equalTo(3));
+        assertThat(first.getDescription().toString(), equalTo(test.toString()));
+        assertThat(first.getStatus(), equalTo(Status.Started));
+        assertThat(first.getNanoseconds(), equalTo(100L));
+        assertThat(first.getThreadId(), equalTo(7L));
+        assertThat(first.getFailure(), nullValue());
+        assertThat(first.getCpuTime(), equalTo(TestEvent.NOT_MEASURED));
+
+        TestEvent second = events.get(1);
+        assertThat(second.getStatus(), equalTo(Status.Failed));
+        assertThat(second.getCpuTime(), equalTo(50L));
+        assertThat(second.getUserTime(), equalTo(30L));
+        assertThat(second.getFailure(), instanceOf(IllegalStateException.class));
+        assertThat(second.getFailure().getMessage(), equalTo("on purpose"));
+        assertThat(second.getFailure().getStackTrace().length, equalTo(failure.getStackTrace().length));
+    }
+
+    @Test
+    public void segmentsRollOverWhenFull() throws IOException {
+        JournalWriter writer = new JournalWriter(directory, 256);
+        for (int i = 0; i < 100; i++) {
+            Description test = new Description("org.TestCase.test" + (i % 3), Type.Test);
+            writer.handleEvent(new TestEvent(test, Status.Passed, null, i));
+        }
+        writer.close();
+
+        assertThat(directory.listFiles().length, greaterThan(1));
+
+        List<TestEvent> events = readAll();
+        assertThat(events.size(), equalTo(100));
+        for (int i = 0; i < 100; i++) {
+            assertThat(events.get(i).getNanoseconds(), equalTo((long) i));
+            assertThat(events.get(i).getDescription().getName(), equalTo("org.TestCase.test" + (i % 3)));
+        }
+    }
+
+    @Test
+    public void unclosedJournalIsReadable() throws IOException {
+        JournalWriter writer = new JournalWriter(directory);
+        writer.handleEvent(new TestEvent(Description.JUEName, Status.Started));
+
+        assertThat(readAll().size(), equalTo(1));
+        writer.close();
+    }
+
+    @Test
+    public void unserializableFailureKeepsMessage() throws IOException {
+        JournalWriter writer = new JournalWriter(directory);
+        writer.handleEvent(new TestEvent(Description.JUEName, Status.Failed, new UnserializableException()));
+        writer.close();
+
+        Throwable failure = readAll().get(0).getFailure();
+        assertThat(failure, instanceOf(AssertionError.class));
+        assertThat(failure.getMessage(), equalTo(UnserializableException.class.getName() + ": not serializable"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void closedJournalRejectsEvents() throws IOException {
+        JournalWriter writer = new JournalWriter(directory);
+        writer.close();
+        writer.handleEvent(new TestEvent(Description.JUEName, Status.Started));
+    }
+
+    @Test(expected = IOException.class)
+    public void emptyDirectoryIsNotAJournal() throws IOException {
+        assertThat(directory.mkdirs(), equalTo(true));
+        new JournalReader(directory);
+    }
+
+    private static class UnserializableException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        @SuppressWarnings("unused")
+        private final Object notSerializable = new Object();
+
+        UnserializableException() {
+            super("not serializable");
+        }
+    }
+}
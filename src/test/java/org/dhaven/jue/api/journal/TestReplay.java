@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.api.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dhaven.jue.After;
+import org.dhaven.jue.Before;
+import org.dhaven.jue.Test;
+import org.dhaven.jue.api.description.Description;
+import org.dhaven.jue.api.description.Type;
+import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.api.event.TestEvent;
+import org.dhaven.jue.api.event.TestListener;
+import org.dhaven.jue.api.results.Results;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+public class TestReplay {
+    private static final long MILLISECOND = 1000000L;
+    private File directory;
+
+    @Before
+    public void recordRun() throws IOException {
+        directory = File.createTempFile("journal", "");
+        assertThat(directory.delete(), equalTo(true));
+
+        Description testCase = new Description("org.TestCase", Type.TestCase);
+        Description passing = new Description("org.TestCase.passing", Type.Test);
+        Description failing = new Description("org.TestCase.failing", Type.Test);
+
+        JournalWriter writer = new JournalWriter(directory);
+        writer.handleEvent(new TestEvent(Description.JUEName, Status.Started, null, 0));
+        writer.handleEvent(new TestEvent(testCase, Status.Started, null, 0));
+        writer.handleEvent(new TestEvent(passing, Status.Started, null, 0));
+        writer.handleEvent(new TestEvent(passing, Status.Passed, null, 10 * MILLISECOND));
+        writer.handleEvent(new TestEvent(failing, Status.Started, null, 10 * MILLISECOND));
+        writer.handleEvent(new TestEvent(failing, Status.Failed, new AssertionError("bad"), 20 * MILLISECOND));
+        writer.handleEvent(new TestEvent(testCase, Status.Terminated, null, 20 * MILLISECOND));
+        writer.handleEvent(new TestEvent(Description.JUEName, Status.Terminated, null, 20 * MILLISECOND));
+        writer.close();
+    }
+
+    @After
+    public void removeDirectory() {
+        File[] files = directory.listFiles();
+        if (null != files) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void rebuildsResults() throws IOException {
+        Results results = new Replay(directory).run();
+
+        assertThat(results.complete(), equalTo(true));
+        assertThat(results.passed(), equalTo(false));
+        assertThat(results.numberOfTestCases(), equalTo(1));
+        assertThat(results.numberOfTestsRun(), equalTo(2));
+    }
+
+    @Test
+    public void listenersSeeEveryEventInOrder() throws IOException {
+        final List<TestEvent> events = new ArrayList<TestEvent>();
+        Replay replay = new Replay(directory, directory);
+        replay.addTestListener(new TestListener() {
+            public void handleEvent(TestEvent event) {
+                events.add(event);
+            }
+        });
+        replay.run();
+
+        assertThat(events.size(), equalTo(16));
+        assertThat(events.get(3).getStatus(), equalTo(Status.Passed));
+        assertThat(events.get(11).getStatus(), equalTo(Status.Passed));
+    }
+
+    @Test
+    public void originalTimingIsKept() throws IOException {
+        Replay replay = new Replay(directory);
+        replay.setSpeed(1.0);
+
+        long start = System.nanoTime();
+        replay.run();
+
+        assertThat(System.nanoTime() - start, greaterThanOrEqualTo(20 * MILLISECOND));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void speedCantBeNegative() {
+        new Replay(directory).setSpeed(-1);
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.api.results;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.dhaven.jue.Test;
+import org.dhaven.jue.api.description.Description;
+import org.dhaven.jue.api.description.Type;
+import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.api.event.TestEvent;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class TestConcurrentResults {
+    private final ConcurrentResults results = new ConcurrentResults();
+
+    @Test
+    public void sameAnswersAsResults() {
+        Description testCase = new Description("org.TestCase", Type.TestCase);
+        Description test = new Description("org.TestCase.test", Type.Test);
+
+        // the test shows up before its test case on purpose
+        results.handleEvent(new TestEvent(test, Status.Started));
+        results.handleEvent(new TestEvent(test, Status.Failed, new AssertionError("on purpose")));
+        results.handleEvent(new TestEvent(testCase, Status.Started));
+        results.handleEvent(new TestEvent(testCase, Status.Terminated));
+        results.fold();
+
+        assertThat(results.complete(), is(true));
+        assertThat(results.failed(), is(true));
+        assertThat(results.numberOfTestCases(), equalTo(1));
+        assertThat(results.numberOfTestsRun(), equalTo(1));
+        assertThat(results.count(Status.Started), equalTo(2L));
+        assertThat(results.count(Status.Failed), equalTo(1L));
+    }
+
+    @Test
+    public void summaryFollowsNewEvents() {
+        Description test = new Description("test", Type.Test);
+        results.handleEvent(new TestEvent(test, Status.Started));
+        results.fold();
+
+        assertThat(results.complete(), is(false));
+
+        results.handleEvent(new TestEvent(test, Status.Passed));
+        results.fold();
+
+        assertThat(results.complete(), is(true));
+    }
+
+    @Test
+    public void testEndedOnAnotherThreadIsPutBackTogether() throws Exception {
+        final Description test = new Description("test", Type.Test);
+        results.handleEvent(new TestEvent(test, Status.Started));
+
+        Thread watchdog = new Thread(new Runnable() {
+            public void run() {
+                results.handleEvent(new TestEvent(test, Status.Terminated));
+            }
+        });
+        watchdog.start();
+        watchdog.join();
+        results.fold();
+
+        assertThat(results.complete(), is(true));
+        assertThat(results.getStatus(), is(Status.Terminated));
+        assertThat(results.numberOfTestsRun(), equalTo(1));
+    }
+
+    @Test
+    public void repeatedRunsAreFoldedAsTheyArrive() {
+        Description testCase = new Description("org.TestCase", Type.TestCase);
+        results.handleEvent(new TestEvent(testCase, Status.Started));
+        for (int run = 1; run <= 1000; run++) {
+            Description test = new Description("org.TestCase.test", Type.Test, run, 1000);
+            results.handleEvent(new TestEvent(test, Status.Started));
+            results.handleEvent(new TestEvent(test, Status.Passed));
+        }
+        results.handleEvent(new TestEvent(testCase, Status.Passed));
+        results.fold();
+
+        RepeatedTestSummary repeated = null;
+        for (Summary test : ((ParentSummary) results.getChildren().iterator().next()).getChildren()) {
+            repeated = (RepeatedTestSummary) test;
+        }
+        assertThat(repeated.finishedRuns(), equalTo(1000));
+        assertThat(results.numberOfTestsRun(), equalTo(1000));
+        assertThat(results.passed(), is(true));
+    }
+
+    @Test
+    public void eventsFromManyThreadsAreAllCounted() throws Exception {
+        final int threads = 8;
+        final int testsPerThread = 500;
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+
+        results.handleEvent(new TestEvent(new Description("org.TestCase", Type.TestCase), Status.Started));
+
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            workers[t] = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+
+                    for (int i = 0; i < testsPerThread; i++) {
+                        Description test = new Description("org.TestCase.test" + thread + "_" + i, Type.Test);
+                        results.handleEvent(new TestEvent(test, Status.Started));
+                        results.handleEvent(new TestEvent(test, Status.Passed));
+                    }
+                }
+            });
+            workers[t].start();
+        }
+
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        results.fold();
+
+        assertThat(results.count(Status.Passed), equalTo((long) threads * testsPerThread));
+        assertThat(results.numberOfTestsRun(), equalTo(threads * testsPerThread));
+        assertThat(results.passed(), is(true));
+    }
+
+    @Test
+    public void foldedResultsCanBeMerged() {
+        Description test = new Description("org.TestCase.test", Type.Test);
+        results.handleEvent(new TestEvent(test, Status.Started));
+        results.handleEvent(new TestEvent(test, Status.Passed));
+        results.fold();
+
+        Results merged = new Results();
+        merged.merge(results);
+
+        assertThat(merged.numberOfTestsRun(), equalTo(1));
+        assertThat(merged.passed(), is(true));
+    }
+}
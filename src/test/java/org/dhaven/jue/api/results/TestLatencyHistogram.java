@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.api.results;
+
+import org.dhaven.jue.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class TestLatencyHistogram {
+    @Test
+    public void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertThat(histogram.getCount(), equalTo(0L));
+        assertThat(histogram.percentile(0.5), equalTo(0L));
+        assertThat(histogram.getMax(), equalTo(0L));
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 20; value++) {
+            histogram.record(value);
+        }
+
+        assertThat(histogram.percentile(0.5), equalTo(10L));
+        assertThat(histogram.percentile(0.95), equalTo(19L));
+    }
+
+    @Test
+    public void percentilesAreWithinThreePercent() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        long median = histogram.percentile(0.5);
+        assertThat(median, greaterThanOrEqualTo(50000000L));
+        assertThat(median, lessThanOrEqualTo(51500000L));
+
+        long high = histogram.percentile(0.99);
+        assertThat(high, greaterThanOrEqualTo(99000000L));
+        assertThat(high, lessThanOrEqualTo(101970000L));
+    }
+
+    @Test
+    public void minMaxAndMeanAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1234567);
+        histogram.record(7654321);
+        histogram.record(-5);
+
+        assertThat(histogram.getMin(), equalTo(0L));
+        assertThat(histogram.getMax(), equalTo(7654321L));
+        assertThat(histogram.getMean(), equalTo((1234567L + 7654321L) / 3));
+        assertThat(histogram.percentile(1), equalTo(7654321L));
+    }
+
+    @Test
+    public void addCombinesHistograms() {
+        LatencyHistogram one = new LatencyHistogram();
+        LatencyHistogram two = new LatencyHistogram();
+        one.record(10);
+        two.record(20);
+        two.record(30);
+
+        one.add(two);
+
+        assertThat(one.getCount(), equalTo(3L));
+        assertThat(one.getMin(), equalTo(10L));
+        assertThat(one.getMax(), equalTo(30L));
+        assertThat(one.percentile(0.5), equalTo(20L));
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.api.results;
+
+import org.dhaven.jue.Test;
+import org.dhaven.jue.api.description.Description;
+import org.dhaven.jue.api.description.Type;
+import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.api.event.TestEvent;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+
+public class TestRepeatedTestSummary {
+    private static final long MILLIS = 1000000;
+    private static final Description TEST_CASE = new Description("org.Case", Type.TestCase);
+
+    private Results results(int runs, Status last) {
+        Results results = new Results();
+        results.handleEvent(new TestEvent(Description.JUEName, Status.Started, null, 0));
+        results.handleEvent(new TestEvent(TEST_CASE, Status.Started, null, 0));
+
+        for (int run = 1; run <= runs; run++) {
+            Description description = new Description("org.Case.test", Type.Test, run, runs);
+            Status status = run == runs ? last : Status.Passed;
+            results.handleEvent(new TestEvent(description, Status.Started, null, run * MILLIS));
+            results.handleEvent(new TestEvent(description, status, null, run * MILLIS + run * MILLIS));
+        }
+
+        results.handleEvent(new TestEvent(TEST_CASE, Status.Terminated, null, 100 * MILLIS));
+        results.handleEvent(new TestEvent(Description.JUEName, Status.Terminated, null, 100 * MILLIS));
+
+        return results;
+    }
+
+    private RepeatedTestSummary onlyTest(Results results) {
+        ParentSummary testCase = ParentSummary.class.cast(results.getChildren().iterator().next());
+        assertThat(testCase.size(), equalTo(1));
+
+        Summary test = testCase.getChildren().iterator().next();
+        assertThat(test, instanceOf(RepeatedTestSummary.class));
+
+        return RepeatedTestSummary.class.cast(test);
+    }
+
+    @Test
+    public void runsRollUpIntoOneTest() {
+        Results results = results(10, Status.Passed);
+        RepeatedTestSummary test = onlyTest(results);
+
+        assertThat(test.size(), equalTo(10));
+        assertThat(test.numberOfRuns(), equalTo(10));
+        assertThat(test.complete(), equalTo(true));
+        assertThat(test.getStatus(), equalTo(Status.Passed));
+        assertThat(results.numberOfTestsRun(), equalTo(10));
+    }
+
+    @Test
+    public void oneFailedRunFailsTheTest() {
+        RepeatedTestSummary test = onlyTest(results(4, Status.Failed));
+
+        assertThat(test.getStatus(), equalTo(Status.Failed));
+    }
+
+    @Test
+    public void incompleteUntilEveryRunArrived() {
+        RepeatedTestSummary test = new RepeatedTestSummary(new Description("org.Case.test", Type.Test, 1, 3));
+        test.addChild(TestSummary.create(new TestEvent(new Description("org.Case.test", Type.Test, 1, 3),
+                Status.Passed)));
+
+        assertThat(test.complete(), equalTo(false));
+    }
+
+    @Test
+    public void runTimesAreDistributed() {
+        RepeatedTestSummary test = onlyTest(results(10, Status.Passed));
+
+        assertThat(test.percentile(0), equalTo(1 * MILLIS));
+        assertThat(test.percentile(0.5), greaterThanOrEqualTo(5 * MILLIS));
+        assertThat(test.percentile(0.5), lessThan(6 * MILLIS));
+        assertThat(test.percentile(0.9), greaterThanOrEqualTo(9 * MILLIS));
+        assertThat(test.percentile(0.9), lessThan(10 * MILLIS));
+        assertThat(test.percentile(1), equalTo(10 * MILLIS));
+        assertThat(test.meanRunTime(), equalTo(5500 * 1000L));
+    }
+
+    @Test
+    public void finishedRunsAreFoldedIntoTotals() {
+        Results results = results(10, Status.Failed);
+        RepeatedTestSummary test = onlyTest(results);
+
+        assertThat(test.getChildren().iterator().hasNext(), equalTo(false));
+        assertThat(test.count(Status.Passed), equalTo(9));
+        assertThat(test.count(Status.Failed), equalTo(1));
+        assertThat(test.errorRate(), equalTo(0.1));
+        assertThat(results.numberOfTestsRun(), equalTo(10));
+    }
+
+    @Test
+    public void throughputIsRunsPerSecondOfClockTime() {
+        RepeatedTestSummary test = onlyTest(results(3, Status.Passed));
+
+        // 3 runs in 5ms
+        assertThat(test.throughput(), equalTo(600.0));
+    }
+
+    @Test
+    public void openEndedRunsRollUp() {
+        RepeatedTestSummary test = new RepeatedTestSummary(
+                new Description("org.Case.test", Type.Test, 1, Description.OPEN_ENDED));
+
+        for (int run = 1; run <= 3; run++) {
+            Description description = new Description("org.Case.test", Type.Test, run, Description.OPEN_ENDED);
+            TestSummary summary = TestSummary.create(new TestEvent(description, Status.Started, null, 0));
+            test.addChild(summary);
+            summary.handleEvent(new TestEvent(description, Status.Passed, null, MILLIS));
+            test.addChild(summary);
+        }
+
+        assertThat(test.complete(), equalTo(true));
+        assertThat(test.size(), equalTo(3));
+    }
+
+    @Test
+    public void elapsedTimeSpansAllRuns() {
+        RepeatedTestSummary test = onlyTest(results(3, Status.Passed));
+
+        // from the start of the first run to the end of the last
+        assertThat(test.elapsedTime(), equalTo(5 * MILLIS));
+    }
+}
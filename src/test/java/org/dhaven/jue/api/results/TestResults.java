@@ -19,6 +19,8 @@
 
 package org.dhaven.jue.api.results;
 
+import java.util.Arrays;
+
 import org.dhaven.jue.Test;
 import org.dhaven.jue.api.description.Description;
 import org.dhaven.jue.api.description.Type;
@@ -87,4 +89,109 @@ public class TestResults {
 
         assertThat(results.getStatus(), is(Status.Terminated));
     }
+
+    @Test
+    public void batchOfEventsIsTheSameAsOneAtATime() {
+        Description testCase = new Description("org.TestCase", Type.TestCase);
+        Description first = new Description("org.TestCase.first", Type.Test);
+        Description second = new Description("org.TestCase.second", Type.Test);
+
+        results.handleEvents(Arrays.asList(
+                new TestEvent(Description.JUEName, Status.Started),
+                new TestEvent(testCase, Status.Started),
+                new TestEvent(first, Status.Started),
+                new TestEvent(first, Status.Passed),
+                new TestEvent(second, Status.Started),
+                new TestEvent(second, Status.Failed, new IllegalStateException("on purpose")),
+                new TestEvent(testCase, Status.Terminated),
+                new TestEvent(Description.JUEName, Status.Terminated)));
+
+        assertThat(results.complete(), is(true));
+        assertThat(results.getStatus(), is(Status.Failed));
+        assertThat(results.numberOfTestCases(), is(1));
+        assertThat(results.numberOfTestsRun(), is(2));
+
+        ParentSummary caseSummary = (ParentSummary) results.getChildren().iterator().next();
+        assertThat(caseSummary.size(), is(2));
+    }
+
+    @Test
+    public void testsArriveBeforeTheirTestCase() {
+        Description testCase = new Description("org.TestCase", Type.TestCase);
+        Description test = new Description("org.TestCase.test", Type.Test);
+
+        results.handleEvent(new TestEvent(test, Status.Started));
+        results.handleEvent(new TestEvent(testCase, Status.Started));
+        results.handleEvent(new TestEvent(test, Status.Passed));
+        results.handleEvent(new TestEvent(testCase, Status.Terminated));
+
+        ParentSummary caseSummary = (ParentSummary) results.getChildren().iterator().next();
+        assertThat(caseSummary.size(), is(1));
+    }
+
+    @Test
+    public void mergedTestCaseHasTheTestsOfBothRuns() {
+        Results other = new Results();
+        play(results, "org.TestCase.first", Status.Passed, 0, 100);
+        play(other, "org.TestCase.second", Status.Passed, 0, 300);
+
+        results.merge(other);
+
+        assertThat(results.numberOfTestCases(), is(1));
+        assertThat(results.numberOfTestsRun(), is(2));
+        assertThat(results.getStatus(), is(Status.Passed));
+        assertThat(results.elapsedTime(), is(300L));
+
+        ParentSummary caseSummary = (ParentSummary) results.getChildren().iterator().next();
+        assertThat(caseSummary.size(), is(2));
+    }
+
+    @Test
+    public void testFailedInEitherRunFails() {
+        Results other = new Results();
+        play(results, "org.TestCase.test", Status.Passed, 0, 100);
+        play(other, "org.TestCase.test", Status.Failed, 0, 100);
+
+        results.merge(other);
+
+        assertThat(results.numberOfTestsRun(), is(1));
+        assertThat(results.getStatus(), is(Status.Failed));
+    }
+
+    @Test
+    public void mergedRepeatedTestCountsEveryRun() {
+        Results other = new Results();
+        Description testCase = new Description("org.TestCase", Type.TestCase);
+
+        for (Results shard : Arrays.asList(results, other)) {
+            shard.handleEvent(new TestEvent(testCase, Status.Started));
+            for (int run = 1; run <= 2; run++) {
+                Description test = new Description("org.TestCase.test", Type.Test, run, 2);
+                shard.handleEvent(new TestEvent(test, Status.Started));
+                shard.handleEvent(new TestEvent(test, Status.Passed));
+            }
+            shard.handleEvent(new TestEvent(testCase, Status.Passed));
+        }
+
+        results.merge(other);
+
+        assertThat(results.numberOfTestsRun(), is(4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void resultsCantBeMergedWithThemselves() {
+        results.merge(results);
+    }
+
+    private static void play(Results results, String testName, Status status, long start, long end) {
+        Description testCase = new Description("org.TestCase", Type.TestCase);
+        Description test = new Description(testName, Type.Test);
+
+        results.handleEvent(new TestEvent(Description.JUEName, Status.Started, null, start));
+        results.handleEvent(new TestEvent(testCase, Status.Started, null, start));
+        results.handleEvent(new TestEvent(test, Status.Started, null, start));
+        results.handleEvent(new TestEvent(test, status, null, end));
+        results.handleEvent(new TestEvent(testCase, Status.Passed, null, end));
+        results.handleEvent(new TestEvent(Description.JUEName, Status.Passed, null, end));
+    }
 }
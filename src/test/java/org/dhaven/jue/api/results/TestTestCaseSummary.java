@@ -171,6 +171,19 @@ public class TestTestCaseSummary {
         assertThat(summary.processorTime(), equalTo(600L));
     }
 
+    @Test
+    public void userTimeIsAdditionOfChildUserTimes() {
+        TestCaseSummary summary = new TestCaseSummary(null);
+
+        for (int i = 1; i <= 3; i++) {
+            ChildSummary child = new ChildSummary(new Description("test-" + i, Type.Test), Status.Passed);
+            child.elapsedTime(i * 100L);
+            summary.addChild(child);
+        }
+
+        assertThat(summary.userTime(), equalTo(300L));
+    }
+
     @Test
     public void failIfTestCaseFailedItself() {
         Description description = new Description("My Test", Type.TestCase);
@@ -256,6 +269,11 @@ public class TestTestCaseSummary {
             return elapsedTime;
         }
 
+        @Override
+        public long userTime() {
+            return elapsedTime / 2;
+        }
+
         @Override
         public Status getStatus() {
             return status;
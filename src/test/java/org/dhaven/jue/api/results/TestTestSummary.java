@@ -172,6 +172,27 @@ public class TestTestSummary {
         assertThat(summary.elapsedTime(), equalTo(elapsed));
     }
 
+    @Test
+    public void testProcessorTimeUsesCpuTimeWhenMeasured() {
+        Description description = new Description("My Test", Type.Test);
+        TestSummary summary = new TestSummary(new TestEvent(description, Status.Started, null, 0L, 1L, 100L, 60L));
+        summary.handleEvent(new TestEvent(description, Status.Passed, null, 1000L, 1L, 400L, 200L));
+
+        assertThat(summary.elapsedTime(), equalTo(1000L));
+        assertThat(summary.processorTime(), equalTo(300L));
+        assertThat(summary.userTime(), equalTo(140L));
+    }
+
+    @Test
+    public void testProcessorTimeFallsBackWhenThreadChanged() {
+        Description description = new Description("My Test", Type.Test);
+        TestSummary summary = new TestSummary(new TestEvent(description, Status.Started, null, 0L, 1L, 100L, 60L));
+        summary.handleEvent(new TestEvent(description, Status.Passed, null, 1000L, 2L, 400L, 200L));
+
+        assertThat(summary.processorTime(), equalTo(1000L));
+        assertThat(summary.userTime(), equalTo(0L));
+    }
+
     @Test
     public void naturalOrderFollowsDescriptions() {
         TestSummary one = new TestSummary(started);
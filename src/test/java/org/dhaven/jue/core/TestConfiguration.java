@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core;
+
+import org.dhaven.jue.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class TestConfiguration {
+    private final Configuration configuration = new Configuration();
+    private final int processors = Runtime.getRuntime().availableProcessors();
+
+    @Test
+    public void defaultIsOneThreadPerProcessor() {
+        assertThat(configuration.getParallelism(), equalTo(processors));
+        assertThat(configuration.getTestsPerCase(), equalTo(Configuration.UNLIMITED));
+    }
+
+    @Test
+    public void multiplierScalesProcessors() {
+        configuration.setMultiplier(4.0);
+
+        assertThat(configuration.getParallelism(), equalTo(processors * 4));
+    }
+
+    @Test
+    public void parallelismIsAtLeastOne() {
+        configuration.setMultiplier(0.01);
+
+        assertThat(configuration.getParallelism(), equalTo(1));
+    }
+
+    @Test
+    public void threadsOverrideMultiplier() {
+        configuration.setMultiplier(4.0);
+        configuration.setThreads(3);
+
+        assertThat(configuration.getParallelism(), equalTo(3));
+
+        configuration.setThreads(0);
+
+        assertThat(configuration.getParallelism(), equalTo(processors * 4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void multiplierMustBePositive() {
+        configuration.setMultiplier(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testsPerCaseCantBeNegative() {
+        configuration.setTestsPerCase(-1);
+    }
+}
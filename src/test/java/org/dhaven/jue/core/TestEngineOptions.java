@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core;
+
+import org.dhaven.jue.Test;
+
+public class TestEngineOptions {
+    @Test(expected = IllegalArgumentException.class)
+    public void rateNeedsDuration() throws Exception {
+        Engine.main("--rate=10");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rampUpCantBeUsedWithDuration() throws Exception {
+        Engine.main("--ramp-up=1", "--duration=1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void forksCantBeUsedWithDuration() throws Exception {
+        Engine.main("--forks=2", "--duration=1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void forksCantBeUsedWithRampUp() throws Exception {
+        Engine.main("--forks=2", "--ramp-up=1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownOptionsAreRejected() throws Exception {
+        Engine.main("--no-such-option");
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dhaven.jue.ListenerTester;
+import org.dhaven.jue.Repeat;
+import org.dhaven.jue.Test;
+import org.dhaven.jue.api.Request;
+import org.dhaven.jue.api.description.Type;
+import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.api.event.TestEvent;
+import org.dhaven.jue.api.results.ParentSummary;
+import org.dhaven.jue.api.results.RepeatedTestSummary;
+import org.dhaven.jue.api.results.Results;
+import org.dhaven.jue.api.results.Summary;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class TestRepeat {
+    private static final AtomicInteger instances = new AtomicInteger();
+
+    private ListenerTester listener;
+
+    private Results run(Class<?> testClass, int repeat) throws Exception {
+        Engine engine = new Engine();
+        Configuration configuration = new Configuration();
+        configuration.setRepeat(repeat);
+        engine.setConfiguration(configuration);
+        listener = new ListenerTester();
+        engine.addTestListener(listener);
+
+        return engine.process(new Request(testClass));
+    }
+
+    private int runsOf(String testName) {
+        int runs = 0;
+
+        for (TestEvent event : listener.getEvents()) {
+            if (event.getType() == Type.Test && event.getStatus() == Status.Passed
+                    && event.getDescription().getName().endsWith("." + testName)) {
+                runs++;
+            }
+        }
+
+        return runs;
+    }
+
+    @Test
+    public void annotatedTestRunsRepeatedly() throws Exception {
+        Results results = run(RepeatedTests.class, 1);
+
+        assertThat(results.passed(), equalTo(true));
+        assertThat(runsOf("repeated"), equalTo(5));
+        assertThat(runsOf("once"), equalTo(1));
+        assertThat(results.numberOfTestsRun(), equalTo(6));
+    }
+
+    @Test
+    public void everyRunHasItsOwnInstance() throws Exception {
+        int before = instances.get();
+        run(CountedTests.class, 1);
+
+        assertThat(instances.get() - before, equalTo(6));
+    }
+
+    @Test
+    public void engineRepeatAppliesToTestsWithoutTheirOwn() throws Exception {
+        run(RepeatedTests.class, 3);
+
+        assertThat(runsOf("repeated"), equalTo(5));
+        assertThat(runsOf("once"), equalTo(3));
+    }
+
+    @Test
+    public void classRepeatAppliesToItsTests() throws Exception {
+        run(RepeatedCase.class, 1);
+
+        assertThat(runsOf("first"), equalTo(4));
+        assertThat(runsOf("second"), equalTo(2));
+    }
+
+    @Test
+    public void resultsHaveOneSummaryPerTest() throws Exception {
+        Results results = run(RepeatedTests.class, 1);
+        ParentSummary testCase = ParentSummary.class.cast(results.getChildren().iterator().next());
+
+        assertThat(testCase.size(), equalTo(2));
+        for (Summary test : testCase.getChildren()) {
+            if (test.getDescription().getName().endsWith(".repeated")) {
+                assertThat(RepeatedTestSummary.class.cast(test).size(), equalTo(5));
+                assertThat(test.complete(), equalTo(true));
+            }
+        }
+    }
+
+    public static class RepeatedTests {
+        @Test
+        @Repeat(5)
+        public void repeated() {
+        }
+
+        @Test
+        public void once() {
+        }
+    }
+
+    public static class CountedTests {
+        public CountedTests() {
+            instances.incrementAndGet();
+        }
+
+        @Test
+        @Repeat(5)
+        public void repeated() {
+        }
+
+        @Test
+        public void once() {
+        }
+    }
+
+    @Repeat(4)
+    public static class RepeatedCase {
+        @Test
+        public void first() {
+        }
+
+        @Test
+        @Repeat(2)
+        public void second() {
+        }
+    }
+}
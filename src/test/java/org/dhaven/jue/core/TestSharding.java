@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.dhaven.jue.Test;
+import org.dhaven.jue.api.Request;
+import org.dhaven.jue.api.results.Results;
+import org.dhaven.jue.core.internal.TestCase;
+import org.dhaven.jue.core.internal.TestNode;
+import org.dhaven.jue.core.internal.TestPlan;
+import org.dhaven.jue.core.internal.runner.TestRunners;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class TestSharding {
+    private static final String SLOW = TestRunners.SlowTests.class.getName() + ".";
+
+    @Test
+    public void shardsTogetherRunEveryTestCaseOnce() throws Exception {
+        List<String> first = caseNames(shard(1, 2, false, null));
+        List<String> second = caseNames(shard(2, 2, false, null));
+
+        assertThat(first.size() + second.size(), equalTo(3));
+        for (String name : first) {
+            assertThat(second.contains(name), equalTo(false));
+        }
+    }
+
+    @Test
+    public void splitTestsAreDealtOutOverTheShards() throws Exception {
+        TestPlan first = TestPlan.from(new Request(TestRunners.SlowTests.class));
+        first.shard(1, 2, true, null);
+        TestPlan second = TestPlan.from(new Request(TestRunners.SlowTests.class));
+        second.shard(2, 2, true, null);
+
+        assertThat(testNames(first), equalTo(listOf(SLOW + "four", SLOW + "three")));
+        assertThat(testNames(second), equalTo(listOf(SLOW + "one", SLOW + "two")));
+    }
+
+    @Test
+    public void historyBalancesTheShards() throws Exception {
+        TimingHistory history = new TimingHistory();
+        history.record(SLOW + "one", 10);
+        history.record(SLOW + "two", 20);
+        history.record(SLOW + "three", 40);
+        history.record(SLOW + "four", 30);
+
+        TestPlan first = TestPlan.from(new Request(TestRunners.SlowTests.class));
+        first.shard(1, 2, true, history);
+        TestPlan second = TestPlan.from(new Request(TestRunners.SlowTests.class));
+        second.shard(2, 2, true, history);
+
+        assertThat(testNames(first), equalTo(listOf(SLOW + "one", SLOW + "three")));
+        assertThat(testNames(second), equalTo(listOf(SLOW + "four", SLOW + "two")));
+    }
+
+    @Test
+    public void moreShardsThanTestCasesLeavesSomeEmpty() throws Exception {
+        assertThat(caseNames(shard(4, 4, false, null)).size(), equalTo(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shardMustBeOneOfTheCount() throws Exception {
+        new Request(Small.class).setShard(3, 2);
+    }
+
+    @Test
+    public void mergedShardsHaveEveryTest() throws Exception {
+        Results merged = new Results();
+
+        for (int index = 1; index <= 2; index++) {
+            Request request = new Request(Small.class, Medium.class, Large.class);
+            request.setShard(index, 2);
+            request.setTestsSplit(true);
+            merged.merge(new Engine().process(request));
+        }
+
+        assertThat(merged.numberOfTestCases(), equalTo(3));
+        assertThat(merged.numberOfTestsRun(), equalTo(6));
+        assertThat(merged.passed(), equalTo(true));
+    }
+
+    private static TestPlan shard(int index, int count, boolean split, TimingHistory history) throws Exception {
+        TestPlan plan = TestPlan.from(new Request(Small.class, Medium.class, Large.class));
+        plan.shard(index, count, split, history);
+
+        return plan;
+    }
+
+    private static List<String> caseNames(TestPlan plan) {
+        List<String> names = new ArrayList<String>();
+
+        for (TestCase testCase : plan.export()) {
+            names.add(testCase.getDescription().getName());
+        }
+
+        return names;
+    }
+
+    private static List<String> testNames(TestPlan plan) {
+        List<String> names = new ArrayList<String>();
+
+        for (TestCase testCase : plan.export()) {
+            for (TestNode node : testCase) {
+                names.add(node.getDescription().getName());
+            }
+        }
+        Collections.sort(names);
+
+        return names;
+    }
+
+    private static List<String> listOf(String... names) {
+        return Arrays.asList(names);
+    }
+
+    public static class Small {
+        @Test
+        public void one() {
+        }
+    }
+
+    public static class Medium {
+        @Test
+        public void one() {
+        }
+
+        @Test
+        public void two() {
+        }
+    }
+
+    public static class Large {
+        @Test
+        public void one() {
+        }
+
+        @Test
+        public void two() {
+        }
+
+        @Test
+        public void three() {
+        }
+    }
+}
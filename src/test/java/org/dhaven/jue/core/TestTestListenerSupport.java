@@ -19,17 +19,34 @@
 
 package org.dhaven.jue.core;
 
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
 import org.dhaven.jue.Before;
 import org.dhaven.jue.ListenerTester;
 import org.dhaven.jue.Test;
 import org.dhaven.jue.api.description.Describable;
 import org.dhaven.jue.api.description.Description;
 import org.dhaven.jue.api.description.Type;
+import org.dhaven.jue.api.event.BatchTestListener;
 import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.api.event.Subscription;
 import org.dhaven.jue.api.event.TestEvent;
+import org.dhaven.jue.api.event.TestListener;
+import org.dhaven.jue.core.internal.dispatch.BlockingWaitStrategy;
+import org.dhaven.jue.core.internal.dispatch.SleepingWaitStrategy;
+import org.dhaven.jue.core.internal.dispatch.WaitStrategy;
+import org.dhaven.jue.core.internal.dispatch.WaitStrategyFactory;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
 
 public class TestTestListenerSupport {
     private TestListenerSupport support;
@@ -117,6 +134,373 @@ public class TestTestListenerSupport {
         assertThat(event.getFailure(), equalTo(failure));
     }
 
+    @Test
+    public void rawEventIsTimeStampedWhenFired() {
+        TestDescribable describable = new TestDescribable("Test Name", Type.Test);
+        long before = System.nanoTime();
+        support.fireTestPassed(describable);
+        long after = System.nanoTime();
+        support.await();
+
+        TestEvent event = listener.getEvents().get(0);
+        assertThat(event.getNanoseconds(), greaterThanOrEqualTo(before));
+        assertThat(event.getNanoseconds(), lessThanOrEqualTo(after));
+    }
+
+    @Test
+    public void cpuTimeIsNotMeasuredByDefault() {
+        support.fireTestPassed(new TestDescribable("Test Name", Type.Test));
+        support.await();
+
+        assertThat(support.isCpuTimeMeasured(), equalTo(false));
+        assertThat(listener.getEvents().get(0).getCpuTime(), equalTo(TestEvent.NOT_MEASURED));
+        assertThat(listener.getEvents().get(0).getUserTime(), equalTo(TestEvent.NOT_MEASURED));
+    }
+
+    @Test
+    public void cpuTimeIsMeasuredWhenAskedFor() {
+        support.setCpuTimeMeasured(true);
+        if (!support.isCpuTimeMeasured()) {
+            return; // the JVM can't do it
+        }
+
+        TestDescribable describable = new TestDescribable("Test Name", Type.Test);
+        support.fireTestStarted(describable);
+        long busy = 0;
+        for (int i = 0; i < 1000000; i++) {
+            busy += i % 7;
+        }
+        support.fireTestPassed(describable);
+        support.await();
+
+        TestEvent started = listener.getEvents().get(0);
+        TestEvent passed = listener.getEvents().get(1);
+        assertThat(busy, greaterThan(0L));
+        assertThat(started.getCpuTime(), greaterThanOrEqualTo(0L));
+        assertThat(passed.getCpuTime(), greaterThanOrEqualTo(started.getCpuTime()));
+        assertThat(passed.getUserTime(), greaterThanOrEqualTo(started.getUserTime()));
+    }
+
+    @Test
+    public void rawFailureIsUnwrapped() {
+        TestDescribable describable = new TestDescribable("Test Name", Type.Test);
+        Throwable cause = new IllegalStateException("Test exception");
+        support.fireTestFailed(describable, new InvocationTargetException(cause));
+        support.await();
+
+        assertThat(listener.getEvents().get(0).getFailure(), equalTo(cause));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rawEventNeedsDescription() {
+        support.fireTestEvent(null, Status.Started, null);
+    }
+
+    @Test
+    public void eventsFromManyThreadsAllArrive() throws Exception {
+        final int eventsEach = 1000;
+        Thread[] threads = new Thread[4];
+
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < eventsEach; j++) {
+                        support.fireTestEvent(new TestEvent(Description.JUEName, Status.Started));
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        support.await();
+
+        assertThat(listener.getEvents().size(), equalTo(threads.length * eventsEach));
+    }
+
+    @Test
+    public void supportCanBeReusedAfterAwait() {
+        support.fireTestEvent(new TestEvent(Description.JUEName, Status.Started));
+        support.await();
+        support.fireTestEvent(new TestEvent(Description.JUEName, Status.Terminated));
+        support.await();
+
+        assertThat(listener.getEvents().size(), equalTo(2));
+    }
+
+    @Test
+    public void smallBufferWithSleepingStrategy() {
+        support = new TestListenerSupport(2, new SleepingWaitStrategy());
+        support.addTestListener(listener);
+
+        for (int i = 0; i < 100; i++) {
+            support.fireTestEvent(new TestEvent(Description.JUEName, Status.Started));
+        }
+        support.await();
+
+        assertThat(listener.getEvents().size(), equalTo(100));
+    }
+
+    @Test
+    public void slowListenerDoesNotHoldUpOthers() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        TestListener slow = new TestListener() {
+            @Override
+            public void handleEvent(TestEvent event) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    // let it go
+                }
+            }
+        };
+        support.addTestListener(slow, OverflowPolicy.Drop, 4);
+
+        for (int i = 0; i < 100; i++) {
+            support.fireTestEvent(new TestEvent(Description.JUEName, Status.Started));
+        }
+
+        LaneStatistics fast = support.getStatistics(listener);
+        while (fast.delivered() < 100) {
+            Thread.sleep(1);
+            fast = support.getStatistics(listener);
+        }
+
+        LaneStatistics statistics = support.getStatistics(slow);
+        assertThat(statistics.dropped(), greaterThan(0L));
+        assertThat(statistics.lag(), lessThanOrEqualTo(4L + 1L));
+
+        release.countDown();
+        support.await();
+
+        statistics = support.getStatistics(slow);
+        assertThat(statistics.lag(), equalTo(0L));
+        assertThat(statistics.delivered() + statistics.dropped(), equalTo(100L));
+        assertThat(listener.getEvents().size(), equalTo(100));
+    }
+
+    @Test
+    public void coalescingListenerSeesLastEventForEachTest() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<TestEvent> received = new ArrayList<TestEvent>();
+        TestListener slow = new TestListener() {
+            @Override
+            public void handleEvent(TestEvent event) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    // let it go
+                }
+                received.add(event);
+            }
+        };
+        support.addTestListener(slow, OverflowPolicy.Coalesce, 2);
+
+        for (int i = 0; i < 20; i++) {
+            TestDescribable test = new TestDescribable("test" + i, Type.Test);
+            support.fireTestStarted(test);
+            support.fireTestPassed(test);
+        }
+
+        release.countDown();
+        support.await();
+
+        LaneStatistics statistics = support.getStatistics(slow);
+        assertThat(statistics.coalesced(), greaterThan(0L));
+        assertThat(statistics.lag(), equalTo(0L));
+        assertThat(received.get(received.size() - 1).getStatus(), equalTo(Status.Passed));
+        assertThat(received.get(received.size() - 1).getDescription().getName(), equalTo("test19"));
+    }
+
+    @Test
+    public void batchListenerGetsEventsInOrder() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<List<TestEvent>> batches = new ArrayList<List<TestEvent>>();
+        BatchTestListener batchListener = new BatchTestListener() {
+            @Override
+            public void handleEvents(List<TestEvent> events) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    // let it go
+                }
+                batches.add(events);
+            }
+
+            @Override
+            public void handleEvent(TestEvent event) {
+                throw new AssertionError("Batch listener called one event at a time");
+            }
+        };
+        support.addTestListener(batchListener);
+
+        for (int i = 0; i < 50; i++) {
+            support.fireTestStarted(new TestDescribable("test" + i, Type.Test));
+        }
+
+        release.countDown();
+        support.await();
+
+        int count = 0;
+        for (List<TestEvent> batch : batches) {
+            for (TestEvent event : batch) {
+                assertThat(event.getDescription().getName(), equalTo("test" + count));
+                count++;
+            }
+        }
+
+        assertThat(count, equalTo(50));
+        assertThat(batches.size(), lessThan(50));
+    }
+
+    @Test
+    public void listenersComeAndGoDuringRun() throws Exception {
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 5000; i++) {
+                    support.fireTestEvent(new TestEvent(Description.JUEName, Status.Started));
+                }
+            }
+        });
+        producer.start();
+
+        for (int i = 0; i < 50; i++) {
+            ListenerTester passing = new ListenerTester();
+            support.addTestListener(passing);
+            support.removeTestListener(passing);
+        }
+
+        producer.join();
+        support.await();
+
+        assertThat(listener.getEvents().size(), equalTo(5000));
+    }
+
+    @Test
+    public void listenerOnlyGetsSubscribedEvents() {
+        ListenerTester failures = new ListenerTester();
+        support.addTestListener(failures, Subscription.to(Status.Failed).only(Type.Test));
+
+        TestDescribable test = new TestDescribable("Test Name", Type.Test);
+        TestDescribable testCase = new TestDescribable("Test Case", Type.TestCase);
+        support.fireTestStarted(test);
+        support.fireTestFailed(test, new AssertionError("on purpose"));
+        support.fireTestFailed(testCase, new AssertionError("on purpose"));
+        support.await();
+
+        assertThat(listener.getEvents().size(), equalTo(3));
+        assertThat(failures.getEvents().size(), equalTo(1));
+        assertThat(failures.getEvents().get(0).getDescription(), equalTo(test.getDescription()));
+    }
+
+    @Test
+    public void unwantedEventsAreNotPublished() {
+        support.removeTestListener(listener);
+        support.addTestListener(listener, Subscription.to(Status.Failed));
+
+        for (int i = 0; i < 10; i++) {
+            support.fireTestStarted(new TestDescribable("Test Name", Type.Test));
+        }
+        support.await();
+
+        assertThat(support.getStatistics(listener).offered(), equalTo(0L));
+    }
+
+    @Test
+    public void inlineListenersAreCalledOnTheTestThread() {
+        support = new TestListenerSupport(DispatchMode.Inline);
+        final List<Thread> threads = new ArrayList<Thread>();
+        support.addTestListener(new TestListener() {
+            public void handleEvent(TestEvent event) {
+                threads.add(Thread.currentThread());
+            }
+        }, Subscription.to(Status.Passed));
+
+        TestDescribable test = new TestDescribable("Test Name", Type.Test);
+        support.fireTestStarted(test);
+        support.fireTestPassed(test);
+        support.fireTestEvent(new TestEvent(test.getDescription(), Status.Passed));
+
+        // no await, the events were delivered before fire returned
+        assertThat(threads.size(), equalTo(2));
+        assertThat(threads.get(0), equalTo(Thread.currentThread()));
+        assertThat(threads.get(1), equalTo(Thread.currentThread()));
+    }
+
+    @Test
+    public void listenerExceptionsAreCounted() {
+        final IllegalStateException broken = new IllegalStateException("on purpose");
+        TestListener failing = new TestListener() {
+            public void handleEvent(TestEvent event) {
+                throw broken;
+            }
+        };
+        support.addTestListener(failing);
+
+        TestDescribable test = new TestDescribable("Test Name", Type.Test);
+        support.fireTestStarted(test);
+        support.fireTestPassed(test);
+        support.await();
+
+        LaneStatistics statistics = support.getStatistics(failing);
+        assertThat(statistics.delivered(), equalTo(2L));
+        assertThat(statistics.failed(), equalTo(2L));
+        assertThat(statistics.lastFailure(), equalTo((RuntimeException) broken));
+        assertThat(support.getStatistics(listener).failed(), equalTo(0L));
+        assertThat(listener.getEvents().size(), equalTo(2));
+    }
+
+    @Test
+    public void inlineDeliveriesAreCounted() {
+        support = new TestListenerSupport(DispatchMode.Inline);
+        support.addTestListener(listener);
+
+        TestDescribable test = new TestDescribable("Test Name", Type.Test);
+        support.fireTestStarted(test);
+        support.fireTestPassed(test);
+        support.fireTestEvent(new TestEvent(test.getDescription(), Status.Passed));
+
+        LaneStatistics statistics = support.getStatistics(listener);
+        assertThat(statistics.offered(), equalTo(3L));
+        assertThat(statistics.delivered(), equalTo(3L));
+        assertThat(statistics.lag(), equalTo(0L));
+    }
+
+    @Test
+    public void everyLaneWaitsOnItsOwn() {
+        final List<WaitStrategy> strategies = new ArrayList<WaitStrategy>();
+        support = new TestListenerSupport(16, new BlockingWaitStrategy(), DispatchMode.Asynchronous,
+                new WaitStrategyFactory() {
+                    public WaitStrategy newWaitStrategy() {
+                        WaitStrategy strategy = new SleepingWaitStrategy();
+                        strategies.add(strategy);
+                        return strategy;
+                    }
+                });
+        ListenerTester other = new ListenerTester();
+        support.addTestListener(listener);
+        support.addTestListener(other);
+
+        TestDescribable test = new TestDescribable("Test Name", Type.Test);
+        support.fireTestStarted(test);
+        support.fireTestPassed(test);
+        support.await();
+
+        assertThat(strategies.size(), equalTo(2));
+        assertThat(strategies.get(0) != strategies.get(1), equalTo(true));
+        assertThat(listener.getEvents().size(), equalTo(2));
+        assertThat(other.getEvents().size(), equalTo(2));
+    }
+
+    @Test
+    public void statisticsForUnknownListener() {
+        assertThat(support.getStatistics(new ListenerTester()), nullValue());
+    }
+
     private static class TestDescribable implements Describable {
         Description description;
 
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.dhaven.jue.Test;
+import org.dhaven.jue.api.Request;
+import org.dhaven.jue.api.description.Description;
+import org.dhaven.jue.api.description.Type;
+import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.api.event.TestEvent;
+import org.dhaven.jue.api.results.Results;
+import org.dhaven.jue.core.internal.TestCase;
+import org.dhaven.jue.core.internal.TestNode;
+import org.dhaven.jue.core.internal.TestPlan;
+import org.dhaven.jue.core.internal.runner.TestRunners;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class TestTimingHistory {
+    private final TimingHistory history = new TimingHistory();
+
+    @Test
+    public void emptyHistoryEstimatesNothing() {
+        assertThat(history.estimate("test"), equalTo(0L));
+    }
+
+    @Test
+    public void newTimesAreAveragedWithOldOnes() {
+        history.record("test", 100);
+        history.record("test", 300);
+
+        assertThat(history.estimate("test"), equalTo(200L));
+    }
+
+    @Test
+    public void unknownTestsTakeTheAverageTime() {
+        history.record("one", 100);
+        history.record("two", 300);
+
+        assertThat(history.estimate("three"), equalTo(200L));
+    }
+
+    @Test
+    public void recordsTheTestsInResults() {
+        Description testCase = new Description("org.TestCase", Type.TestCase);
+        Description test = new Description("org.TestCase.test", Type.Test);
+        Results results = new Results();
+        results.handleEvent(new TestEvent(testCase, Status.Started, null, 0));
+        results.handleEvent(new TestEvent(test, Status.Started, null, 10));
+        results.handleEvent(new TestEvent(test, Status.Passed, null, 60));
+        results.handleEvent(new TestEvent(testCase, Status.Terminated, null, 70));
+
+        history.record(results);
+
+        assertThat(history.size(), equalTo(1));
+        assertThat(history.estimate("org.TestCase.test"), equalTo(50L));
+    }
+
+    @Test
+    public void savedHistoryLoadsTheSame() throws IOException {
+        File file = File.createTempFile("history", ".properties");
+        try {
+            history.record("one", 100);
+            history.record("two", 300);
+            history.save(file);
+
+            TimingHistory loaded = TimingHistory.load(file);
+
+            assertThat(loaded.size(), equalTo(2));
+            assertThat(loaded.estimate("two"), equalTo(300L));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void missingFileIsAnEmptyHistory() throws IOException {
+        assertThat(TimingHistory.load(new File("does-not-exist.properties")).size(), equalTo(0));
+    }
+
+    @Test
+    public void planStartsWithTheLongestTest() throws Exception {
+        String prefix = TestRunners.SlowTests.class.getName() + ".";
+        history.record(prefix + "one", 10);
+        history.record(prefix + "two", 20);
+        history.record(prefix + "three", 40);
+        history.record(prefix + "four", 30);
+
+        TestPlan plan = TestPlan.from(new Request(TestRunners.SlowTests.class));
+        plan.orderLongestFirst(history);
+
+        TestCase testCase = plan.export().iterator().next();
+        Iterator<TestNode> nodes = testCase.iterator();
+        assertThat(nodes.next().getDescription().getName(), equalTo(prefix + "three"));
+        assertThat(nodes.next().getDescription().getName(), equalTo(prefix + "four"));
+        assertThat(nodes.next().getDescription().getName(), equalTo(prefix + "two"));
+        assertThat(nodes.next().getDescription().getName(), equalTo(prefix + "one"));
+    }
+}
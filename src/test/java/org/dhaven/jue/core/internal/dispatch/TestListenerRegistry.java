@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.dispatch;
+
+import org.dhaven.jue.Test;
+import org.dhaven.jue.ListenerTester;
+import org.dhaven.jue.api.description.Type;
+import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.api.event.Subscription;
+import org.dhaven.jue.core.OverflowPolicy;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class TestListenerRegistry {
+    private final ListenerRegistry registry = new ListenerRegistry();
+
+    private ListenerLane newLane(ListenerTester listener) {
+        return new ListenerLane(listener, Subscription.ALL, OverflowPolicy.Block, 4, new SleepingWaitStrategy());
+    }
+
+    @Test
+    public void startsEmpty() {
+        assertThat(registry.snapshot().length, equalTo(0));
+    }
+
+    @Test
+    public void addPublishesNewSnapshot() {
+        ListenerRegistry registry = new ListenerRegistry();
+        ListenerLane[] before = registry.snapshot();
+        ListenerLane lane = newLane(new ListenerTester());
+
+        registry.add(lane);
+
+        assertThat(before.length, equalTo(0));
+        assertThat(registry.snapshot().length, equalTo(1));
+        assertThat(registry.snapshot()[0] == lane, equalTo(true));
+    }
+
+    @Test
+    public void removeKeepsOrderOfOthers() {
+        ListenerTester first = new ListenerTester();
+        ListenerTester second = new ListenerTester();
+        ListenerTester third = new ListenerTester();
+        registry.add(newLane(first));
+        registry.add(newLane(second));
+        registry.add(newLane(third));
+        ListenerLane[] before = registry.snapshot();
+
+        ListenerLane removed = registry.remove(second);
+
+        assertThat(removed.getListener() == second, equalTo(true));
+        assertThat(before.length, equalTo(3));
+        assertThat(registry.snapshot().length, equalTo(2));
+        assertThat(registry.snapshot()[0].getListener() == first, equalTo(true));
+        assertThat(registry.snapshot()[1].getListener() == third, equalTo(true));
+    }
+
+    @Test
+    public void removeUnknownListener() {
+        registry.add(newLane(new ListenerTester()));
+
+        assertThat(registry.remove(new ListenerTester()), nullValue());
+        assertThat(registry.snapshot().length, equalTo(1));
+    }
+
+    @Test
+    public void findListener() {
+        ListenerTester listener = new ListenerTester();
+        ListenerLane lane = newLane(listener);
+        registry.add(lane);
+
+        assertThat(registry.find(listener) == lane, equalTo(true));
+        assertThat(registry.find(new ListenerTester()), nullValue());
+    }
+
+    @Test
+    public void routesFollowSubscriptions() {
+        ListenerTester everything = new ListenerTester();
+        ListenerTester failures = new ListenerTester();
+        registry.add(newLane(everything));
+        registry.add(new ListenerLane(failures, Subscription.to(Status.Failed).only(Type.Test),
+                OverflowPolicy.Block, 4, new SleepingWaitStrategy()));
+
+        assertThat(registry.route(Type.Test, Status.Failed).length, equalTo(2));
+        assertThat(registry.route(Type.Test, Status.Passed).length, equalTo(1));
+        assertThat(registry.route(Type.TestCase, Status.Failed).length, equalTo(1));
+
+        registry.remove(everything);
+        assertThat(registry.route(Type.Test, Status.Passed).length, equalTo(0));
+        assertThat(registry.route(Type.Test, Status.Failed)[0].getListener() == failures, equalTo(true));
+    }
+}
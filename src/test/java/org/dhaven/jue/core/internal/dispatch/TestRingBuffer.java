@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.dispatch;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.dhaven.jue.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class TestRingBuffer {
+    private static final SlotFactory<long[]> FACTORY = new SlotFactory<long[]>() {
+        @Override
+        public long[] newSlot() {
+            return new long[1];
+        }
+    };
+
+    @Test
+    public void sizeIsRoundedUpToPowerOfTwo() {
+        RingBuffer<long[]> buffer = new RingBuffer<long[]>(5, FACTORY, new BlockingWaitStrategy());
+
+        assertThat(buffer.capacity(), equalTo(8));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sizeMustBePositive() {
+        new RingBuffer<long[]>(0, FACTORY, new BlockingWaitStrategy());
+    }
+
+    @Test
+    public void publishedSlotIsVisible() {
+        RingBuffer<long[]> buffer = new RingBuffer<long[]>(4, FACTORY, new BlockingWaitStrategy());
+
+        long sequence = buffer.next();
+        assertThat(buffer.isPublished(sequence), equalTo(false));
+
+        buffer.get(sequence)[0] = 42;
+        buffer.publish(sequence);
+
+        assertThat(buffer.isPublished(sequence), equalTo(true));
+        assertThat(buffer.highestPublished(0), equalTo(0L));
+        assertThat(buffer.get(0)[0], equalTo(42L));
+    }
+
+    @Test
+    public void highestPublishedStopsAtGap() {
+        RingBuffer<long[]> buffer = new RingBuffer<long[]>(4, FACTORY, new BlockingWaitStrategy());
+
+        long first = buffer.next();
+        long second = buffer.next();
+        buffer.publish(second);
+
+        assertThat(buffer.highestPublished(first), equalTo(first - 1));
+
+        buffer.publish(first);
+        assertThat(buffer.highestPublished(first), equalTo(second));
+    }
+
+    @Test
+    public void tryNextFailsWhenFull() {
+        RingBuffer<long[]> buffer = new RingBuffer<long[]>(2, FACTORY, new BlockingWaitStrategy());
+
+        assertThat(buffer.tryNext(), equalTo(0L));
+        assertThat(buffer.tryNext(), equalTo(1L));
+        assertThat(buffer.tryNext(), equalTo(-1L));
+
+        buffer.publish(0);
+        buffer.release(0);
+        assertThat(buffer.tryNext(), equalTo(2L));
+    }
+
+    @Test
+    public void slotsAreReusedAfterWrapping() {
+        RingBuffer<long[]> buffer = new RingBuffer<long[]>(2, FACTORY, new BlockingWaitStrategy());
+        long[] first = buffer.get(0);
+
+        for (long i = 0; i < 2; i++) {
+            buffer.publish(buffer.next());
+        }
+        buffer.release(1);
+
+        long sequence = buffer.next();
+        assertThat(sequence, equalTo(2L));
+        assertThat(buffer.get(sequence) == first, equalTo(true));
+        assertThat(buffer.isPublished(sequence), equalTo(false));
+    }
+
+    @Test
+    public void manyProducersWithBlockingStrategy() throws Exception {
+        assertAllEventsConsumed(new BlockingWaitStrategy());
+    }
+
+    @Test
+    public void manyProducersWithSleepingStrategy() throws Exception {
+        assertAllEventsConsumed(new SleepingWaitStrategy());
+    }
+
+    @Test
+    public void manyProducersWithYieldingStrategy() throws Exception {
+        assertAllEventsConsumed(new YieldingWaitStrategy());
+    }
+
+    private void assertAllEventsConsumed(WaitStrategy strategy) throws Exception {
+        final int producers = 4;
+        final int eventsEach = 10000;
+        final RingBuffer<long[]> buffer = new RingBuffer<long[]>(64, FACTORY, strategy);
+        final AtomicLong sum = new AtomicLong();
+        final AtomicLong count = new AtomicLong();
+
+        EventDispatcher<long[]> dispatcher = new EventDispatcher<long[]>(buffer, new SlotHandler<long[]>() {
+            @Override
+            public void onSlot(long[] slot, boolean endOfBatch) {
+                sum.addAndGet(slot[0]);
+                count.incrementAndGet();
+            }
+        });
+        Thread consumer = new Thread(dispatcher);
+        consumer.start();
+
+        Thread[] threads = new Thread[producers];
+        for (int i = 0; i < producers; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 1; j <= eventsEach; j++) {
+                        long sequence = buffer.next();
+                        buffer.get(sequence)[0] = j;
+                        buffer.publish(sequence);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        buffer.drainTo(buffer.getCursor());
+        dispatcher.halt();
+        consumer.join();
+
+        long expectedSum = producers * ((long) eventsEach * (eventsEach + 1) / 2);
+        assertThat(count.get(), equalTo((long) producers * eventsEach));
+        assertThat(sum.get(), equalTo(expectedSum));
+    }
+}
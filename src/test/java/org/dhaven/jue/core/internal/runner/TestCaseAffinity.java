@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.runner;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.dhaven.jue.CaseAffine;
+import org.dhaven.jue.ListenerTester;
+import org.dhaven.jue.Test;
+import org.dhaven.jue.api.Request;
+import org.dhaven.jue.api.description.Type;
+import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.api.event.TestEvent;
+import org.dhaven.jue.core.Configuration;
+import org.dhaven.jue.core.Engine;
+import org.dhaven.jue.core.internal.TestCase;
+import org.dhaven.jue.core.internal.TestNode;
+import org.dhaven.jue.core.internal.TestPlan;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class TestCaseAffinity {
+    private List<TestEvent> run(TestRunner runner, boolean caseAffine, Class<?>... testClasses)
+            throws Exception {
+        Engine engine = new Engine();
+        engine.setTestRunner(runner);
+        Configuration configuration = new Configuration();
+        configuration.setThreads(4);
+        configuration.setCaseAffine(caseAffine);
+        engine.setConfiguration(configuration);
+        ListenerTester listener = new ListenerTester();
+        engine.addTestListener(listener);
+
+        assertThat(engine.process(new Request(testClasses)).getStatus(), equalTo(Status.Passed));
+
+        return listener.getEvents();
+    }
+
+    private List<String> plannedOrder(Class<?> testClass) throws Exception {
+        List<String> names = new ArrayList<String>();
+
+        for (TestCase testCase : TestPlan.from(new Request(testClass)).export()) {
+            for (TestNode node : testCase) {
+                names.add(node.getDescription().getName());
+            }
+        }
+
+        return names;
+    }
+
+    private List<String> startedOrder(List<TestEvent> events, Class<?> testClass) {
+        List<String> names = new ArrayList<String>();
+
+        for (TestEvent event : events) {
+            String name = event.getDescription().getName();
+            if (event.getType() == Type.Test && event.getStatus() == Status.Started
+                    && name.startsWith(testClass.getName() + ".")) {
+                names.add(name);
+            }
+        }
+
+        return names;
+    }
+
+    private Set<Long> threads(List<TestEvent> events, Class<?> testClass) {
+        Set<Long> threads = new HashSet<Long>();
+
+        for (TestEvent event : events) {
+            if (event.getType() == Type.Test
+                    && event.getDescription().getName().startsWith(testClass.getName() + ".")) {
+                threads.add(event.getThreadId());
+            }
+        }
+
+        return threads;
+    }
+
+    private void assertPinned(TestRunner runner) throws Exception {
+        List<TestEvent> events = run(runner, false, PinnedTests.class);
+
+        assertThat(threads(events, PinnedTests.class).size(), equalTo(1));
+        assertThat(startedOrder(events, PinnedTests.class), equalTo(plannedOrder(PinnedTests.class)));
+    }
+
+    @Test
+    public void forkJoinRunnerPinsAffineCase() throws Exception {
+        assertPinned(new TestForkJoinPool());
+    }
+
+    @Test
+    public void threadPoolRunnerPinsAffineCase() throws Exception {
+        assertPinned(new TestThreadPool());
+    }
+
+    @Test
+    public void virtualThreadRunnerPinsAffineCase() throws Exception {
+        assertPinned(new TestVirtualThreads());
+    }
+
+    @Test
+    public void configurationPinsEveryCase() throws Exception {
+        List<TestEvent> events = run(new TestForkJoinPool(), true, UnpinnedTests.class);
+
+        assertThat(threads(events, UnpinnedTests.class).size(), equalTo(1));
+        assertThat(startedOrder(events, UnpinnedTests.class), equalTo(plannedOrder(UnpinnedTests.class)));
+    }
+
+    private long[] span(List<TestEvent> events, Class<?> testClass) {
+        long[] span = {Long.MAX_VALUE, Long.MIN_VALUE};
+
+        for (TestEvent event : events) {
+            if (event.getType() == Type.Test
+                    && event.getDescription().getName().startsWith(testClass.getName() + ".")) {
+                span[0] = Math.min(span[0], event.getNanoseconds());
+                span[1] = Math.max(span[1], event.getNanoseconds());
+            }
+        }
+
+        return span;
+    }
+
+    @Test
+    public void affineCasesRunAlongsideEachOther() throws Exception {
+        List<TestEvent> events = run(new TestThreadPool(), true, PinnedTests.class, UnpinnedTests.class);
+
+        long[] pinned = span(events, PinnedTests.class);
+        long[] unpinned = span(events, UnpinnedTests.class);
+        assertThat(pinned[0] < unpinned[1] && unpinned[0] < pinned[1], equalTo(true));
+    }
+
+    @CaseAffine
+    public static class PinnedTests {
+        @Test
+        public void one() throws InterruptedException {
+            Thread.sleep(20);
+        }
+
+        @Test
+        public void two() throws InterruptedException {
+            Thread.sleep(20);
+        }
+
+        @Test
+        public void three() throws InterruptedException {
+            Thread.sleep(20);
+        }
+
+        @Test
+        public void four() throws InterruptedException {
+            Thread.sleep(20);
+        }
+    }
+
+    public static class UnpinnedTests {
+        @Test
+        public void one() throws InterruptedException {
+            Thread.sleep(20);
+        }
+
+        @Test
+        public void two() throws InterruptedException {
+            Thread.sleep(20);
+        }
+
+        @Test
+        public void three() throws InterruptedException {
+            Thread.sleep(20);
+        }
+
+        @Test
+        public void four() throws InterruptedException {
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.runner;
+
+import org.dhaven.jue.ListenerTester;
+import org.dhaven.jue.Test;
+import org.dhaven.jue.api.Request;
+import org.dhaven.jue.api.description.Type;
+import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.api.event.TestEvent;
+import org.dhaven.jue.api.results.Results;
+import org.dhaven.jue.core.Configuration;
+import org.dhaven.jue.core.Engine;
+import org.dhaven.jue.core.TestListenerSupport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class TestFailFast {
+    private static final int NUMBER_OF_TESTS = 8;
+
+    private ListenerTester listener;
+
+    private Results run(TestRunner runner, int failureLimit) throws Exception {
+        Engine engine = new Engine();
+        engine.setTestRunner(runner);
+        Configuration configuration = new Configuration();
+        configuration.setThreads(1);
+        configuration.setFailureLimit(failureLimit);
+        engine.setConfiguration(configuration);
+        listener = new ListenerTester();
+        engine.addTestListener(listener);
+
+        return engine.process(new Request(FailingTests.class));
+    }
+
+    private int count(Type type, Status status) {
+        int count = 0;
+
+        for (TestEvent event : listener.getEvents()) {
+            if (event.getType() == type && event.getStatus() == status) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private void assertStopsAfter(TestRunner runner, int failureLimit) throws Exception {
+        Results results = run(runner, failureLimit);
+
+        assertThat(results.complete(), equalTo(true));
+        assertThat(count(Type.Test, Status.Started), equalTo(NUMBER_OF_TESTS));
+        assertThat(count(Type.Test, Status.Failed), equalTo(failureLimit));
+        assertThat(count(Type.Test, Status.Terminated), equalTo(NUMBER_OF_TESTS - failureLimit));
+        assertThat(count(Type.TestCase, Status.Terminated), equalTo(1));
+    }
+
+    @Test
+    public void sequentialRunnerStopsAfterFirstFailure() throws Exception {
+        assertStopsAfter(new TestSequential(), 1);
+    }
+
+    @Test
+    public void forkJoinRunnerStopsAfterFirstFailure() throws Exception {
+        assertStopsAfter(new TestForkJoinPool(), 1);
+    }
+
+    @Test
+    public void threadPoolRunnerStopsAfterFirstFailure() throws Exception {
+        assertStopsAfter(new TestThreadPool(), 1);
+    }
+
+    @Test
+    public void virtualThreadRunnerStopsAfterFirstFailure() throws Exception {
+        assertStopsAfter(new TestVirtualThreads(1), 1);
+    }
+
+    @Test
+    public void stopsAfterFailureLimit() throws Exception {
+        assertStopsAfter(new TestThreadPool(), 3);
+    }
+
+    @Test
+    public void runsEveryTestWithoutLimit() throws Exception {
+        run(new TestForkJoinPool(), 0);
+
+        assertThat(count(Type.Test, Status.Failed), equalTo(NUMBER_OF_TESTS));
+        assertThat(count(Type.Test, Status.Terminated), equalTo(0));
+    }
+
+    @Test
+    public void cancelledRunnerRunsNothing() throws Exception {
+        TestRunner runner = new TestThreadPool() {
+            @Override
+            public void start(TestListenerSupport support, Configuration configuration) {
+                super.start(support, configuration);
+                cancel();
+            }
+        };
+        run(runner, 0);
+
+        assertThat(count(Type.Test, Status.Failed), equalTo(0));
+        assertThat(count(Type.Test, Status.Terminated), equalTo(NUMBER_OF_TESTS));
+    }
+
+    public static class FailingTests {
+        @Test
+        public void one() {
+            throw new AssertionError("one");
+        }
+
+        @Test
+        public void two() {
+            throw new AssertionError("two");
+        }
+
+        @Test
+        public void three() {
+            throw new AssertionError("three");
+        }
+
+        @Test
+        public void four() {
+            throw new AssertionError("four");
+        }
+
+        @Test
+        public void five() {
+            throw new AssertionError("five");
+        }
+
+        @Test
+        public void six() {
+            throw new AssertionError("six");
+        }
+
+        @Test
+        public void seven() {
+            throw new AssertionError("seven");
+        }
+
+        @Test
+        public void eight() {
+            throw new AssertionError("eight");
+        }
+    }
+}
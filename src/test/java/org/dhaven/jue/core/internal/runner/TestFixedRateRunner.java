@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.runner;
+
+import java.util.concurrent.TimeUnit;
+
+import org.dhaven.jue.Test;
+import org.dhaven.jue.api.Request;
+import org.dhaven.jue.api.results.ParentSummary;
+import org.dhaven.jue.api.results.RepeatedTestSummary;
+import org.dhaven.jue.api.results.Results;
+import org.dhaven.jue.api.results.Summary;
+import org.dhaven.jue.core.Engine;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+public class TestFixedRateRunner {
+    private Results run(Class<?> tests, double rate, long millis) throws Exception {
+        Engine engine = new Engine();
+        engine.setTestRunner(new TestFixedRate(rate, millis, TimeUnit.MILLISECONDS));
+
+        return engine.process(new Request(tests));
+    }
+
+    private RepeatedTestSummary test(Results results, String name) {
+        ParentSummary testCase = ParentSummary.class.cast(results.getChildren().iterator().next());
+
+        for (Summary test : testCase.getChildren()) {
+            if (test.getDescription().getName().endsWith("." + name)) {
+                return RepeatedTestSummary.class.cast(test);
+            }
+        }
+
+        throw new AssertionError("No test named " + name);
+    }
+
+    @Test
+    public void runsStartOnSchedule() throws Exception {
+        long start = System.nanoTime();
+        Results results = run(QuickTests.class, 200, 250);
+        long millis = (System.nanoTime() - start) / 1000000;
+
+        RepeatedTestSummary quick = test(results, "quick");
+        assertThat(results.complete(), equalTo(true));
+        assertThat(quick.size(), equalTo(50));
+        assertThat(millis, greaterThan(240L));
+    }
+
+    @Test
+    public void lateStartsCountTowardsTheRunTime() throws Exception {
+        // 40 runs that take 10ms each, one at a time, started 5ms apart
+        Results results = run(SlowTests.class, 200, 200);
+
+        RepeatedTestSummary slow = test(results, "oneAtATime");
+        assertThat(slow.size(), equalTo(40));
+        assertThat(slow.percentile(1.0), greaterThan(TimeUnit.MILLISECONDS.toNanos(100)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rateMustBePositive() {
+        new TestFixedRate(0, 1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void slowRunsDoNotHoldBackTheSchedule() throws Exception {
+        long start = System.nanoTime();
+        Results results = run(SleepingTests.class, 100, 100);
+        long millis = (System.nanoTime() - start) / 1000000;
+
+        assertThat(test(results, "sleeps").size(), equalTo(10));
+        assertThat(millis, lessThan(1000L));
+    }
+
+    public static class QuickTests {
+        @Test
+        public void quick() {
+        }
+    }
+
+    public static class SlowTests {
+        private static final Object lock = new Object();
+
+        @Test
+        public void oneAtATime() throws InterruptedException {
+            synchronized (lock) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    public static class SleepingTests {
+        @Test
+        public void sleeps() throws InterruptedException {
+            Thread.sleep(200);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.runner;
+
+import java.util.List;
+
+import org.dhaven.jue.Test;
+import org.dhaven.jue.UsesResource;
+import org.dhaven.jue.api.Request;
+import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.api.results.Failure;
+import org.dhaven.jue.api.results.ParentSummary;
+import org.dhaven.jue.api.results.Results;
+import org.dhaven.jue.api.results.Summary;
+import org.dhaven.jue.core.Engine;
+import org.dhaven.jue.core.internal.TestCase;
+import org.dhaven.jue.core.internal.TestPlan;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+public class TestForkedJvmsRunner {
+    private Results run(int forks, Class<?>... testClasses) throws Exception {
+        Engine engine = new Engine();
+        engine.setTestRunner(new TestForkedJvms(forks));
+
+        return engine.process(new Request(testClasses));
+    }
+
+    private Summary find(Results results, Class<?> testClass, String name) {
+        for (Summary testCase : results.getChildren()) {
+            if (!testCase.getDescription().getName().equals(testClass.getName())) {
+                continue;
+            }
+            if (null == name) {
+                return testCase;
+            }
+
+            for (Summary test : ParentSummary.class.cast(testCase).getChildren()) {
+                if (test.getDescription().getName().equals(testClass.getName() + "." + name)) {
+                    return test;
+                }
+            }
+        }
+
+        throw new AssertionError("Not in the results: " + testClass.getName() + " " + name);
+    }
+
+    @Test
+    public void resultsComeBackFromEveryJvm() throws Exception {
+        Results results = run(2, PassingTests.class, FailingTests.class);
+
+        assertThat(results.complete(), equalTo(true));
+        assertThat(results.numberOfTestCases(), equalTo(2));
+        assertThat(results.numberOfTestsRun(), equalTo(3));
+        assertThat(find(results, PassingTests.class, null).getStatus(), equalTo(Status.Passed));
+        assertThat(find(results, FailingTests.class, null).getStatus(), equalTo(Status.Failed));
+    }
+
+    @Test
+    public void failuresCrossTheJvmBoundary() throws Exception {
+        Results results = run(1, FailingTests.class);
+
+        Failure failure = find(results, FailingTests.class, "fails").getFailures().iterator().next();
+        assertThat(failure.getCause().getMessage(), equalTo("failed in the child"));
+    }
+
+    @Test
+    public void crashIsContained() throws Exception {
+        Results results = run(2, PassingTests.class, CrashingTests.class);
+
+        assertThat(results.complete(), equalTo(true));
+        assertThat(find(results, PassingTests.class, null).getStatus(), equalTo(Status.Passed));
+
+        Summary crashed = find(results, CrashingTests.class, "halts");
+        assertThat(crashed.getStatus(), equalTo(Status.Terminated));
+        assertThat(crashed.getFailures().iterator().next().getCause().getMessage(),
+                containsString("exited with code 3"));
+    }
+
+    @Test
+    public void testCasesSharingAResourceShareAJvm() throws Exception {
+        TestPlan plan = TestPlan.from(new Request(DatabaseTests.class, PassingTests.class, MoreDatabaseTests.class));
+        List<List<TestCase>> shares = new TestForkedJvms(3).share(plan.export());
+
+        assertThat(shares.size(), equalTo(2));
+        for (List<TestCase> share : shares) {
+            boolean database = share.get(0).getDescription().getName().contains("DatabaseTests");
+            for (TestCase testCase : share) {
+                assertThat(testCase.getDescription().getName().contains("DatabaseTests"), equalTo(database));
+            }
+        }
+    }
+
+    @Test
+    public void childRunsThePlannedTests() throws Exception {
+        Engine engine = new Engine();
+        engine.setTestRunner(new TestForkedJvms(1));
+        Request request = new Request(DatabaseTests.class);
+        request.setShard(1, 2);
+        request.setTestsSplit(true);
+
+        Results results = engine.process(request);
+
+        assertThat(results.complete(), equalTo(true));
+        assertThat(results.numberOfTestsRun(), equalTo(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void needsAJvm() {
+        new TestForkedJvms(0);
+    }
+
+    public static class PassingTests {
+        @Test
+        public void passes() {
+        }
+
+        @Test
+        public void passesToo() {
+        }
+    }
+
+    public static class FailingTests {
+        @Test
+        public void fails() {
+            throw new AssertionError("failed in the child");
+        }
+    }
+
+    @UsesResource("fork database")
+    public static class DatabaseTests {
+        @Test
+        public void reads() {
+        }
+
+        @Test
+        public void writes() {
+        }
+    }
+
+    public static class MoreDatabaseTests {
+        @Test
+        @UsesResource("fork database")
+        public void migrates() {
+        }
+    }
+
+    public static class CrashingTests {
+        @Test
+        public void halts() throws InterruptedException {
+            Runtime.getRuntime().halt(3);
+        }
+    }
+}
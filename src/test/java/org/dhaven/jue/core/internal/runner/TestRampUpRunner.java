@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.runner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.dhaven.jue.Test;
+import org.dhaven.jue.api.Request;
+import org.dhaven.jue.api.results.ParentSummary;
+import org.dhaven.jue.api.results.RepeatedTestSummary;
+import org.dhaven.jue.api.results.Results;
+import org.dhaven.jue.api.results.Summary;
+import org.dhaven.jue.core.Configuration;
+import org.dhaven.jue.core.Engine;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class TestRampUpRunner {
+    private List<RepeatedTestSummary> steps(Results results) {
+        ParentSummary testCase = ParentSummary.class.cast(results.getChildren().iterator().next());
+        List<RepeatedTestSummary> steps = new ArrayList<RepeatedTestSummary>();
+
+        for (Summary test : testCase.getChildren()) {
+            steps.add(RepeatedTestSummary.class.cast(test));
+        }
+
+        return steps;
+    }
+
+    @Test
+    public void defaultStepsDoubleUpToParallelism() {
+        assertThat(Arrays.toString(TestRampUp.doubling(1)), equalTo("[1]"));
+        assertThat(Arrays.toString(TestRampUp.doubling(8)), equalTo("[1, 2, 4, 8]"));
+        assertThat(Arrays.toString(TestRampUp.doubling(12)), equalTo("[1, 2, 4, 8, 12]"));
+    }
+
+    @Test
+    public void resultsAreBrokenDownByStep() throws Exception {
+        Engine engine = new Engine();
+        engine.setTestRunner(new TestRampUp(60, TimeUnit.MILLISECONDS, 1, 2, 4));
+        Configuration configuration = new Configuration();
+        configuration.setThreads(4);
+        engine.setConfiguration(configuration);
+
+        Results results = engine.process(new Request(SleepyTest.class));
+        List<RepeatedTestSummary> steps = steps(results);
+
+        assertThat(results.complete(), equalTo(true));
+        assertThat(steps.size(), equalTo(3));
+
+        int runs = 0;
+        for (RepeatedTestSummary step : steps) {
+            Object[] parameters = step.getDescription().getParameters();
+            assertThat(parameters.length, equalTo(2));
+            assertThat(step.size(), greaterThan(0));
+            runs += step.size();
+        }
+        assertThat(results.numberOfTestsRun(), equalTo(runs));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void stepsNeedWorkers() {
+        new TestRampUp(1, TimeUnit.SECONDS, 1, 0);
+    }
+
+    public static class SleepyTest {
+        @Test
+        public void sleeps() throws InterruptedException {
+            Thread.sleep(2);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.runner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.dhaven.jue.Test;
+import org.dhaven.jue.api.description.Description;
+import org.dhaven.jue.api.description.Type;
+import org.dhaven.jue.core.internal.TestCase;
+import org.dhaven.jue.core.internal.TestNode;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class TestResourceGate {
+    private TestNode node(String... resources) throws Exception {
+        TestNode node = new TestNode(TestResourceGate.class, TestResourceGate.class.getMethod("example"));
+        for (String resource : resources) {
+            node.addResource(resource, 1);
+        }
+
+        return node;
+    }
+
+    private ResourceGate<String> gate(TestNode... nodes) {
+        TestCase testCase = new TestCase(new Description("gate", Type.TestCase));
+        for (TestNode node : nodes) {
+            testCase.addTest(node);
+        }
+
+        return new ResourceGate<String>(Collections.singletonList(testCase));
+    }
+
+    @Test
+    public void example() {
+        // only here to give the nodes a test method
+    }
+
+    @Test
+    public void testsWithoutResourcesAlwaysEnter() throws Exception {
+        TestNode free = node();
+        ResourceGate<String> gate = gate(free);
+
+        assertThat(gate.enter("one", free), equalTo(true));
+        assertThat(gate.enter("two", free), equalTo(true));
+        assertThat(gate.exit(free).isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void heldBackUntilResourceIsGivenUp() throws Exception {
+        TestNode first = node("db");
+        TestNode second = node("db");
+        ResourceGate<String> gate = gate(first, second);
+
+        assertThat(gate.enter("first", first), equalTo(true));
+        assertThat(gate.enter("second", second), equalTo(false));
+        assertThat(gate.tryEnter(second), equalTo(false));
+        assertThat(gate.exit(first), equalTo(Arrays.asList("second")));
+        assertThat(gate.exit(second).isEmpty(), equalTo(true));
+        assertThat(gate.tryEnter(first), equalTo(true));
+    }
+
+    @Test
+    public void permitsLetThatManyIn() throws Exception {
+        TestNode node = node();
+        node.addResource("ports", 2);
+        ResourceGate<String> gate = gate(node);
+
+        assertThat(gate.enter("one", node), equalTo(true));
+        assertThat(gate.enter("two", node), equalTo(true));
+        assertThat(gate.enter("three", node), equalTo(false));
+    }
+
+    @Test
+    public void smallestPermitsCount() throws Exception {
+        TestNode wide = node();
+        wide.addResource("db", 3);
+        TestNode narrow = node();
+        narrow.addResource("db", 1);
+        ResourceGate<String> gate = gate(wide, narrow);
+
+        assertThat(gate.enter("wide", wide), equalTo(true));
+        assertThat(gate.enter("narrow", narrow), equalTo(false));
+    }
+
+    @Test
+    public void waitingTestsKeepTheirTurn() throws Exception {
+        TestNode db = node("db");
+        TestNode both = node("db", "ports");
+        TestNode ports = node("ports");
+        ResourceGate<String> gate = gate(db, both, ports);
+
+        assertThat(gate.enter("db", db), equalTo(true));
+        assertThat(gate.enter("both", both), equalTo(false));
+        // the ports are free, but the test needing both asked first
+        assertThat(gate.enter("ports", ports), equalTo(false));
+
+        List<String> ready = gate.exit(db);
+        assertThat(ready, equalTo(Arrays.asList("both")));
+        assertThat(gate.exit(both), equalTo(Arrays.asList("ports")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void resourceNeedsAPermit() throws Exception {
+        node().addResource("db", 0);
+    }
+}
@@ -19,15 +19,28 @@
 
 package org.dhaven.jue.core.internal.runner;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.dhaven.jue.ListenerTester;
 import org.dhaven.jue.Test;
 import org.dhaven.jue.TestSemantics;
 import org.dhaven.jue.api.Request;
+import org.dhaven.jue.api.description.Description;
+import org.dhaven.jue.api.description.Type;
 import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.api.event.TestEvent;
 import org.dhaven.jue.api.results.Results;
+import org.dhaven.jue.core.Configuration;
 import org.dhaven.jue.core.Engine;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class TestRunners {
     private Results runTestSemanticsWith(TestRunner runner, Class<?> testClass) throws Exception {
@@ -56,6 +69,12 @@ public class TestRunners {
                 equalTo(Status.Passed));
     }
 
+    @Test
+    public void runSemanticsWithVirtualThreadRunner() throws Exception {
+        assertThat(runTestSemanticsWith(new TestVirtualThreads(), TestSemantics.class).getStatus(),
+                equalTo(Status.Passed));
+    }
+
     @Test
     public void runEmptyTestWithSequentialRunner() throws Exception {
         assertThat(runTestSemanticsWith(new TestSequential(), TestSemantics.EmptyTest.class).getStatus(),
@@ -74,8 +93,134 @@ public class TestRunners {
                 equalTo(Status.Failed));
     }
 
+    @Test
+    public void forkJoinRunnerSpreadsOneTestCaseOverThreads() throws Exception {
+        Engine engine = new Engine();
+        engine.setTestRunner(new TestForkJoinPool());
+        ListenerTester listener = new ListenerTester();
+        engine.addTestListener(listener);
+
+        engine.process(new Request(SlowTests.class));
+
+        Set<Long> threads = new HashSet<Long>();
+        long lastTestEnded = 0;
+        long caseTerminated = 0;
+        for (TestEvent event : listener.getEvents()) {
+            if (event.getType() == Type.Test && event.getStatus() == Status.Started) {
+                threads.add(event.getThreadId());
+            } else if (event.getType() == Type.Test) {
+                lastTestEnded = Math.max(lastTestEnded, event.getNanoseconds());
+            } else if (event.getType() == Type.TestCase && event.getStatus() == Status.Terminated) {
+                caseTerminated = event.getNanoseconds();
+            }
+        }
+
+        assertThat(caseTerminated, greaterThanOrEqualTo(lastTestEnded));
+        if (Runtime.getRuntime().availableProcessors() > 1) {
+            assertThat(threads.size(), greaterThan(1));
+        }
+    }
+
+    private int mostTestsAtOnce(TestRunner runner, int threads, int testsPerCase) throws Exception {
+        Engine engine = new Engine();
+        engine.setTestRunner(runner);
+        Configuration configuration = new Configuration();
+        configuration.setThreads(threads);
+        configuration.setTestsPerCase(testsPerCase);
+        engine.setConfiguration(configuration);
+        ListenerTester listener = new ListenerTester();
+        engine.addTestListener(listener);
+
+        assertThat(engine.process(new Request(SlowTests.class)).getStatus(), equalTo(Status.Passed));
+
+        Map<Description, Long> started = new HashMap<Description, Long>();
+        Map<Description, Long> ended = new HashMap<Description, Long>();
+        for (TestEvent event : listener.getEvents()) {
+            if (event.getType() == Type.Test) {
+                (event.getStatus() == Status.Started ? started : ended)
+                        .put(event.getDescription(), event.getNanoseconds());
+            }
+        }
+
+        int most = 0;
+        for (Long time : started.values()) {
+            int running = 0;
+            for (Description test : started.keySet()) {
+                if (started.get(test) <= time && ended.get(test) > time) {
+                    running++;
+                }
+            }
+            most = Math.max(most, running);
+        }
+
+        return most;
+    }
+
+    @Test
+    public void forkJoinRunnerKeepsToTestsPerCase() throws Exception {
+        assertThat(mostTestsAtOnce(new TestForkJoinPool(), 4, 1), equalTo(1));
+    }
+
+    @Test
+    public void threadPoolRunnerKeepsToTestsPerCase() throws Exception {
+        assertThat(mostTestsAtOnce(new TestThreadPool(), 4, 1), equalTo(1));
+    }
+
+    @Test
+    public void threadPoolRunnerUsesConfiguredThreads() throws Exception {
+        assertThat(mostTestsAtOnce(new TestThreadPool(), 2, Configuration.UNLIMITED), lessThanOrEqualTo(2));
+    }
+
+    @Test
+    public void forkJoinRunnerUsesConfiguredThreads() throws Exception {
+        assertThat(mostTestsAtOnce(new TestForkJoinPool(), 2, Configuration.UNLIMITED), lessThanOrEqualTo(2));
+    }
+
+    @Test
+    public void runEmptyTestWithVirtualThreadRunner() throws Exception {
+        assertThat(runTestSemanticsWith(new TestVirtualThreads(), TestSemantics.EmptyTest.class).getStatus(),
+                equalTo(Status.Failed));
+    }
+
+    @Test
+    public void virtualThreadRunnerRunsBlockedTestsAtOnce() throws Exception {
+        assertThat(mostTestsAtOnce(new TestVirtualThreads(), 1, Configuration.UNLIMITED), greaterThan(1));
+    }
+
+    @Test
+    public void virtualThreadRunnerKeepsToConcurrency() throws Exception {
+        assertThat(mostTestsAtOnce(new TestVirtualThreads(2), 1, Configuration.UNLIMITED), lessThanOrEqualTo(2));
+    }
+
+    @Test
+    public void virtualThreadRunnerKeepsToTestsPerCase() throws Exception {
+        assertThat(mostTestsAtOnce(new TestVirtualThreads(), 1, 1), equalTo(1));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void assertThatRunnerMustExist() throws Exception {
         runTestSemanticsWith(null, TestSemantics.class);
     }
+
+    public static class SlowTests {
+        @Test
+        public void one() throws InterruptedException {
+            Thread.sleep(20);
+        }
+
+        @Test
+        public void two() throws InterruptedException {
+            Thread.sleep(20);
+        }
+
+        @Test
+        public void three() throws InterruptedException {
+            Thread.sleep(20);
+        }
+
+        @Test
+        public void four() throws InterruptedException {
+            Thread.sleep(20);
+        }
+    }
 }
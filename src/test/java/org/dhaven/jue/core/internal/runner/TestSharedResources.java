@@ -0,0 +1,426 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.runner;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dhaven.jue.ListenerTester;
+import org.dhaven.jue.Test;
+import org.dhaven.jue.UsesResource;
+import org.dhaven.jue.api.Request;
+import org.dhaven.jue.api.description.Type;
+import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.api.event.TestEvent;
+import org.dhaven.jue.core.Configuration;
+import org.dhaven.jue.core.Engine;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class TestSharedResources {
+    private static final long STUCK_MILLIS = 300;
+
+    private ListenerTester run(TestRunner runner, int threads, Class<?> testClass) throws Exception {
+        Engine engine = new Engine();
+        engine.setTestRunner(runner);
+        Configuration configuration = new Configuration();
+        configuration.setThreads(threads);
+        engine.setConfiguration(configuration);
+        ListenerTester listener = new ListenerTester();
+        engine.addTestListener(listener);
+
+        assertThat(engine.process(new Request(testClass)).getStatus(), equalTo(Status.Passed));
+
+        return listener;
+    }
+
+    private static void use(AtomicInteger inUse, AtomicInteger most) throws InterruptedException {
+        int using = inUse.incrementAndGet();
+        synchronized (most) {
+            most.set(Math.max(most.get(), using));
+        }
+
+        Thread.sleep(10);
+        inUse.decrementAndGet();
+    }
+
+    private static void runStuck(TestRunner runner, Class<?> testClass) throws Exception {
+        Engine engine = new Engine();
+        engine.setTestRunner(runner);
+        Configuration configuration = new Configuration();
+        configuration.setThreads(2);
+        engine.setConfiguration(configuration);
+
+        engine.process(new Request(testClass));
+    }
+
+    /**
+     * Use the resource well past the test's time limit, ignoring the
+     * interrupt.
+     */
+    private static void overstay(AtomicInteger inUse, AtomicInteger most) {
+        int using = inUse.incrementAndGet();
+        synchronized (most) {
+            most.set(Math.max(most.get(), using));
+        }
+
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STUCK_MILLIS);
+        while (System.nanoTime() < end) {
+            Thread.yield();
+        }
+        inUse.decrementAndGet();
+    }
+
+    @Test
+    public void threadPoolRunnerKeepsToPermits() throws Exception {
+        run(new TestThreadPool(), 4, ThreadPoolTests.class);
+
+        assertThat(ThreadPoolTests.most.get(), equalTo(1));
+    }
+
+    @Test
+    public void forkJoinRunnerKeepsToPermits() throws Exception {
+        run(new TestForkJoinPool(), 4, ForkJoinTests.class);
+
+        assertThat(ForkJoinTests.most.get(), equalTo(1));
+    }
+
+    @Test
+    public void virtualThreadRunnerKeepsToPermits() throws Exception {
+        run(new TestVirtualThreads(2), 4, VirtualThreadTests.class);
+
+        assertThat(VirtualThreadTests.most.get(), equalTo(1));
+    }
+
+    @Test
+    public void permitsOnTheClassApplyToEveryTest() throws Exception {
+        run(new TestThreadPool(), 4, TwoPermitTests.class);
+
+        assertThat(TwoPermitTests.most.get(), lessThanOrEqualTo(2));
+    }
+
+    @Test
+    public void loadRunnerKeepsToPermits() throws Exception {
+        Engine engine = new Engine();
+        engine.setTestRunner(new TestSustainedLoad(100, TimeUnit.MILLISECONDS));
+        Configuration configuration = new Configuration();
+        configuration.setThreads(4);
+        engine.setConfiguration(configuration);
+        engine.process(new Request(LoadTests.class));
+
+        assertThat(LoadTests.most.get(), equalTo(1));
+    }
+
+    @Test
+    public void threadPoolRunnerKeepsPermitsOfStuckTests() throws Exception {
+        runStuck(new TestThreadPool(), StuckThreadPoolTests.class);
+
+        assertThat(StuckThreadPoolTests.most.get(), equalTo(1));
+    }
+
+    @Test
+    public void forkJoinRunnerKeepsPermitsOfStuckTests() throws Exception {
+        runStuck(new TestForkJoinPool(), StuckForkJoinTests.class);
+
+        assertThat(StuckForkJoinTests.most.get(), equalTo(1));
+    }
+
+    @Test
+    public void virtualThreadRunnerKeepsPermitsOfStuckTests() throws Exception {
+        runStuck(new TestVirtualThreads(2), StuckVirtualThreadTests.class);
+
+        assertThat(StuckVirtualThreadTests.most.get(), equalTo(1));
+    }
+
+    @Test
+    public void loadRunnerKeepsPermitsOfStuckTests() throws Exception {
+        runStuck(new TestSustainedLoad(STUCK_MILLIS * 2, TimeUnit.MILLISECONDS), StuckLoadTests.class);
+
+        assertThat(StuckLoadTests.most.get(), equalTo(1));
+    }
+
+    @Test
+    public void fixedRateRunnerKeepsPermitsOfStuckTests() throws Exception {
+        runStuck(new TestFixedRate(20, STUCK_MILLIS * 2, TimeUnit.MILLISECONDS), StuckFixedRateTests.class);
+
+        assertThat(StuckFixedRateTests.most.get(), equalTo(1));
+    }
+
+    @Test
+    public void otherTestsRunWhileTheResourceIsTaken() throws Exception {
+        ListenerTester listener = run(new TestThreadPool(), 2, MixedTests.class);
+
+        long lastFreeEnded = 0;
+        long lastDatabaseStarted = 0;
+        for (TestEvent event : listener.getEvents()) {
+            if (event.getType() != Type.Test) {
+                continue;
+            }
+
+            String name = event.getDescription().getName();
+            if (name.endsWith("free") && event.getStatus() != Status.Started) {
+                lastFreeEnded = Math.max(lastFreeEnded, event.getNanoseconds());
+            } else if (name.contains(".database") && event.getStatus() == Status.Started) {
+                lastDatabaseStarted = Math.max(lastDatabaseStarted, event.getNanoseconds());
+            }
+        }
+
+        assertThat(lastFreeEnded, lessThan(lastDatabaseStarted));
+    }
+
+    public static class ThreadPoolTests {
+        private static final AtomicInteger inUse = new AtomicInteger();
+        private static final AtomicInteger most = new AtomicInteger();
+
+        @Test
+        @UsesResource("db")
+        public void one() throws InterruptedException {
+            use(inUse, most);
+        }
+
+        @Test
+        @UsesResource("db")
+        public void two() throws InterruptedException {
+            use(inUse, most);
+        }
+
+        @Test
+        @UsesResource("db")
+        public void three() throws InterruptedException {
+            use(inUse, most);
+        }
+
+        @Test
+        @UsesResource("db")
+        public void four() throws InterruptedException {
+            use(inUse, most);
+        }
+    }
+
+    @UsesResource("db")
+    public static class ForkJoinTests {
+        private static final AtomicInteger inUse = new AtomicInteger();
+        private static final AtomicInteger most = new AtomicInteger();
+
+        @Test
+        public void one() throws InterruptedException {
+            use(inUse, most);
+        }
+
+        @Test
+        public void two() throws InterruptedException {
+            use(inUse, most);
+        }
+
+        @Test
+        public void three() throws InterruptedException {
+            use(inUse, most);
+        }
+
+        @Test
+        public void four() throws InterruptedException {
+            use(inUse, most);
+        }
+    }
+
+    @UsesResource("db")
+    public static class VirtualThreadTests {
+        private static final AtomicInteger inUse = new AtomicInteger();
+        private static final AtomicInteger most = new AtomicInteger();
+
+        @Test
+        public void one() throws InterruptedException {
+            use(inUse, most);
+        }
+
+        @Test
+        public void two() throws InterruptedException {
+            use(inUse, most);
+        }
+
+        @Test
+        public void three() throws InterruptedException {
+            use(inUse, most);
+        }
+
+        @Test
+        public void four() throws InterruptedException {
+            use(inUse, most);
+        }
+    }
+
+    @UsesResource(value = "ports", permits = 2)
+    public static class TwoPermitTests {
+        private static final AtomicInteger inUse = new AtomicInteger();
+        private static final AtomicInteger most = new AtomicInteger();
+
+        @Test
+        public void one() throws InterruptedException {
+            use(inUse, most);
+        }
+
+        @Test
+        public void two() throws InterruptedException {
+            use(inUse, most);
+        }
+
+        @Test
+        public void three() throws InterruptedException {
+            use(inUse, most);
+        }
+
+        @Test
+        public void four() throws InterruptedException {
+            use(inUse, most);
+        }
+    }
+
+    public static class LoadTests {
+        private static final AtomicInteger inUse = new AtomicInteger();
+        private static final AtomicInteger most = new AtomicInteger();
+
+        @Test
+        @UsesResource("db")
+        public void one() throws InterruptedException {
+            use(inUse, most);
+        }
+
+        @Test
+        @UsesResource("db")
+        public void two() throws InterruptedException {
+            use(inUse, most);
+        }
+    }
+
+    @UsesResource("db")
+    public static class StuckThreadPoolTests {
+        private static final AtomicInteger inUse = new AtomicInteger();
+        private static final AtomicInteger most = new AtomicInteger();
+
+        @Test(timeout = 50)
+        public void overstays() {
+            overstay(inUse, most);
+        }
+
+        @Test
+        public void waits() throws InterruptedException {
+            use(inUse, most);
+        }
+    }
+
+    @UsesResource("db")
+    public static class StuckForkJoinTests {
+        private static final AtomicInteger inUse = new AtomicInteger();
+        private static final AtomicInteger most = new AtomicInteger();
+
+        @Test(timeout = 50)
+        public void overstays() {
+            overstay(inUse, most);
+        }
+
+        @Test
+        public void waits() throws InterruptedException {
+            use(inUse, most);
+        }
+    }
+
+    @UsesResource("db")
+    public static class StuckVirtualThreadTests {
+        private static final AtomicInteger inUse = new AtomicInteger();
+        private static final AtomicInteger most = new AtomicInteger();
+
+        @Test(timeout = 50)
+        public void overstays() {
+            overstay(inUse, most);
+        }
+
+        @Test
+        public void waits() throws InterruptedException {
+            use(inUse, most);
+        }
+    }
+
+    @UsesResource("db")
+    public static class StuckLoadTests {
+        private static final AtomicInteger inUse = new AtomicInteger();
+        private static final AtomicInteger most = new AtomicInteger();
+
+        @Test(timeout = 50)
+        public void overstays() {
+            overstay(inUse, most);
+        }
+
+        @Test
+        public void waits() throws InterruptedException {
+            use(inUse, most);
+        }
+    }
+
+    @UsesResource("db")
+    public static class StuckFixedRateTests {
+        private static final AtomicInteger inUse = new AtomicInteger();
+        private static final AtomicInteger most = new AtomicInteger();
+
+        @Test(timeout = 50)
+        public void overstays() {
+            overstay(inUse, most);
+        }
+
+        @Test
+        public void waits() throws InterruptedException {
+            use(inUse, most);
+        }
+    }
+
+    public static class MixedTests {
+        @Test
+        @UsesResource("db")
+        public void databaseOne() throws InterruptedException {
+            Thread.sleep(20);
+        }
+
+        @Test
+        @UsesResource("db")
+        public void databaseTwo() throws InterruptedException {
+            Thread.sleep(20);
+        }
+
+        @Test
+        @UsesResource("db")
+        public void databaseThree() throws InterruptedException {
+            Thread.sleep(20);
+        }
+
+        @Test
+        public void oneFree() {
+        }
+
+        @Test
+        public void twoFree() {
+        }
+
+        @Test
+        public void threeFree() {
+        }
+    }
+}
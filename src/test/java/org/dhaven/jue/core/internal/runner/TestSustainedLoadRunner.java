@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.runner;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dhaven.jue.Ignore;
+import org.dhaven.jue.Test;
+import org.dhaven.jue.api.Request;
+import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.api.results.ParentSummary;
+import org.dhaven.jue.api.results.RepeatedTestSummary;
+import org.dhaven.jue.api.results.Results;
+import org.dhaven.jue.api.results.Summary;
+import org.dhaven.jue.core.Configuration;
+import org.dhaven.jue.core.Engine;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+
+public class TestSustainedLoadRunner {
+    private Results run(long millis, int threads, int failureLimit) throws Exception {
+        Engine engine = new Engine();
+        engine.setTestRunner(new TestSustainedLoad(millis, TimeUnit.MILLISECONDS));
+        Configuration configuration = new Configuration();
+        configuration.setThreads(threads);
+        configuration.setFailureLimit(failureLimit);
+        engine.setConfiguration(configuration);
+
+        return engine.process(new Request(LoadTests.class));
+    }
+
+    private Summary test(Results results, String name) {
+        ParentSummary testCase = ParentSummary.class.cast(results.getChildren().iterator().next());
+
+        for (Summary test : testCase.getChildren()) {
+            if (test.getDescription().getName().endsWith("." + name)) {
+                return test;
+            }
+        }
+
+        throw new AssertionError("No test named " + name);
+    }
+
+    @Test
+    public void testsRunUntilTimeIsUp() throws Exception {
+        long start = System.nanoTime();
+        Results results = run(200, 2, 0);
+        long millis = (System.nanoTime() - start) / 1000000;
+
+        int runs = RepeatedTestSummary.class.cast(test(results, "passes")).size()
+                + RepeatedTestSummary.class.cast(test(results, "failsEveryOtherRun")).size();
+        assertThat(millis, greaterThanOrEqualTo(200L));
+        assertThat(results.complete(), equalTo(true));
+        assertThat(results.numberOfTestsRun(), equalTo(runs));
+        assertThat(runs, greaterThan(10));
+    }
+
+    @Test
+    public void runsRollUpPerTest() throws Exception {
+        Results results = run(100, 2, 0);
+
+        Summary passes = test(results, "passes");
+        assertThat(passes, instanceOf(RepeatedTestSummary.class));
+        RepeatedTestSummary load = RepeatedTestSummary.class.cast(passes);
+        assertThat(load.complete(), equalTo(true));
+        assertThat(load.throughput(), greaterThan(0.0));
+        assertThat(load.errorRate(), equalTo(0.0));
+        assertThat(load.percentile(0.5), greaterThan(0L));
+    }
+
+    @Test
+    public void errorRateCountsFailedRuns() throws Exception {
+        Results results = run(100, 2, 0);
+
+        RepeatedTestSummary load = RepeatedTestSummary.class.cast(test(results, "failsEveryOtherRun"));
+        assertThat(load.getStatus(), equalTo(Status.Failed));
+        assertThat(load.errorRate(), greaterThan(0.0));
+        assertThat(load.errorRate(), lessThan(1.0));
+    }
+
+    @Test
+    public void ignoredTestIsReportedOnce() throws Exception {
+        Results results = run(50, 1, 0);
+
+        assertThat(test(results, "ignored").getStatus(), equalTo(Status.Ignored));
+    }
+
+    @Test
+    public void failureLimitEndsTheLoad() throws Exception {
+        long start = System.nanoTime();
+        run(60000, 2, 3);
+        long millis = (System.nanoTime() - start) / 1000000;
+
+        assertThat(millis, lessThan(10000L));
+    }
+
+    public static class LoadTests {
+        private static final AtomicInteger failing = new AtomicInteger();
+
+        @Test
+        public void passes() throws InterruptedException {
+            Thread.sleep(1);
+        }
+
+        @Test
+        public void failsEveryOtherRun() throws InterruptedException {
+            Thread.sleep(1);
+            if (failing.incrementAndGet() % 2 == 0) {
+                throw new AssertionError("every other run fails");
+            }
+        }
+
+        @Test
+        @Ignore
+        public void ignored() {
+        }
+    }
+}
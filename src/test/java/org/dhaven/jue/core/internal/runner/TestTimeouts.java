@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.dhaven.jue.core.internal.runner;
+
+import java.util.concurrent.TimeoutException;
+
+import org.dhaven.jue.After;
+import org.dhaven.jue.ListenerTester;
+import org.dhaven.jue.Test;
+import org.dhaven.jue.Timeout;
+import org.dhaven.jue.api.Request;
+import org.dhaven.jue.api.description.Type;
+import org.dhaven.jue.api.event.Status;
+import org.dhaven.jue.api.event.TestEvent;
+import org.dhaven.jue.api.results.Results;
+import org.dhaven.jue.core.Configuration;
+import org.dhaven.jue.core.Engine;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+
+public class TestTimeouts {
+    private static final long STUBBORN_MILLIS = 1500;
+
+    private ListenerTester listener;
+
+    private Results run(TestRunner runner, Class<?> testClass, long defaultTimeout) throws Exception {
+        Engine engine = new Engine();
+        engine.setTestRunner(runner);
+        Configuration configuration = new Configuration();
+        configuration.setThreads(1);
+        configuration.setTimeout(defaultTimeout);
+        engine.setConfiguration(configuration);
+        listener = new ListenerTester();
+        engine.addTestListener(listener);
+
+        return engine.process(new Request(testClass));
+    }
+
+    private TestEvent endOf(String testName) {
+        TestEvent end = null;
+
+        for (TestEvent event : listener.getEvents()) {
+            if (event.getType() == Type.Test && event.getStatus() != Status.Started
+                    && event.getDescription().getName().endsWith("." + testName)) {
+                assertThat("only one end event for " + testName, end == null, equalTo(true));
+                end = event;
+            }
+        }
+
+        return end;
+    }
+
+    private void assertHangingTestTerminated(TestRunner runner) throws Exception {
+        Results results = run(runner, HangingTests.class, 0);
+
+        assertThat(results.getStatus(), equalTo(Status.Terminated));
+        assertThat(endOf("passes").getStatus(), equalTo(Status.Passed));
+
+        TestEvent hangs = endOf("hangs");
+        assertThat(hangs.getStatus(), equalTo(Status.Terminated));
+        assertThat(hangs.getFailure(), instanceOf(TimeoutException.class));
+        assertThat(hangs.getFailure().getStackTrace().length > 0, equalTo(true));
+    }
+
+    @Test
+    public void sequentialRunnerStopsHangingTest() throws Exception {
+        assertHangingTestTerminated(new TestSequential());
+    }
+
+    @Test
+    public void forkJoinRunnerStopsHangingTest() throws Exception {
+        assertHangingTestTerminated(new TestForkJoinPool());
+    }
+
+    @Test
+    public void threadPoolRunnerStopsHangingTest() throws Exception {
+        assertHangingTestTerminated(new TestThreadPool());
+    }
+
+    @Test
+    public void virtualThreadRunnerStopsHangingTest() throws Exception {
+        assertHangingTestTerminated(new TestVirtualThreads());
+    }
+
+    @Test
+    public void threadPoolRunnerCarriesOnWithoutStuckThread() throws Exception {
+        long start = System.nanoTime();
+        Results results = run(new TestThreadPool(), StubbornTests.class, 0);
+        long millis = (System.nanoTime() - start) / 1000000;
+
+        assertThat(millis, lessThan(STUBBORN_MILLIS));
+        assertThat(results.numberOfTestsRun(), equalTo(2));
+        assertThat(endOf("ignoresInterrupts").getStatus(), equalTo(Status.Terminated));
+        assertThat(endOf("passes").getStatus(), equalTo(Status.Passed));
+    }
+
+    @Test
+    public void forkJoinRunnerCarriesOnWithoutStuckThread() throws Exception {
+        long start = System.nanoTime();
+        Results results = run(new TestForkJoinPool(), StubbornTests.class, 0);
+        long millis = (System.nanoTime() - start) / 1000000;
+
+        assertThat(millis, lessThan(STUBBORN_MILLIS));
+        assertThat(results.numberOfTestsRun(), equalTo(2));
+        assertThat(endOf("ignoresInterrupts").getStatus(), equalTo(Status.Terminated));
+        assertThat(endOf("passes").getStatus(), equalTo(Status.Passed));
+    }
+
+    @Test
+    public void virtualThreadRunnerCarriesOnWithoutStuckThread() throws Exception {
+        long start = System.nanoTime();
+        Results results = run(new TestVirtualThreads(1), StubbornTests.class, 0);
+        long millis = (System.nanoTime() - start) / 1000000;
+
+        assertThat(millis, lessThan(STUBBORN_MILLIS));
+        assertThat(results.numberOfTestsRun(), equalTo(2));
+        assertThat(endOf("passes").getStatus(), equalTo(Status.Passed));
+    }
+
+    @Test
+    public void classTimeoutApplies() throws Exception {
+        run(new TestForkJoinPool(), ClassTimeoutTests.class, 0);
+
+        assertThat(endOf("hangs").getStatus(), equalTo(Status.Terminated));
+    }
+
+    @Test
+    public void engineTimeoutApplies() throws Exception {
+        run(new TestForkJoinPool(), NoTimeoutTests.class, 100);
+
+        assertThat(endOf("hangs").getStatus(), equalTo(Status.Terminated));
+    }
+
+    @Test
+    public void hangingTearDownTimesOut() throws Exception {
+        run(new TestForkJoinPool(), HangingTearDownTests.class, 0);
+
+        TestEvent passes = endOf("passes");
+        assertThat(passes.getStatus(), equalTo(Status.Terminated));
+        assertThat(passes.getFailure(), instanceOf(TimeoutException.class));
+    }
+
+    @Test
+    public void timeoutDoesNotInterruptTheNextTest() throws Exception {
+        run(new TestSequential(), SpinningTests.class, 0);
+
+        assertThat(endOf("spins").getStatus(), equalTo(Status.Terminated));
+        assertThat(endOf("sleeps").getStatus(), equalTo(Status.Passed));
+        assertThat(Thread.currentThread().isInterrupted(), equalTo(false));
+    }
+
+    @Test
+    public void testTimeoutOverridesEngineTimeout() throws Exception {
+        run(new TestForkJoinPool(), HangingTests.class, 60000);
+
+        assertThat(endOf("hangs").getStatus(), equalTo(Status.Terminated));
+    }
+
+    private static void sleepForever() throws InterruptedException {
+        Thread.sleep(60000);
+    }
+
+    public static class HangingTests {
+        @Test(timeout = 100)
+        public void hangs() throws InterruptedException {
+            sleepForever();
+        }
+
+        @Test(timeout = 5000)
+        public void passes() {
+        }
+    }
+
+    @Timeout(100)
+    public static class ClassTimeoutTests {
+        @Test
+        public void hangs() throws InterruptedException {
+            sleepForever();
+        }
+    }
+
+    public static class NoTimeoutTests {
+        @Test
+        public void hangs() throws InterruptedException {
+            sleepForever();
+        }
+    }
+
+    public static class HangingTearDownTests {
+        @Test(timeout = 100)
+        public void passes() {
+        }
+
+        @After
+        public void hangs() throws InterruptedException {
+            sleepForever();
+        }
+    }
+
+    public static class SpinningTests {
+        @Test(timeout = 100)
+        public void spins() {
+            long end = System.nanoTime() + 400 * 1000000L;
+
+            while (System.nanoTime() < end) {
+                // not looking at the interrupt
+            }
+        }
+
+        @Test
+        public void sleeps() throws InterruptedException {
+            Thread.sleep(50);
+        }
+    }
+
+    public static class StubbornTests {
+        @Test(timeout = 100)
+        public void ignoresInterrupts() {
+            long end = System.nanoTime() + STUBBORN_MILLIS * 1000000;
+
+            while (System.nanoTime() < end) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    // carry on regardless
+                }
+            }
+        }
+
+        @Test
+        public void passes() {
+        }
+    }
+}